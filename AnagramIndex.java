@@ -0,0 +1,274 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: AnagramIndex
+ *
+ * This class contains an anagram index of the word list, used to find the highest-scoring word a rack can form.
+ * Every word is keyed by its signature, its letters in sorted order packed five bits to a letter into a long.
+ * All anagrams share a signature and score the same points, so the index keeps one word per signature.
+ * A query visits each distinct sub-multiset of the rack, at most 127 for a 7-letter rack, and looks up its
+ * signature in an open-addressing table of primitive longs, so a query takes a few microseconds and does
+ * not depend on the size of the dictionary. The words themselves are packed into one byte array.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+public class AnagramIndex {
+
+    public static final int MAX_WORD_LENGTH = 12; // longest word indexed, as twelve letters fill a 60-bit signature
+    private static final int LETTER_BITS = 5; // bits per letter in a signature
+    private static final int MIN_CHUNK_BYTES = 64 * 1024; // smallest part of a word list parsed as one parallel task
+
+    private final long[] signatures; // open-addressing table of signatures, 0 for an empty slot
+    private final int[] offsets; // offset in wordBytes of the word for the signature in the same slot
+    private final byte[] wordBytes; // the indexed words, back to back
+    private final int shift; // 64 minus the number of table index bits
+    private final int count; // number of signatures in the table
+
+    /**
+     * Private constructor wrapping a filled table
+     */
+    private AnagramIndex(long[] signatures, int[] offsets, byte[] wordBytes, int count) {
+        this.signatures = signatures;
+        this.offsets = offsets;
+        this.wordBytes = wordBytes;
+        this.shift = 64 - Integer.numberOfTrailingZeros(signatures.length);
+        this.count = count;
+    } // end constructor
+
+    /**
+     * Build an index from a word list. Words that are not purely alphabetic or are longer than
+     * MAX_WORD_LENGTH are skipped, and the first word seen for a signature is the one kept.
+     * @param wordList the plain text word list, one word per line
+     * @return the anagram index
+     * @throws IOException if the word list cannot be read
+     */
+    public static AnagramIndex build(Path wordList) throws IOException {
+        return build(Files.readAllBytes(wordList));
+    } // end build
+
+    /**
+     * Build an index from the bytes of a word list. The list is cut into chunks at line breaks, and the
+     * chunks are parsed and signed in parallel on the common pool. The signed words are then added to the
+     * table in list order, so the result is the same as a sequential build.
+     * @param contents the word list's bytes, one word per line
+     * @return the anagram index
+     */
+    public static AnagramIndex build(byte[] contents) {
+        int chunkCount = Math.max(1, Math.min(4 * Runtime.getRuntime().availableProcessors(), contents.length / MIN_CHUNK_BYTES));
+        int[] bounds = new int[chunkCount + 1];
+        for (int i = 1; i < chunkCount; i++) {
+            int bound = Math.max(bounds[i - 1], (int) ((long) contents.length * i / chunkCount));
+            while (bound < contents.length && contents[bound - 1] != '\n') bound++; // start each chunk on a new line
+            bounds[i] = bound;
+        }
+        bounds[chunkCount] = contents.length;
+        Chunk[] chunks = new Chunk[chunkCount];
+        IntStream.range(0, chunkCount).parallel().forEach(i -> chunks[i] = new Chunk(contents, bounds[i], bounds[i + 1]));
+
+        // Keep the table at most half full so probe sequences stay short
+        int total = 0;
+        for (Chunk chunk : chunks) {
+            total += chunk.count;
+        }
+        int capacity = Integer.highestOneBit(Math.max(1, total * 2 - 1)) << 1;
+        long[] signatures = new long[capacity];
+        int[] offsets = new int[capacity];
+        byte[] wordBytes = new byte[1024];
+        int used = 0;
+        int count = 0;
+        int shift = 64 - Integer.numberOfTrailingZeros(capacity);
+
+        for (Chunk chunk : chunks) {
+            for (int w = 0; w < chunk.count; w++) {
+                long signature = chunk.signatures[w];
+                int slot = slot(signature, shift);
+                while (signatures[slot] != 0 && signatures[slot] != signature) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                if (signatures[slot] != 0) continue; // an anagram is already indexed
+
+                int start = chunk.starts[w];
+                int length = chunk.starts[w + 1] - start;
+                if (used + length > wordBytes.length) {
+                    wordBytes = Arrays.copyOf(wordBytes, Math.max(wordBytes.length * 2, used + length));
+                }
+                signatures[slot] = signature;
+                offsets[slot] = used;
+                System.arraycopy(chunk.words, start, wordBytes, used, length);
+                used += length;
+                count++;
+            }
+        }
+        return new AnagramIndex(signatures, offsets, Arrays.copyOf(wordBytes, used), count);
+    } // end build
+
+    /**
+     * The words of one chunk of a word list, lower-cased and signed
+     */
+    private static final class Chunk {
+        private final long[] signatures; // the signature of each word
+        private final int[] starts; // the offset of each word in words, followed by the end of the last word
+        private final byte[] words; // the words, back to back
+        private final int count; // the number of words
+
+        /**
+         * Parse the lines in a range of a word list, skipping blank lines and those that are not a word
+         */
+        private Chunk(byte[] contents, int from, int to) {
+            long[] signed = new long[64];
+            int[] offsets = new int[65];
+            byte[] letters = new byte[Math.max(16, to - from)];
+            int[] letterCounts = new int[26];
+            int used = 0;
+            int words = 0;
+            int lineStart = from;
+            while (lineStart < to) {
+                int lineEnd = lineStart;
+                while (lineEnd < to && contents[lineEnd] != '\n') lineEnd++;
+                int start = lineStart;
+                int end = lineEnd;
+                lineStart = lineEnd + 1;
+                while (start < end && (contents[start] & 0xFF) <= ' ') start++;
+                while (end > start && (contents[end - 1] & 0xFF) <= ' ') end--;
+                if (start == end || end - start > MAX_WORD_LENGTH) continue;
+
+                boolean word = true;
+                for (int i = start; i < end && word; i++) {
+                    int c = contents[i] | 0x20; // lower-case ASCII letters
+                    word = c >= 'a' && c <= 'z';
+                }
+                if (!word) continue;
+
+                for (int i = start; i < end; i++) {
+                    byte c = (byte) (contents[i] | 0x20);
+                    letters[used++] = c;
+                    letterCounts[c - 'a']++;
+                }
+                long signature = 0;
+                for (int letter = 0; letter < 26; letter++) {
+                    for (; letterCounts[letter] > 0; letterCounts[letter]--) {
+                        signature = (signature << LETTER_BITS) | (letter + 1);
+                    }
+                }
+                if (words == signed.length) {
+                    signed = Arrays.copyOf(signed, words * 2);
+                    offsets = Arrays.copyOf(offsets, words * 2 + 1);
+                }
+                signed[words] = signature;
+                offsets[words + 1] = used;
+                words++;
+            }
+            this.signatures = signed;
+            this.starts = offsets;
+            this.words = letters;
+            this.count = words;
+        }
+    } // end Chunk
+
+    /**
+     * Find the highest-scoring word that can be formed from a rack of letters, scoring each letter with
+     * LetterPool.getLetterPoints as LetterPool.getWordPoints does. Ties go to the longer word.
+     * @param letterCounts the count of each letter 'A'-'Z' in the rack, which is not changed
+     * @return the best word in lower case, or null if no word can be formed
+     */
+    public String bestWord(int[] letterCounts) {
+        Search search = new Search(letterCounts);
+        if (search.distinct == 0) return null;
+        search.visit(0, 0, 0, 0);
+        if (search.bestSlot < 0) return null;
+        return new String(wordBytes, offsets[search.bestSlot], search.bestLength, StandardCharsets.US_ASCII);
+    } // end bestWord
+
+    /**
+     * Getter for the number of distinct signatures in the index
+     * @return the signature count
+     */
+    public int getSignatureCount() {
+        return count;
+    } // end getSignatureCount
+
+    /**
+     * State for one bestWord query
+     */
+    private final class Search {
+        private final int[] letters = new int[26]; // the distinct letters in the rack, in ascending order
+        private final int[] available = new int[26]; // how many of each distinct letter the rack holds
+        private int distinct = 0;
+        private int bestSlot = -1;
+        private int bestPoints = -1;
+        private int bestLength = 0;
+
+        private Search(int[] letterCounts) {
+            for (int letter = 0; letter < 26; letter++) {
+                if (letterCounts[letter] <= 0) continue;
+                letters[distinct] = letter;
+                available[distinct] = letterCounts[letter];
+                distinct++;
+            }
+        }
+
+        /**
+         * Choose how many of each distinct letter to use, then look up the signature of the chosen letters
+         * @param index the distinct letter to choose a count for
+         * @param signature the signature of the letters chosen so far
+         * @param points the points of the letters chosen so far
+         * @param length the number of letters chosen so far
+         */
+        private void visit(int index, long signature, int points, int length) {
+            if (index == distinct) {
+                if (length == 0 || points < bestPoints || (points == bestPoints && length <= bestLength)) return;
+                int slot = find(signature);
+                if (slot >= 0) {
+                    bestSlot = slot;
+                    bestPoints = points;
+                    bestLength = length;
+                }
+                return;
+            }
+            int code = letters[index] + 1;
+            int letterPoints = LetterPool.getLetterPoints((char) ('a' + letters[index]));
+            for (int used = 0; used <= available[index] && length <= MAX_WORD_LENGTH; used++) { // longer sub-racks match no word
+                visit(index + 1, signature, points, length);
+                signature = (signature << LETTER_BITS) | code;
+                points += letterPoints;
+                length++;
+            }
+        } // end visit
+    } // end Search
+
+    /**
+     * Helper method to find the table slot holding a signature
+     * @param signature the signature
+     * @return the slot, or -1 if the signature is not in the index
+     */
+    private int find(long signature) {
+        int mask = signatures.length - 1;
+        int slot = slot(signature, shift);
+        long stored;
+        while ((stored = signatures[slot]) != 0) {
+            if (stored == signature) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    } // end find
+
+    /**
+     * Helper method to hash a signature to its first table slot
+     * @param signature the signature
+     * @param shift 64 minus the number of table index bits
+     * @return the slot
+     */
+    private static int slot(long signature, int shift) {
+        return (int) ((signature * 0x9E3779B97F4A7C15L) >>> shift);
+    } // end slot
+
+} // end class
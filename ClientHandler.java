@@ -4,6 +4,19 @@
  * 
  * This class contains functionality to handle a client connection on the server-side.
  * It keeps the connection alive and facilitates communication.
+ * A handler either owns a blocking Socket and reads it on its own thread, or owns a non-blocking
+ * SocketChannel driven by an EventLoop. Either way, input is framed into lines and delivered to the
+ * player's GameSession as events.
+ * Clients speak either the original line-based text protocol or, after sending the handshake line,
+ * the framed binary Protocol. Game messages are queued in an output buffer and written with one
+ * flush per turn, so a turn costs one write per client rather than one per message.
+ * Idle connections are reaped by a check on the shared TimerWheel: a connection must send its name
+ * promptly, and once named it may not go quiet for long except while it is waiting for an opponent.
+ * ClientHandler is the socket implementation of PlayerChannel, for both the blocking and non-blocking transports.
+ * A client that sends "/watch", optionally followed by a session id, instead of a name becomes a spectator
+ * of that game, or of the newest game, and is sent its SpectatorFeed until the game ends.
+ * A game node also accepts links from a lobby, each carrying one player already matched by the lobby, and seats
+ * that player at the table the lobby names rather than matching them again.
  * 
  * @author Kirin Sharma
  * @version 2.0
@@ -12,96 +25,881 @@
 
 import java.io.*;
 import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-public class ClientHandler implements Runnable {
+public class ClientHandler implements Runnable, PlayerChannel {
     
-    private final Socket clientSocket; // the socket associated with the client
-    private BufferedReader in; // input reader
-    private PrintWriter out; // output writer
+    private static final int MAX_LINE_BYTES = 1024; // longest line accepted from a client
+    public static final long NAME_TIMEOUT_MILLIS = 30_000; // time a new connection has to send its name
+    public static final long IDLE_TIMEOUT_MILLIS = 300_000; // time a named connection may go without input outside matchmaking
 
-    private Player player; // the player associated with the client
-    private boolean playerReady = false; // flag for if the player has been created yet
+    private final Socket clientSocket; // the socket associated with the client (blocking mode)
+    private InputStream in; // input stream (blocking mode)
+    private OutputStream out; // output stream (blocking mode)
+    private volatile boolean binary = false; // flag for if the client negotiated the binary protocol
+
+    private final SocketChannel channel; // the channel associated with the client (non-blocking mode)
+    private final EventLoop eventLoop; // the event loop driving the channel
+    private final GameManager gameManager; // the game manager to join once the player is named, if any
+    private SelectionKey key; // the channel's registration with the event loop's selector
+    private final ByteBuffer readBuffer = ByteBuffer.allocate(512); // bytes read but not yet framed
+    private byte[] lineBytes = new byte[64]; // bytes of the line or frame currently being read
+    private int lineLength = 0; // number of bytes in lineBytes
+    private final ReentrantLock outLock = new ReentrantLock(); // guards pending, outbox and writeInterest
+    private ByteBuffer pending = ByteBuffer.allocate(256); // encoded messages queued until the next flush
+    private final ArrayDeque<ByteBuffer> outbox = new ArrayDeque<>(); // flushed bytes the channel has not yet accepted
+    private boolean writeInterest = false; // flag for if OP_WRITE has been requested
+    private volatile GameTable session; // the table this client is seated at, local or remote, if any
+    private volatile long lastSentAt; // System.nanoTime() when the last message to the client was sent
+    private volatile long lastInputAt = System.nanoTime(); // System.nanoTime() when input was last received
+    private volatile GameSession watching; // the session this client is watching as a spectator, if any
+    private ArrayBlockingQueue<SpectatorFeed.Event> feedBacklog; // events waiting for a blocking spectator's own thread
+    private int eventsDropped = 0; // events the spectator has missed in a row, touched by one publishing thread at a time
+    private boolean closeWhenDrained = false; // flag for if the channel closes once the outbox is written, guarded by outLock
+
+    private boolean counted = false; // flag for if the connection has been counted, once its first line arrived (non-blocking mode)
+    private long tableId = -1; // the table a lobby seated this client at, or -1 for a client that connected directly
+    private int tableSeat; // the client's seat at that table, in turn order
+    private int tableSeats; // the number of seats at that table
+
+    private volatile Player player; // the player associated with the client
+    private final CountDownLatch playerReady = new CountDownLatch(1); // released once the player has been created
 
     /**
      * Constructor to initialize the ClientHandler and associate it to a client given a socket
      * @param socket
      */
     public ClientHandler(Socket socket) {
+        this(socket, null);
+    } // end constructor
+
+    /**
+     * Constructor to initialize the ClientHandler and associate it to a client given a socket.
+     * The client is added to the game manager once its name has been received.
+     * @param socket
+     * @param gameManager the game manager to add the client to
+     */
+    public ClientHandler(Socket socket, GameManager gameManager) {
         clientSocket = socket;
+        channel = null;
+        eventLoop = null;
+        this.gameManager = gameManager;
+    } // end constructor
+
+    /**
+     * Constructor to initialize a non-blocking ClientHandler driven by an event loop.
+     * The client is added to the game manager once its name has been received.
+     * @param channel the non-blocking channel for the client
+     * @param eventLoop the event loop that will drive the channel
+     * @param gameManager the game manager to add the client to
+     */
+    public ClientHandler(SocketChannel channel, EventLoop eventLoop, GameManager gameManager) {
+        clientSocket = null;
+        this.channel = channel;
+        this.eventLoop = eventLoop;
+        this.gameManager = gameManager;
     } // end constructor
 
     @Override
     /**
-     * Override of the run method. Gets the player's name and notify's the server of their readiness.
-     * Keeps socket alive for communication until the socket closes.
+     * Override of the run method. Gets the player's name and notify's the server of their readiness,
+     * then delivers the client's input to its game session until the socket closes.
      */
     public void run() {
+        scheduleIdleCheck(NAME_TIMEOUT_MILLIS);
         try {
             // Initialize input and output streams
-            in = new BufferedReader(new InputStreamReader(clientSocket.getInputStream()));
-            out = new PrintWriter(clientSocket.getOutputStream(), true);
+            in = new BufferedInputStream(clientSocket.getInputStream());
+            out = clientSocket.getOutputStream();
 
-            // Get the client's name, if valid
-            String name = in.readLine();
+            // Get the client's name, if valid, after the binary handshake or a lobby's seat request if the client sends one
+            String name = readInput();
+            if (name != null) countConnection(name);
+            if (name != null && name.startsWith(Protocol.CLUSTER_HANDSHAKE)) {
+                if (!onClusterRequest(name)) return;
+                name = readInput();
+            } else if (!binary && Protocol.HANDSHAKE.equals(name)) {
+                binary = true;
+                name = readInput();
+            }
             if (name == null || name.trim().isEmpty()) {
-                out.println("Invalid name. Connection closing.");
+                sendMessage("Invalid name. Connection closing.");
                 cleanup();
                 return;
             }
 
+            // A spectator's thread writes the game's events to it until the game ends
+            if (isWatchRequest(name)) {
+                if (startWatching(name)) drainEvents();
+                return;
+            }
+
             // Initialize a player object associated with this client handler with the inputted name and notify threads of readiness
-            synchronized(this) {
-                player = new Player(name);
-                playerReady = true;
-                notifyAll();
+            setPlayer(name);
+
+            // Only now that the player is ready does it join matchmaking
+            if (gameManager != null) {
+                join(name);
+            } else {
+                welcome(name);
             }
-            out.println("Welcome! You have joined the game as: " + name + ".");
-            out.println("Type '0' at any time to quit the game.");
-            out.println("You will have 8 chances to input words that total more points than your opponent.");
 
-            
-            // Keep thread alive until socket closes
-            while (!clientSocket.isClosed()) {
-                Thread.sleep(1000);
+            // Deliver each line to the game session as it arrives, as the event loop does for non-blocking clients
+            String line;
+            while ((line = readInput()) != null) {
+                deliver(line);
             }
         } catch (Exception e) {
-            System.err.println("Connection error with client: " + e.getMessage());
+            if (!isClosed()) System.err.println("Connection error with client: " + e.getMessage());
         } finally {
             cleanup(); // close the clientSocket
+            GameTable current = session;
+            if (current != null) current.onInput(this, null);
         }
     } // end run
 
     /**
-     * Method to send a message to the client
+     * Helper method to create the player and notify waiting threads of readiness
+     * @param name the player's name
+     */
+    private void setPlayer(String name) {
+        player = new Player(name);
+        playerReady.countDown();
+    } // end setPlayer
+
+    /**
+     * Helper method to add a named player to matchmaking, or to the table a lobby seated them at.
+     * Players routed by a lobby were already welcomed by it.
+     * @param name the player's name
+     */
+    private void join(String name) {
+        if (tableId >= 0) {
+            gameManager.seatAtTable(this, tableId, tableSeat, tableSeats);
+            return;
+        }
+        welcome(name);
+        gameManager.addClient(this);
+    } // end join
+
+    /**
+     * Helper method to count and log a client's connection once its first line has arrived. A lobby's status
+     * request is not a client, so the heartbeat a lobby sends every node each second is neither counted nor logged.
+     * @param line the first line received
+     */
+    private void countConnection(String line) {
+        if (line.equals(Protocol.CLUSTER_STATUS)) return;
+        Metrics.markStartup(Metrics.STARTUP_FIRST_ACCEPT, "First connection accepted");
+        Metrics.CONNECTIONS_ACCEPTED.increment();
+        System.out.println("Client connected: " + (channel != null ? channel.socket().getRemoteSocketAddress() : clientSocket.getRemoteSocketAddress()));
+    } // end countConnection
+
+    /**
+     * Helper method to handle the first line from a lobby. A status request is answered with the number of
+     * active sessions and the connection closed. A seat request records the table the player is seated at and
+     * switches the link to the binary protocol, in which the player's name follows.
+     * @param line the line received
+     * @return true if the line was a seat request, false if the connection has been closed
+     */
+    private boolean onClusterRequest(String line) {
+        if (line.equals(Protocol.CLUSTER_STATUS) && gameManager != null) {
+            sendMessage(Protocol.CLUSTER_SESSIONS + " " + gameManager.getActiveSessionCount());
+            cleanup();
+            return false;
+        }
+        String[] parts = line.split(" ");
+        if (parts.length == 5 && line.startsWith(Protocol.CLUSTER_SEAT + " ") && gameManager != null) {
+            try {
+                tableId = Long.parseLong(parts[2]);
+                tableSeat = Integer.parseInt(parts[3]);
+                tableSeats = Integer.parseInt(parts[4]);
+                if (tableId >= 0 && tableSeat >= 0 && tableSeat < tableSeats
+                        && tableSeats >= GameSession.MIN_PLAYERS && tableSeats <= GameSession.MAX_PLAYERS) {
+                    binary = true;
+                    return true;
+                }
+            } catch (NumberFormatException e) {
+                // answered below
+            }
+        }
+        tableId = -1;
+        sendMessage("Invalid lobby request. Connection closing.");
+        cleanup();
+        return false;
+    } // end onClusterRequest
+
+    /**
+     * Helper method to send the welcome messages once the player has joined
+     * @param name the player's name
+     */
+    private void welcome(String name) {
+        queueMessage("Welcome! You have joined the game as: " + name + ".");
+        GameStore.PlayerStats stats = gameManager == null ? null : gameManager.getStats(name);
+        if (stats != null) {
+            queueMessage("Welcome back! You have played " + stats.getGames() + " games, with " + stats.getWins()
+                    + " wins and a best score of " + stats.getBestScore() + " points.");
+        }
+        queueMessage("Type '0' at any time to quit the game.");
+        queueMessage("Type '?' on your turn for a hint. You get " + GameSession.HINTS_PER_GAME + " per game.");
+        queueMessage("You will have 8 chances to input words that total more points than your opponent.");
+        flush();
+    } // end welcome
+
+    /**
+     * Method to register a non-blocking client's channel with a selector. Called on the event loop thread.
+     * @param selector the event loop's selector
+     * @throws IOException if the channel cannot be registered
+     */
+    void register(Selector selector) throws IOException {
+        key = channel.register(selector, SelectionKey.OP_READ, this);
+        scheduleIdleCheck(NAME_TIMEOUT_MILLIS);
+    } // end register
+
+    /**
+     * Helper method to check for idleness on the shared timer wheel after a delay
+     * @param delayMillis the delay in milliseconds
+     */
+    private void scheduleIdleCheck(long delayMillis) {
+        TimerWheel.SHARED.schedule(this::checkIdle, delayMillis, TimeUnit.MILLISECONDS);
+    } // end scheduleIdleCheck
+
+    /**
+     * Helper method run on the timer wheel to close a connection that has gone quiet for too long.
+     * A connection waiting for an opponent is expected to be quiet, so it is never reaped.
+     * Otherwise the check is rescheduled for when the connection would next become idle.
+     * The check only reads the connection's state; closing it is handed off the wheel's thread.
+     */
+    private void checkIdle() {
+        if (isClosed()) return;
+        if (watching != null) return; // spectators are closed when their game ends
+        long limit = player == null ? NAME_TIMEOUT_MILLIS : IDLE_TIMEOUT_MILLIS;
+        if (player != null && session == null) {
+            scheduleIdleCheck(limit);
+            return;
+        }
+        long idleMillis = (System.nanoTime() - lastInputAt) / 1_000_000;
+        if (idleMillis < limit) {
+            scheduleIdleCheck(limit - idleMillis);
+            return;
+        }
+
+        Metrics.CONNECTIONS_REAPED.increment();
+        Runnable reap = () -> {
+            sendMessage("No input received for " + limit / 1000 + " seconds. Connection closing.");
+            cleanup();
+            // A blocking client's own thread reports the disconnect once its read fails
+            GameTable current = session;
+            if (channel != null && current != null) current.onInput(this, null);
+        };
+        if (eventLoop != null) {
+            eventLoop.execute(reap);
+        } else if (gameManager != null) {
+            gameManager.execute(reap);
+        } else {
+            new Thread(reap).start();
+        }
+    } // end checkIdle
+
+    /**
+     * Method called by the event loop when the channel is readable. Frames the input into lines
+     * and handles each complete line.
+     * @throws IOException if reading fails
+     */
+    void onReadable() throws IOException {
+        int read = channel.read(readBuffer);
+        if (read < 0) {
+            cleanup();
+            GameTable current = session;
+            if (current != null) current.onInput(this, null);
+            return;
+        }
+
+        readBuffer.flip();
+        while (readBuffer.hasRemaining()) {
+            byte b = readBuffer.get();
+            if (binary) {
+                frameByte(b);
+            } else {
+                lineByte(b);
+            }
+            if (isClosed()) return;
+        }
+        readBuffer.clear();
+    } // end onReadable
+
+    /**
+     * Helper method to add one byte of text protocol input, handling the line once it is complete
+     * @param b the byte read
+     */
+    private void lineByte(byte b) {
+        if (b == '\n') {
+            int length = lineLength > 0 && lineBytes[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+            String line = new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+            lineLength = 0;
+            onLine(line);
+            return;
+        }
+        if (lineLength == MAX_LINE_BYTES) {
+            sendMessage("Input too long. Connection closing.");
+            cleanup();
+            return;
+        }
+        growLineBytes(MAX_LINE_BYTES);
+        lineBytes[lineLength++] = b;
+    } // end lineByte
+
+    /**
+     * Helper method to add one byte of binary protocol input, handling the frame once it is complete
+     * @param b the byte read
+     */
+    private void frameByte(byte b) {
+        growLineBytes(Protocol.MAX_FRAME_BYTES + 2);
+        lineBytes[lineLength++] = b;
+        if (lineLength < 2) return;
+        int frameLength = ((lineBytes[0] & 0xFF) << 8) | (lineBytes[1] & 0xFF);
+        if (frameLength == 0 || frameLength > Protocol.MAX_FRAME_BYTES) {
+            sendMessage("Input too long. Connection closing.");
+            cleanup();
+            return;
+        }
+        if (lineLength == frameLength + 2) {
+            lineLength = 0;
+            String line = frameToLine(lineBytes[2], 3, frameLength - 1);
+            if (line != null) onLine(line);
+        }
+    } // end frameByte
+
+    /**
+     * Helper method to make room for one more byte in lineBytes
+     * @param limit the largest size lineBytes may grow to
+     */
+    private void growLineBytes(int limit) {
+        if (lineLength == lineBytes.length) {
+            lineBytes = Arrays.copyOf(lineBytes, Math.min(lineBytes.length * 2, limit));
+        }
+    } // end growLineBytes
+
+    /**
+     * Helper method to translate a client frame held in lineBytes into a text protocol line.
+     * Only a NAME is accepted before the player exists, and only a MOVE after.
+     * @param type the message type
+     * @param offset the index of the first payload byte
+     * @param length the number of payload bytes
+     * @return the equivalent line, or null if the frame should be ignored
+     */
+    private String frameToLine(byte type, int offset, int length) {
+        if ((type == Protocol.NAME) != (player == null)) return null;
+        return Protocol.toLine(type, lineBytes, offset, length);
+    } // end frameToLine
+
+    /**
+     * Helper method to handle one line of input from a non-blocking client.
+     * The first line is the player's name, and every later line is passed to the game session.
+     * @param line the line received
+     */
+    private void onLine(String line) {
+        lastInputAt = System.nanoTime();
+        if (!counted) {
+            counted = true;
+            countConnection(line);
+        }
+        if (watching != null) return; // spectators only listen
+        if (player == null) {
+            if (!binary && line.startsWith(Protocol.CLUSTER_HANDSHAKE)) {
+                onClusterRequest(line);
+                return;
+            }
+            if (!binary && line.equals(Protocol.HANDSHAKE)) {
+                binary = true;
+                return;
+            }
+            if (line.trim().isEmpty()) {
+                sendMessage("Invalid name. Connection closing.");
+                cleanup();
+                return;
+            }
+            if (isWatchRequest(line)) {
+                startWatching(line);
+                return;
+            }
+            setPlayer(line);
+            join(line);
+            return;
+        }
+        deliver(line);
+    } // end onLine
+
+    /**
+     * Helper method to determine if a client's first line asks to watch a game rather than play
+     * @param line the line received in place of a name
+     * @return true if the line is "/watch" or "/watch" followed by a session id
+     */
+    private static boolean isWatchRequest(String line) {
+        return line.equals(Protocol.WATCH) || line.startsWith(Protocol.WATCH + " ");
+    } // end isWatchRequest
+
+    /**
+     * Helper method to subscribe this client to the feed of the game it asked to watch, or of the newest
+     * game if it gave no session id. The client is told and disconnected if there is no such live game.
+     * @param line the watch request
+     * @return true if the client is now watching a game
+     */
+    private boolean startWatching(String line) {
+        String target = line.substring(Protocol.WATCH.length()).trim();
+        GameSession game = null;
+        if (gameManager != null) {
+            try {
+                game = target.isEmpty() ? gameManager.getNewestSession() : gameManager.findSession(Long.parseLong(target));
+            } catch (NumberFormatException e) {
+                game = null;
+            }
+        }
+        if (channel == null) feedBacklog = new ArrayBlockingQueue<>(SpectatorFeed.BACKLOG_EVENTS);
+        watching = game;
+        if (game == null || !game.watch(this)) {
+            watching = null;
+            sendMessage("There is no live game " + (target.isEmpty() ? "" : target + " ") + "to watch. Connection closing.");
+            cleanup();
+            return false;
+        }
+        return true;
+    } // end startWatching
+
+    /**
+     * Helper method run on a blocking spectator's own thread to write each event of the game it is watching,
+     * until the final event has been written or the connection closes
+     * @throws IOException if writing fails
+     * @throws InterruptedException if interrupted while waiting for an event
+     */
+    private void drainEvents() throws IOException, InterruptedException {
+        while (!isClosed()) {
+            SpectatorFeed.Event event = feedBacklog.take();
+            out.write(event.bytes(binary));
+            out.flush();
+            if (event.isLast()) return;
+        }
+    } // end drainEvents
+
+    /**
+     * Method to hand a spectator an event from the game it is watching, without ever blocking the caller.
+     * A non-blocking spectator is written the shared buffer straight away, and a blocking spectator's own
+     * thread is handed it through a bounded queue. Once the spectator has SpectatorFeed.BACKLOG_EVENTS
+     * waiting the event is dropped instead, and after SpectatorFeed.MAX_DROPPED_EVENTS drops in a row,
+     * or a dropped final event, the spectator is disconnected.
+     * @param event the event
+     * @return true if the spectator is still connected, false if it should be removed from the feed
+     */
+    boolean offerEvent(SpectatorFeed.Event event) {
+        if (isClosed()) return false;
+        boolean queued;
+        if (channel == null) {
+            queued = feedBacklog.offer(event);
+        } else {
+            outLock.lock();
+            try {
+                queued = outbox.size() < SpectatorFeed.BACKLOG_EVENTS;
+                if (queued) {
+                    closeWhenDrained = event.isLast();
+                    send(event.view(binary), false);
+                    if (closeWhenDrained && outbox.isEmpty()) cleanup();
+                }
+            } finally {
+                outLock.unlock();
+            }
+        }
+        if (queued) {
+            eventsDropped = 0;
+            return true;
+        }
+
+        Metrics.SPECTATOR_DROPPED.increment();
+        if (event.isLast() || ++eventsDropped >= SpectatorFeed.MAX_DROPPED_EVENTS) {
+            Metrics.SPECTATORS_DISCONNECTED.increment();
+            cleanup();
+            return false;
+        }
+        return true;
+    } // end offerEvent
+
+    /**
+     * Helper method to pass a line of input to the client's game session, if it is in one
+     * @param line the line received
+     */
+    private void deliver(String line) {
+        lastInputAt = System.nanoTime();
+        GameTable current = session;
+        if (current != null) {
+            recordReply();
+            current.onInput(this, line);
+        }
+    } // end deliver
+
+    /**
+     * Helper method to record how long the client took to reply to the last message sent to it
+     */
+    private void recordReply() {
+        long sent = lastSentAt;
+        if (sent != 0) Metrics.CLIENT_REPLY.record(System.nanoTime() - sent);
+    } // end recordReply
+
+    /**
+     * Method called by the event loop when the channel is writable. Writes queued messages
+     * and stops asking for write readiness once the queue is drained.
+     * @throws IOException if writing fails
+     */
+    void onWritable() throws IOException {
+        outLock.lock();
+        try {
+            while (!outbox.isEmpty()) {
+                ByteBuffer buffer = outbox.peek();
+                channel.write(buffer);
+                if (buffer.hasRemaining()) return;
+                outbox.poll();
+            }
+            if (closeWhenDrained) {
+                cleanup(); // a spectator's final event has been written
+                return;
+            }
+            writeInterest = false;
+            key.interestOps(SelectionKey.OP_READ);
+        } finally {
+            outLock.unlock();
+        }
+    } // end onWritable
+
+    /**
+     * Method to send a message to the client straight away
      * @param message the message to send
      */
     public void sendMessage(String message) {
-        out.println(message);
+        queueMessage(message);
+        flush();
     } // end sendMessage
 
     /**
-     * Method to receive and read input from the client
-     * @return a String representation of the client's input
+     * Method to queue an informational message until the next flush
+     * @param message the message to queue
      */
-    public String receiveMessage() {
+    public void queueMessage(String message) {
+        byte[] text = message.getBytes(StandardCharsets.UTF_8);
+        outLock.lock();
         try {
-            String res = in.readLine();
-            return res;
-        } catch (Exception e) {
-            System.out.println("Error");
-            return null;
+            if (binary) {
+                ensureCapacity(Protocol.HEADER_BYTES + text.length);
+                Protocol.writeText(pending, Protocol.INFO, text);
+            } else {
+                ensureCapacity(text.length + 1);
+                pending.put(text).put((byte) '\n');
+            }
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueMessage
+
+    /**
+     * Method to queue a turn prompt showing the player's rack until the next flush
+     * @param rack the letters in the player's rack
+     */
+    public void queueTurnPrompt(List<Character> rack) {
+        if (!binary) {
+            queueMessage(turnPromptText(rack));
+            return;
+        }
+        outLock.lock();
+        try {
+            ensureCapacity(Protocol.HEADER_BYTES + rack.size());
+            Protocol.writeTurnPrompt(pending, rack);
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueTurnPrompt
+
+    /**
+     * Method to queue the result of the player's move until the next flush
+     * @param code one of the Protocol result codes
+     * @param score the player's total score, sent with an accepted word
+     */
+    public void queueResult(byte code, int score) {
+        if (!binary) {
+            queueMessage(resultText(code, score));
+            return;
+        }
+        outLock.lock();
+        try {
+            ensureCapacity(2 * Protocol.HEADER_BYTES + 5);
+            Protocol.writeResult(pending, code);
+            if (code == Protocol.RESULT_ACCEPTED) Protocol.writeScore(pending, score);
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueResult
+
+    /**
+     * Method to queue the final result of the game until the next flush
+     * @param score the player's score
+     * @param opponentScore the best score among the player's opponents
+     * @param rank the player's finishing position, where tied players share a position
+     * @param players the number of players in the game
+     */
+    public void queueGameOver(int score, int opponentScore, int rank, int players) {
+        byte outcome = outcomeOf(score, opponentScore);
+        if (!binary) {
+            queueMessage(gameOverText(outcome, score, opponentScore, rank, players));
+            return;
+        }
+        outLock.lock();
+        try {
+            ensureCapacity(Protocol.HEADER_BYTES + Protocol.GAME_OVER_BYTES);
+            Protocol.writeGameOver(pending, outcome, score, opponentScore, rank, players);
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueGameOver
+
+    /**
+     * Method to work out a player's outcome from their score and their best opponent's
+     * @param score the player's score
+     * @param opponentScore the best score among the player's opponents
+     * @return one of the Protocol outcomes
+     */
+    static byte outcomeOf(int score, int opponentScore) {
+        return score > opponentScore ? Protocol.OUTCOME_WIN : score < opponentScore ? Protocol.OUTCOME_LOSS : Protocol.OUTCOME_TIE;
+    } // end outcomeOf
+
+    /**
+     * Method to build the text shown to a player at the end of the game. Two-player games keep the
+     * original wording, and larger games also give the player's finishing position.
+     * @param outcome one of the Protocol outcomes
+     * @param score the player's score
+     * @param opponentScore the best score among the player's opponents
+     * @param rank the player's finishing position
+     * @param players the number of players in the game
+     * @return the message
+     */
+    public static String gameOverText(byte outcome, int score, int opponentScore, int rank, int players) {
+        if (players <= 2) {
+            if (outcome == Protocol.OUTCOME_WIN) {
+                return "You win! You scored " + score + " points, and your opponent only scored " + opponentScore + " points.";
+            } else if (outcome == Protocol.OUTCOME_LOSS) {
+                return "You lost. Your opponent scored " + opponentScore + " points, and you scored " + score + " points.";
+            }
+            return "You tied! You and your opponent both scored " + score + " points.";
+        }
+        if (outcome == Protocol.OUTCOME_WIN) {
+            return "You win! You finished 1st of " + players + " with " + score + " points, and the best of your opponents scored " + opponentScore + " points.";
+        } else if (outcome == Protocol.OUTCOME_LOSS) {
+            return "You lost. You finished " + ordinal(rank) + " of " + players + " with " + score + " points, and the winner scored " + opponentScore + " points.";
+        }
+        return "You tied! You finished 1st of " + players + " with " + score + " points, level with the best of your opponents.";
+    } // end gameOverText
+
+    /**
+     * Method to write a finishing position as an ordinal
+     * @param rank the position, from 1 to GameSession.MAX_PLAYERS
+     * @return the ordinal, such as "2nd"
+     */
+    public static String ordinal(int rank) {
+        switch (rank) {
+            case 1:
+                return "1st";
+            case 2:
+                return "2nd";
+            case 3:
+                return "3rd";
+            default:
+                return rank + "th";
+        }
+    } // end ordinal
+
+    /**
+     * Method to build the text protocol message for a turn prompt
+     * @param rack the letters in the player's rack
+     * @return the message
+     */
+    static String turnPromptText(List<Character> rack) {
+        return "It's your turn! Your letters: " + rack + ". Enter a word or '1' to pass and redraw letters: ";
+    } // end turnPromptText
+
+    /**
+     * Method to build the text protocol message for a move result
+     * @param code one of the Protocol result codes
+     * @param score the player's total score
+     * @return the message
+     */
+    static String resultText(byte code, int score) {
+        switch (code) {
+            case Protocol.RESULT_ACCEPTED:
+                return "Word accepted! Your score: " + score;
+            case Protocol.RESULT_REDRAWN:
+                return "You have chosen to pass this turn and redraw letters.";
+            case Protocol.RESULT_MISSING_LETTERS:
+                return "You don't have the necessary letters. Turn passed.";
+            case Protocol.RESULT_INVALID_WORD:
+                return "Invalid word. Turn passed.";
+            case Protocol.RESULT_QUIT:
+                return "You or your opponent has elected to quit the game. Closing the connection now.";
+            default:
+                return "No word entered. Turn skipped.";
         }
-    } // end receiveMessage
+    } // end resultText
 
     /**
-     * Synchronized method telling threads to wait until the player is ready (initialized with a name)
+     * Helper method to make room in the pending buffer. Called with outLock held.
+     * @param bytes the number of bytes about to be queued
      */
-    public synchronized void waitUntilPlayerReady() {
-        while(!playerReady) {
+    private void ensureCapacity(int bytes) {
+        if (pending.remaining() < bytes) {
+            ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2, pending.position() + bytes));
+            pending.flip();
+            larger.put(pending);
+            pending = larger;
+        }
+    } // end ensureCapacity
+
+    /**
+     * Method to write every queued message to the client in a single write
+     */
+    public void flush() {
+        long start = System.nanoTime();
+        outLock.lock();
+        try {
+            if (pending.position() == 0) return;
+            if (isClosed()) {
+                pending.clear();
+                return;
+            }
+            pending.flip();
+            if (channel == null) {
+                writeBlocking();
+            } else {
+                writeNonBlocking();
+            }
+            pending.clear();
+        } finally {
+            outLock.unlock();
+        }
+        long end = System.nanoTime();
+        Metrics.MESSAGE_SEND.record(end - start);
+        lastSentAt = end;
+    } // end flush
+
+    /**
+     * Helper method to write the pending buffer to the socket. Called with outLock held.
+     */
+    private void writeBlocking() {
+        try {
+            out.write(pending.array(), pending.position(), pending.remaining());
+            out.flush();
+        } catch (IOException e) {
+            cleanup();
+        }
+    } // end writeBlocking
+
+    /**
+     * Helper method to write the pending buffer to the channel, handing any remainder to the event loop.
+     * Called with outLock held.
+     */
+    private void writeNonBlocking() {
+        send(pending, true);
+    } // end writeNonBlocking
+
+    /**
+     * Helper method to write a buffer to the channel, handing any remainder to the event loop. Called with outLock held.
+     * @param buffer the bytes to write
+     * @param copyRest true to queue a copy of any remainder, for a buffer that is reused once this returns
+     */
+    private void send(ByteBuffer buffer, boolean copyRest) {
+        // Write straight to the socket when nothing is queued
+        if (outbox.isEmpty()) {
             try {
-                wait();
-            } catch (Exception e) {}
+                channel.write(buffer);
+            } catch (IOException e) {
+                cleanup();
+                return;
+            }
+            if (!buffer.hasRemaining()) return;
+        }
+        ByteBuffer rest = buffer;
+        if (copyRest) {
+            rest = ByteBuffer.allocate(buffer.remaining());
+            rest.put(buffer).flip();
+        }
+        outbox.add(rest);
+        if (!writeInterest) {
+            writeInterest = true;
+            eventLoop.execute(() -> {
+                if (key != null && key.isValid()) key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            });
         }
+    } // end send
+
+    /**
+     * Helper method to read the next line, or the next frame translated into a line, from a blocking client
+     * @return the input, or null at the end of the stream
+     * @throws IOException if reading fails or the input is too long
+     */
+    private String readInput() throws IOException {
+        if (!binary) return readLine();
+        while (true) {
+            int high = in.read();
+            int low = in.read();
+            if (low < 0) return null;
+            int frameLength = (high << 8) | low;
+            if (frameLength == 0 || frameLength > Protocol.MAX_FRAME_BYTES) throw new IOException("Frame too long");
+            if (lineBytes.length < frameLength) lineBytes = new byte[Protocol.MAX_FRAME_BYTES];
+            for (int read = 0; read < frameLength; ) {
+                int n = in.read(lineBytes, read, frameLength - read);
+                if (n < 0) return null;
+                read += n;
+            }
+            String line = frameToLine(lineBytes[0], 1, frameLength - 1);
+            if (line != null) return line;
+        }
+    } // end readInput
+
+    /**
+     * Helper method to read one line of text from a blocking client
+     * @return the line without its terminator, or null at the end of the stream
+     * @throws IOException if reading fails or the line is too long
+     */
+    private String readLine() throws IOException {
+        lineLength = 0;
+        int b;
+        while ((b = in.read()) >= 0 && b != '\n') {
+            if (lineLength == MAX_LINE_BYTES) throw new IOException("Input too long");
+            growLineBytes(MAX_LINE_BYTES);
+            lineBytes[lineLength++] = (byte) b;
+        }
+        if (b < 0 && lineLength == 0) return null;
+        int length = lineLength > 0 && lineBytes[lineLength - 1] == '\r' ? lineLength - 1 : lineLength;
+        return new String(lineBytes, 0, length, StandardCharsets.UTF_8);
+    } // end readLine
+
+    /**
+     * Method telling threads to wait until the player is ready (initialized with a name).
+     * Waits on a latch rather than an object monitor so a waiting virtual thread unmounts from its carrier.
+     */
+    public void waitUntilPlayerReady() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                playerReady.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) Thread.currentThread().interrupt();
     } // end waitUntilPlayerReady
 
     /**
@@ -109,6 +907,9 @@ public class ClientHandler implements Runnable {
      */
     public void cleanup() {
         try {
+            if(channel != null && channel.isOpen()) {
+                channel.close();
+            }
             if(clientSocket != null && !clientSocket.isClosed()) {
                 clientSocket.close();
             }
@@ -117,6 +918,47 @@ public class ClientHandler implements Runnable {
         }
     } // end cleanup
 
+    /**
+     * Method to determine if the connection to the client has been closed
+     * @return true if the socket or channel is closed, false otherwise
+     */
+    public boolean isClosed() {
+        return channel != null ? !channel.isOpen() : clientSocket.isClosed();
+    } // end isClosed
+
+    /**
+     * Method to determine if this client is driven by an event loop rather than its own thread
+     * @return true if the client uses the non-blocking transport, false otherwise
+     */
+    public boolean isNonBlocking() {
+        return channel != null;
+    } // end isNonBlocking
+
+    /**
+     * Method to determine if this client delivers its own input to its game session, from either its
+     * event loop or its own reading thread. Sessions between such clients need no thread of their own.
+     * @return true if the client has a connection that it reads itself, false otherwise
+     */
+    public boolean isEventDriven() {
+        return channel != null || clientSocket != null;
+    } // end isEventDriven
+
+    /**
+     * Getter for the event loop driving this client
+     * @return the event loop, or null if the client is not driven by one
+     */
+    EventLoop getEventLoop() {
+        return eventLoop;
+    } // end getEventLoop
+
+    /**
+     * Setter for the table this client is seated at
+     * @param session the game session or remote table, or null once the client has left it
+     */
+    public void setSession(GameTable session) {
+        this.session = session;
+    } // end setSession
+
     /**
      * Getter for player
      * @return the player associated with this client handler
@@ -0,0 +1,188 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: Dictionary
+ *
+ * This class contains one loaded version of a named word list: its memory-mapped DictionaryIndex for
+ * validating words, its AnagramIndex for finding the best word on a rack, and a WordCache of the words
+ * played against it. A version never changes once loaded, so a game session that pins the version it
+ * started with judges every word of the game against the same list, however often the list is reloaded.
+ * Versions loaded from word lists with identical contents share one set of indexes and one word cache,
+ * whether they are reloads of an unchanged list or differently named lists. Lists that only overlap,
+ * sharing some words but not all, are each indexed on their own.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.concurrent.CompletableFuture;
+
+public final class Dictionary {
+
+    private final String name; // the name the dictionary is registered under
+    private final int version; // the version of the named dictionary, counting up from 1 with each reload
+    private final Path wordList; // the word list the dictionary was loaded from
+    private final byte[] digest; // SHA-256 of the word list's contents, or null if it could not be loaded
+    private final DictionaryIndex words; // index of every valid word, or null if it could not be loaded
+    private final AnagramIndex anagrams; // anagram index of the word list, or null if it could not be built
+    private final WordCache cache; // the words played against this dictionary's contents
+
+    /**
+     * Private constructor wrapping loaded indexes
+     */
+    private Dictionary(String name, int version, Path wordList, byte[] digest, DictionaryIndex words, AnagramIndex anagrams, WordCache cache) {
+        this.name = name;
+        this.version = version;
+        this.wordList = wordList;
+        this.digest = digest;
+        this.words = words;
+        this.anagrams = anagrams;
+        this.cache = cache;
+    } // end constructor
+
+    /**
+     * Method to load a word list, building its index file next to it if the index is missing or stale.
+     * The index file is replaced atomically, so older versions keep reading the file they mapped.
+     * The anagram index is built in parallel chunks on the common pool while this thread maps the index file.
+     * @param name the name the dictionary is registered under
+     * @param version the version to give it
+     * @param wordList the plain text word list, one word per line
+     * @param contents the word list's bytes, already read
+     * @param digest the digest of the contents, from digest
+     * @param rebuild true to rebuild the index even if it looks current, as a reload's word list may keep an older time
+     * @return the dictionary
+     * @throws IOException if the index cannot be built or mapped
+     */
+    public static Dictionary load(String name, int version, Path wordList, byte[] contents, byte[] digest, boolean rebuild) throws IOException {
+        CompletableFuture<AnagramIndex> anagrams = CompletableFuture.supplyAsync(() -> AnagramIndex.build(contents));
+        Path indexFile = indexFileFor(wordList);
+        if (rebuild) DictionaryIndex.build(wordList, indexFile);
+        DictionaryIndex words = DictionaryIndex.openOrBuild(wordList, indexFile);
+        return new Dictionary(name, version, wordList, digest, words, anagrams.join(), new WordCache(WordCache.DEFAULT_CAPACITY));
+    } // end load
+
+    /**
+     * Method to create a dictionary that knows no words, for when a word list cannot be loaded
+     * @param name the name the dictionary is registered under
+     * @param wordList the word list that could not be loaded
+     * @return the empty dictionary, at version 0
+     */
+    public static Dictionary empty(String name, Path wordList) {
+        return new Dictionary(name, 0, wordList, null, null, null, new WordCache(1));
+    } // end empty
+
+    /**
+     * Method to create a new version of a dictionary that shares this one's contents, for a word list
+     * whose contents match this one's
+     * @param name the name the new version is registered under
+     * @param version the version to give it
+     * @param wordList the word list it was loaded from
+     * @return the dictionary
+     */
+    public Dictionary share(String name, int version, Path wordList) {
+        return new Dictionary(name, version, wordList, digest, words, anagrams, cache);
+    } // end share
+
+    /**
+     * Method to digest a word list's contents, so lists with the same words can share one set of indexes.
+     * SHA-256 is strong enough that lists with the same digest can be taken to be identical.
+     * @param contents the word list's bytes
+     * @return the SHA-256 of the bytes
+     */
+    public static byte[] digest(byte[] contents) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(contents);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every Java platform must provide it
+        }
+    } // end digest
+
+    /**
+     * Method to determine if a word list has exactly this dictionary's contents
+     * @param otherDigest the digest of the word list's bytes, from digest
+     * @return true if the contents are identical, false if not or this dictionary could not be loaded
+     */
+    public boolean hasContents(byte[] otherDigest) {
+        return digest != null && MessageDigest.isEqual(digest, otherDigest);
+    } // end hasContents
+
+    /**
+     * Helper method to name the index file for a word list, which sits beside it with a .dawg extension
+     * @param wordList the word list
+     * @return the index file's path
+     */
+    private static Path indexFileFor(Path wordList) {
+        String file = wordList.getFileName().toString();
+        int dot = file.lastIndexOf('.');
+        return wordList.resolveSibling((dot > 0 ? file.substring(0, dot) : file) + ".dawg");
+    } // end indexFileFor
+
+    /**
+     * Method to determine if a word is in the dictionary
+     * @param word the word to check
+     * @return true if the word is valid, false if not
+     */
+    public boolean contains(String word) {
+        return words != null && word != null && words.contains(word);
+    } // end contains
+
+    /**
+     * Method to find the highest-scoring word in the dictionary that can be formed from a rack of letters
+     * @param letterCounts the count of each letter 'A'-'Z' in the rack
+     * @return the best word in lower case, or null if no word can be formed
+     */
+    public String bestWord(int[] letterCounts) {
+        return anagrams == null ? null : anagrams.bestWord(letterCounts);
+    } // end bestWord
+
+    /**
+     * Method to judge and score a played word against this dictionary, through its word cache
+     * @param word the word, already normalized with ScoredWord.normalize
+     * @return the scored word
+     */
+    public ScoredWord lookup(String word) {
+        return cache.lookup(word, this);
+    } // end lookup
+
+    /**
+     * Getter for the dictionary's word index, for clients such as bots that pick words from it
+     * @return the index, or null if the word list could not be loaded
+     */
+    public DictionaryIndex getIndex() {
+        return words;
+    } // end getIndex
+
+    /**
+     * Getter for the name the dictionary is registered under
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    } // end getName
+
+    /**
+     * Getter for the version of the named dictionary
+     * @return the version, or 0 if the word list could not be loaded
+     */
+    public int getVersion() {
+        return version;
+    } // end getVersion
+
+    /**
+     * Getter for the word list the dictionary was loaded from
+     * @return the word list's path
+     */
+    public Path getWordList() {
+        return wordList;
+    } // end getWordList
+
+    @Override
+    public String toString() {
+        return name + " v" + version;
+    } // end toString
+
+} // end class
@@ -0,0 +1,412 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: DictionaryIndex
+ *
+ * This class contains a compact, read-only dictionary stored as a minimized DAWG (directed acyclic word graph).
+ * The index is built once from a plain word list into a binary file, and then memory-mapped at startup so that
+ * lookups read straight from the page cache and the file can be shared by every server process on the machine.
+ *
+ * File layout (big-endian ints): MAGIC, VERSION, edgeCount, followed by edgeCount packed edges.
+ * Each edge packs the child's first edge index (bits 7-31), a last-edge-of-node flag (bit 6),
+ * an end-of-word flag (bit 5) and the letter 'a'-'z' as 0-25 (bits 0-4). The root's edges start at index 0,
+ * and a child index of 0 means the edge has no children.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+public class DictionaryIndex {
+
+    private static final int MAGIC = 0x44415747; // "DAWG"
+    private static final int VERSION = 1;
+    private static final int HEADER_INTS = 3;
+
+    private static final int LETTER_MASK = 0x1F;
+    private static final int END_OF_WORD = 1 << 5;
+    private static final int LAST_EDGE = 1 << 6;
+    private static final int CHILD_SHIFT = 7;
+
+    private final IntBuffer edges; // the mapped edge array, positioned past the header
+    private final int edgeCount; // the number of edges in the graph
+
+    /**
+     * Private constructor wrapping a mapped edge buffer
+     * @param edges the edge buffer
+     */
+    private DictionaryIndex(IntBuffer edges) {
+        this.edges = edges;
+        this.edgeCount = edges.limit();
+    } // end constructor
+
+    /**
+     * Memory-map a prebuilt index file
+     * @param indexFile the path to the index file
+     * @return the mapped dictionary index
+     * @throws IOException if the file cannot be read or is not a valid index
+     */
+    public static DictionaryIndex open(Path indexFile) throws IOException {
+        try (FileChannel channel = FileChannel.open(indexFile, StandardOpenOption.READ)) {
+            ByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            IntBuffer ints = mapped.asIntBuffer();
+            if (ints.limit() < HEADER_INTS || ints.get(0) != MAGIC || ints.get(1) != VERSION) {
+                throw new IOException("Not a dictionary index: " + indexFile);
+            }
+            int count = ints.get(2);
+            if (count < 0 || count > ints.limit() - HEADER_INTS) {
+                throw new IOException("Truncated dictionary index: " + indexFile);
+            }
+            ints.position(HEADER_INTS).limit(HEADER_INTS + count);
+            return new DictionaryIndex(ints.slice());
+        }
+    } // end open
+
+    /**
+     * Open the index for a word list, (re)building it first if it is missing or older than the word list
+     * @param wordList the plain text word list, one word per line
+     * @param indexFile the path of the index file to open or create
+     * @return the mapped dictionary index
+     * @throws IOException if neither file can be read
+     */
+    public static DictionaryIndex openOrBuild(Path wordList, Path indexFile) throws IOException {
+        boolean stale = !Files.exists(indexFile)
+                || (Files.exists(wordList) && Files.getLastModifiedTime(wordList).compareTo(Files.getLastModifiedTime(indexFile)) > 0);
+        if (stale) {
+            build(wordList, indexFile);
+        }
+        return open(indexFile);
+    } // end openOrBuild
+
+    /**
+     * Determine if the given word is in the dictionary. Upper case ASCII letters are matched case-insensitively,
+     * and any other character makes the word invalid. This method does not allocate.
+     * @param word the word to look up
+     * @return true if the word is in the dictionary, false otherwise
+     */
+    public boolean contains(CharSequence word) {
+        int length = word.length();
+        if (length == 0 || edgeCount == 0) return false;
+
+        int pos = 0; // first edge of the root
+        for (int i = 0; i < length; i++) {
+            int letter = letterIndex(word.charAt(i));
+            if (letter < 0) return false;
+
+            // Scan the edges of the current node for the letter
+            int edge;
+            while (((edge = edges.get(pos)) & LETTER_MASK) != letter) {
+                if ((edge & LAST_EDGE) != 0) return false;
+                pos++;
+            }
+
+            if (i == length - 1) {
+                return (edge & END_OF_WORD) != 0;
+            }
+            pos = edge >>> CHILD_SHIFT;
+            if (pos == 0) return false;
+        }
+        return false;
+    } // end contains
+
+    /**
+     * Find the highest-scoring word that can be formed from a rack of letters, by walking the graph
+     * and only following edges for letters still left in the rack. Ties go to the word found first.
+     * @param letterCounts the count of each letter 'A'-'Z' in the rack; restored before returning
+     * @return the best word in lower case, or null if no word can be formed
+     */
+    public String bestWord(int[] letterCounts) {
+        if (edgeCount == 0) return null;
+        int maxLength = 0;
+        for (int count : letterCounts) maxLength += count;
+
+        Search search = new Search(letterCounts, maxLength);
+        search.visit(0, 0, 0);
+        return search.bestLength == 0 ? null : new String(search.best, 0, search.bestLength);
+    } // end bestWord
+
+    /**
+     * State for one bestWord walk over the graph
+     */
+    private final class Search {
+        private final int[] counts;
+        private final char[] path;
+        private final char[] best;
+        private int bestLength = 0;
+        private int bestPoints = -1;
+
+        private Search(int[] counts, int maxLength) {
+            this.counts = counts;
+            this.path = new char[maxLength];
+            this.best = new char[maxLength];
+        }
+
+        /**
+         * Visit every edge of a node whose letter is still in the rack
+         * @param pos the node's first edge
+         * @param depth the number of letters on the current path
+         * @param points the points of the letters on the current path
+         */
+        private void visit(int pos, int depth, int points) {
+            while (true) {
+                int edge = edges.get(pos);
+                int letter = edge & LETTER_MASK;
+                if (counts[letter] > 0) {
+                    counts[letter]--;
+                    path[depth] = (char) ('a' + letter);
+                    int total = points + LetterPool.getLetterPoints(path[depth]);
+                    if ((edge & END_OF_WORD) != 0 && total > bestPoints) {
+                        bestPoints = total;
+                        bestLength = depth + 1;
+                        System.arraycopy(path, 0, best, 0, bestLength);
+                    }
+                    int child = edge >>> CHILD_SHIFT;
+                    if (child != 0) visit(child, depth + 1, total);
+                    counts[letter]++;
+                }
+                if ((edge & LAST_EDGE) != 0) return;
+                pos++;
+            }
+        } // end visit
+    } // end Search
+
+    /**
+     * Getter for the number of edges in the graph
+     * @return the edge count
+     */
+    public int getEdgeCount() {
+        return edgeCount;
+    } // end getEdgeCount
+
+    /**
+     * Helper method to map a character to its letter index
+     * @param c the character
+     * @return 0-25 for a-z or A-Z, -1 otherwise
+     */
+    private static int letterIndex(char c) {
+        if (c >= 'a' && c <= 'z') return c - 'a';
+        if (c >= 'A' && c <= 'Z') return c - 'A';
+        return -1;
+    } // end letterIndex
+
+    /**
+     * Build a minimized DAWG from a word list and write it to the index file.
+     * The file is written to a temporary sibling and moved into place so readers never see a partial index.
+     * @param wordList the plain text word list, one word per line
+     * @param indexFile the path of the index file to create
+     * @throws IOException if the word list cannot be read or the index cannot be written
+     */
+    public static void build(Path wordList, Path indexFile) throws IOException {
+        // Sort and de-duplicate, skipping anything that is not purely alphabetic
+        TreeSet<String> words = new TreeSet<>();
+        try (BufferedReader reader = Files.newBufferedReader(wordList)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String word = line.trim().toLowerCase();
+                if (!word.isEmpty() && word.chars().allMatch(c -> c >= 'a' && c <= 'z')) {
+                    words.add(word);
+                }
+            }
+        }
+
+        Builder builder = new Builder();
+        for (String word : words) {
+            builder.add(word);
+        }
+        int[] packed = builder.finish();
+
+        Path parent = indexFile.toAbsolutePath().getParent();
+        Path tmp = Files.createTempFile(parent, indexFile.getFileName().toString(), ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(packed.length);
+            for (int edge : packed) {
+                out.writeInt(edge);
+            }
+        }
+        Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } // end build
+
+    /**
+     * Node of the graph while it is being built. Edges are appended in sorted order because input is sorted.
+     */
+    private static final class Node {
+        private char[] letters = new char[0];
+        private Node[] children = new Node[0];
+        private boolean endOfWord;
+
+        /**
+         * Append an edge to a new child node
+         * @param letter the edge letter
+         * @return the new child
+         */
+        private Node addChild(char letter) {
+            int n = letters.length;
+            letters = Arrays.copyOf(letters, n + 1);
+            children = Arrays.copyOf(children, n + 1);
+            letters[n] = letter;
+            children[n] = new Node();
+            return children[n];
+        } // end addChild
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Node)) return false;
+            Node other = (Node) o;
+            if (endOfWord != other.endOfWord || !Arrays.equals(letters, other.letters)) return false;
+            for (int i = 0; i < children.length; i++) {
+                if (children[i] != other.children[i]) return false; // children are already canonical
+            }
+            return true;
+        } // end equals
+
+        @Override
+        public int hashCode() {
+            int h = endOfWord ? 1 : 0;
+            for (int i = 0; i < letters.length; i++) {
+                h = 31 * h + letters[i];
+                h = 31 * h + System.identityHashCode(children[i]);
+            }
+            return h;
+        } // end hashCode
+    } // end Node
+
+    /**
+     * Incremental builder for a minimal acyclic automaton from sorted input (Daciuk et al.)
+     */
+    private static final class Builder {
+        private final Node root = new Node();
+        private final Map<Node, Node> register = new HashMap<>();
+        private final List<Node> uncheckedParents = new ArrayList<>(); // path of nodes not yet minimized
+        private String previous = "";
+
+        /**
+         * Add a word, which must sort after every word already added
+         * @param word the word to add
+         */
+        private void add(String word) {
+            int common = 0;
+            int max = Math.min(word.length(), previous.length());
+            while (common < max && word.charAt(common) == previous.charAt(common)) common++;
+
+            minimize(common);
+
+            Node node = uncheckedParents.isEmpty() ? root : last(uncheckedParents.get(uncheckedParents.size() - 1));
+            for (int i = common; i < word.length(); i++) {
+                uncheckedParents.add(node);
+                node = node.addChild(word.charAt(i));
+            }
+            node.endOfWord = true;
+            previous = word;
+        } // end add
+
+        /**
+         * Helper method returning the most recently added child of a node
+         * @param node the parent
+         * @return its last child
+         */
+        private static Node last(Node node) {
+            return node.children[node.children.length - 1];
+        } // end last
+
+        /**
+         * Replace or register unchecked nodes down to the given depth
+         * @param downTo the depth to stop at
+         */
+        private void minimize(int downTo) {
+            for (int i = uncheckedParents.size() - 1; i >= downTo; i--) {
+                Node parent = uncheckedParents.remove(i);
+                Node child = last(parent);
+                Node existing = register.putIfAbsent(child, child);
+                if (existing != null) {
+                    parent.children[parent.children.length - 1] = existing;
+                }
+            }
+        } // end minimize
+
+        /**
+         * Minimize the remaining path and pack the graph into edge ints
+         * @return the packed edges, root edges first
+         */
+        private int[] finish() {
+            minimize(0);
+
+            // Assign each distinct node with children a contiguous run of edge slots
+            Map<Node, Integer> offsets = new IdentityHashMap<>();
+            List<Node> order = new ArrayList<>();
+            ArrayDeque<Node> queue = new ArrayDeque<>();
+            int next = 0;
+            if (root.letters.length > 0) {
+                offsets.put(root, 0);
+                order.add(root);
+                queue.add(root);
+                next = root.letters.length;
+            }
+            while (!queue.isEmpty()) {
+                Node node = queue.poll();
+                for (Node child : node.children) {
+                    if (child.letters.length > 0 && !offsets.containsKey(child)) {
+                        offsets.put(child, next);
+                        order.add(child);
+                        queue.add(child);
+                        next += child.letters.length;
+                    }
+                }
+            }
+            if (next >= (1 << (32 - CHILD_SHIFT))) {
+                throw new IllegalStateException("Dictionary too large for index format: " + next + " edges");
+            }
+
+            int[] packed = new int[next];
+            for (Node node : order) {
+                int base = offsets.get(node);
+                for (int i = 0; i < node.letters.length; i++) {
+                    Node child = node.children[i];
+                    int edge = (node.letters[i] - 'a');
+                    if (child.endOfWord) edge |= END_OF_WORD;
+                    if (i == node.letters.length - 1) edge |= LAST_EDGE;
+                    if (child.letters.length > 0) edge |= offsets.get(child) << CHILD_SHIFT;
+                    packed[base + i] = edge;
+                }
+            }
+            return packed;
+        } // end finish
+    } // end Builder
+
+    /**
+     * Main method to prebuild an index file from a word list
+     * @param args optional word list path and index path
+     */
+    public static void main(String[] args) throws IOException {
+        Path wordList = Paths.get(args.length > 0 ? args[0] : "./words_alpha.txt");
+        Path indexFile = Paths.get(args.length > 1 ? args[1] : "./words_alpha.dawg");
+
+        long start = System.nanoTime();
+        build(wordList, indexFile);
+        DictionaryIndex index = open(indexFile);
+        System.out.println("Built " + indexFile + " with " + index.getEdgeCount() + " edges ("
+                + Files.size(indexFile) / 1024 + " KiB) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    } // end main
+
+} // end class
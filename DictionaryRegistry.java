@@ -0,0 +1,250 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: DictionaryRegistry
+ *
+ * This class contains the registry of named dictionaries, each pointing at a word list on disk. The default
+ * dictionary is the word list in the working directory, and more can be registered, such as per-language or
+ * tournament lists. Each name holds the current Dictionary version in a volatile field, so a lookup is one
+ * read with no lock. Reloads happen on a background thread, which builds the new version completely and then
+ * swaps it in with one write, read-copy-update style: sessions already holding the old version keep it until
+ * they finish, while every session started afterwards gets the new one. A check on the shared TimerWheel
+ * notices when a word list changes and reloads it, so the word list can be edited without a restart.
+ * A word list whose contents match a dictionary already loaded shares that dictionary's indexes and word cache.
+ * The server preloads its dictionary in the background as it starts, so it accepts connections straight away;
+ * only a caller that needs the dictionary before it is ready waits, and then only for the load in progress.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+public class DictionaryRegistry {
+
+    public static final String DEFAULT = "default"; // name of the dictionary loaded from the working directory
+    public static final Path DEFAULT_WORD_LIST = Paths.get("./words_alpha.txt"); // relative file path for the default word list
+    public static final long CHECK_INTERVAL_MILLIS = 5_000; // how often word lists are checked for changes
+    private static final Logger logger = Logger.getLogger(DictionaryRegistry.class.getName());
+
+    public static final DictionaryRegistry SHARED = new DictionaryRegistry(); // the registry used by every game session
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>(); // registered dictionaries by name
+    private final ExecutorService loader; // background thread that loads new versions
+    private final AtomicBoolean watching = new AtomicBoolean(false); // flag for if word lists are being checked for changes
+
+    /**
+     * One named dictionary and its current version
+     */
+    private static final class Entry {
+        private final String name; // the dictionary's name
+        private final Path wordList; // the word list it is loaded from
+        private final ReentrantLock loadLock = new ReentrantLock(); // held while a version is being loaded
+        private volatile Dictionary current; // the current version, or null before the first load
+        private volatile FileTime loadedModified; // the word list's modification time when it was last loaded
+        private final CompletableFuture<Dictionary> ready = new CompletableFuture<>(); // completed with the first version
+
+        private Entry(String name, Path wordList) {
+            this.name = name;
+            this.wordList = wordList;
+        }
+    } // end Entry
+
+    /**
+     * Private constructor to create the shared registry, holding only the default dictionary
+     */
+    private DictionaryRegistry() {
+        this.loader = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "wordsmith-dictionary");
+            thread.setDaemon(true);
+            return thread;
+        });
+        register(DEFAULT, DEFAULT_WORD_LIST);
+    } // end constructor
+
+    /**
+     * Method to register a named dictionary. Its word list is loaded the first time the dictionary is used.
+     * @param name the name to register it under
+     * @param wordList the plain text word list, one word per line
+     * @throws IllegalArgumentException if the name is already registered to a different word list
+     */
+    public void register(String name, Path wordList) {
+        Entry entry = entries.computeIfAbsent(name, key -> new Entry(key, wordList));
+        if (!entry.wordList.equals(wordList)) {
+            throw new IllegalArgumentException("Dictionary " + name + " is already registered to " + entry.wordList);
+        }
+        Metrics.registerGauge("wordsmith_dictionary_version{dictionary=\"" + name + "\"}", () -> {
+            Dictionary current = entry.current;
+            return current == null ? 0 : current.getVersion();
+        });
+    } // end register
+
+    /**
+     * Method to determine if a dictionary has been registered
+     * @param name the dictionary's name
+     * @return true if it is registered
+     */
+    public boolean isRegistered(String name) {
+        return entries.containsKey(name);
+    } // end isRegistered
+
+    /**
+     * Method to get the current version of a dictionary, loading it on the calling thread if this is its
+     * first use. Once loaded, this never blocks, even while a new version is being loaded.
+     * @param name the dictionary's name
+     * @return the current version, which is empty if its word list could not be loaded
+     * @throws IllegalArgumentException if no dictionary has that name
+     */
+    public Dictionary get(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) throw new IllegalArgumentException("No dictionary named " + name);
+        Dictionary current = entry.current;
+        return current != null ? current : refresh(entry, false);
+    } // end get
+
+    /**
+     * Method to load the first version of a dictionary in the background, if it is not loaded yet
+     * @param name the dictionary's name
+     * @return a future completed with the first version once it is ready
+     * @throws IllegalArgumentException if no dictionary has that name
+     */
+    public CompletableFuture<Dictionary> preload(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) throw new IllegalArgumentException("No dictionary named " + name);
+        if (!entry.ready.isDone()) loader.execute(() -> refresh(entry, false));
+        return entry.ready;
+    } // end preload
+
+    /**
+     * Method to determine if a dictionary is ready, so that get returns without waiting
+     * @param name the dictionary's name
+     * @return true if a version has been loaded, even an empty one
+     */
+    public boolean isLoaded(String name) {
+        Entry entry = entries.get(name);
+        return entry != null && entry.current != null;
+    } // end isLoaded
+
+    /**
+     * Method to load a new version of a dictionary in the background. If the word list has not changed,
+     * the current version is kept.
+     * @param name the dictionary's name
+     * @return a future completed with the version current once the reload is done
+     * @throws IllegalArgumentException if no dictionary has that name
+     */
+    public CompletableFuture<Dictionary> reload(String name) {
+        Entry entry = entries.get(name);
+        if (entry == null) throw new IllegalArgumentException("No dictionary named " + name);
+        return CompletableFuture.supplyAsync(() -> refresh(entry, true), loader);
+    } // end reload
+
+    /**
+     * Method to start checking every loaded word list for changes, reloading any that change
+     */
+    public void startWatching() {
+        if (watching.compareAndSet(false, true)) scheduleCheck();
+    } // end startWatching
+
+    /**
+     * Helper method to schedule the next check, which runs on the loader thread rather than the timer wheel
+     */
+    private void scheduleCheck() {
+        TimerWheel.SHARED.schedule(() -> loader.execute(this::checkForChanges), CHECK_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    } // end scheduleCheck
+
+    /**
+     * Helper method to reload every loaded dictionary whose word list has been modified since it was loaded
+     */
+    private void checkForChanges() {
+        try {
+            for (Entry entry : entries.values()) {
+                if (entry.current == null || !Files.exists(entry.wordList)) continue; // never used, or nothing to load yet
+                try {
+                    if (!Files.getLastModifiedTime(entry.wordList).equals(entry.loadedModified)) refresh(entry, true);
+                } catch (IOException e) {
+                    logger.log(Level.WARNING, "Cannot check word list " + entry.wordList, e);
+                }
+            }
+        } finally {
+            scheduleCheck();
+        }
+    } // end checkForChanges
+
+    /**
+     * Helper method to load a dictionary's word list and publish it as the current version, unless its
+     * contents are unchanged. Loads of one dictionary are serialized, and a failed reload keeps the old version.
+     * @param entry the dictionary
+     * @param reload true to check for a new version, false to only load the first one
+     * @return the current version
+     */
+    private Dictionary refresh(Entry entry, boolean reload) {
+        entry.loadLock.lock();
+        try {
+            Dictionary old = entry.current;
+            if (old != null && !reload) return old; // another thread loaded it first
+            try {
+                FileTime modified = Files.getLastModifiedTime(entry.wordList);
+                byte[] contents = Files.readAllBytes(entry.wordList);
+                byte[] digest = Dictionary.digest(contents);
+                entry.loadedModified = modified;
+                if (old != null && old.hasContents(digest)) return old;
+
+                int version = old == null ? 1 : old.getVersion() + 1;
+                Dictionary same = findContents(digest);
+                Dictionary next = same != null
+                        ? same.share(entry.name, version, entry.wordList)
+                        : Dictionary.load(entry.name, version, entry.wordList, contents, digest, old != null);
+                publish(entry, next); // sessions holding the old version keep using it
+                if (old != null) {
+                    Metrics.DICTIONARY_RELOADS.increment();
+                    logger.info("Reloaded dictionary " + next + " from " + entry.wordList);
+                }
+                return next;
+            } catch (IOException e) {
+                logger.log(Level.SEVERE, "Error loading word list " + entry.wordList, e);
+                if (old == null) publish(entry, Dictionary.empty(entry.name, entry.wordList));
+                return entry.current;
+            }
+        } finally {
+            entry.loadLock.unlock();
+        }
+    } // end refresh
+
+    /**
+     * Helper method to make a version current, releasing anyone waiting for the first one. Called with the entry's loadLock held.
+     * @param entry the dictionary
+     * @param version the version to publish
+     */
+    private static void publish(Entry entry, Dictionary version) {
+        entry.current = version;
+        entry.ready.complete(version);
+    } // end publish
+
+    /**
+     * Helper method to find a loaded dictionary with the given contents, so its indexes can be shared
+     * @param digest the digest of the contents
+     * @return the dictionary, or null if none has those contents
+     */
+    private Dictionary findContents(byte[] digest) {
+        for (Entry entry : entries.values()) {
+            Dictionary current = entry.current;
+            if (current != null && current.hasContents(digest)) return current;
+        }
+        return null;
+    } // end findContents
+
+} // end class
@@ -0,0 +1,118 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: EventLoop
+ * 
+ * This class contains a single-threaded selector loop used by the non-blocking transport.
+ * Each loop owns one Selector and drives the reads and writes of every ClientHandler registered with it,
+ * so a small fixed pool of loops can serve thousands of connections.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+public class EventLoop implements Runnable {
+
+    private final Selector selector; // the selector for all channels registered with this loop
+    private final Queue<Runnable> tasks = new ConcurrentLinkedQueue<>(); // tasks to run on the loop thread
+    private final Thread thread; // the thread running this loop
+    private volatile boolean running = true; // flag for if the loop should keep running
+
+    /**
+     * Constructor to open the selector and create (but not start) the loop thread
+     * @param name the name of the loop thread
+     * @throws IOException if the selector cannot be opened
+     */
+    public EventLoop(String name) throws IOException {
+        selector = Selector.open();
+        thread = new Thread(this, name);
+    } // end constructor
+
+    /**
+     * Method to start the loop thread
+     */
+    public void start() {
+        thread.start();
+    } // end start
+
+    /**
+     * Method to run a task on the loop thread. The selector is always woken so the task runs promptly,
+     * even when it is submitted from the loop thread itself.
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        tasks.add(task);
+        selector.wakeup();
+    } // end execute
+
+    /**
+     * Method to register a client handler's channel with this loop for reading
+     * @param handler the non-blocking client handler to register
+     */
+    public void register(ClientHandler handler) {
+        execute(() -> {
+            try {
+                handler.register(selector);
+            } catch (IOException e) {
+                System.err.println("Error registering client: " + e.getMessage());
+                handler.cleanup();
+            }
+        });
+    } // end register
+
+    /**
+     * Method to stop the loop and close its selector
+     */
+    public void shutdown() {
+        running = false;
+        selector.wakeup();
+    } // end shutdown
+
+    @Override
+    /**
+     * Override of the run method. Waits for ready channels, runs queued tasks and dispatches
+     * read and write readiness to the client handler attached to each key.
+     */
+    public void run() {
+        try {
+            while (running) {
+                selector.select();
+
+                Runnable task;
+                while ((task = tasks.poll()) != null) {
+                    task.run();
+                }
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    ClientHandler handler = (ClientHandler) key.attachment();
+                    try {
+                        if (key.isValid() && key.isReadable()) handler.onReadable();
+                        if (key.isValid() && key.isWritable()) handler.onWritable();
+                    } catch (Exception e) {
+                        System.err.println("Connection error with client: " + e.getMessage());
+                        handler.cleanup();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Event loop error: " + e.getMessage());
+        } finally {
+            try {
+                selector.close();
+            } catch (IOException e) {
+                System.err.println("Error closing selector: " + e.getMessage());
+            }
+        }
+    } // end run
+
+} // end class
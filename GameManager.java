@@ -10,49 +10,525 @@
  *
  */
 
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 public class GameManager {
-    private final List<ClientHandler> waitingClients = Collections.synchronizedList(new ArrayList<>()); // A list of waiting clients
-    private final List<GameSession> activeSessions = Collections.synchronizedList(new ArrayList<>()); // A list of active game sessions
+    private final ConcurrentLinkedQueue<WaitingClient> waitingClients = new ConcurrentLinkedQueue<>(); // A queue of waiting clients
+    private final AtomicInteger waitingCount = new AtomicInteger(); // number of queued clients not yet claimed for a match
+    private final SessionRegistry<GameSession> activeSessions = new SessionRegistry<>(); // active game sessions by id, sharded so they scale across cores
+    private final Executor sessionExecutor; // runs each blocking game session
+    private volatile RatingMatchmaker<WaitingClient> ratingMatchmaker; // pairs clients by rating, if enabled
+    private volatile boolean simultaneous = false; // flag for if new sessions are played in simultaneous rounds
+    private volatile int tableSize = GameSession.MIN_PLAYERS; // number of players seated in each new unrated session
+    private volatile GameStore store; // persists moves, results and player stats, if enabled
+    private volatile GameSession newestSession; // the session started most recently, offered to spectators who name none
+    private volatile String dictionaryName = DictionaryRegistry.DEFAULT; // name of the dictionary new sessions are played with
+    private final ResultPipeline results = new ResultPipeline(this::applyResults); // applies finished games' results in batches
+    private static final long EVICTION_INTERVAL_MILLIS = 5_000; // time between checks for disconnected waiting clients
+    private final AtomicBoolean evictionScheduled = new AtomicBoolean(); // flag for if an eviction check is pending
+    private volatile LobbyRouter router; // routes matched tables to game nodes, if this manager is a lobby's
+    private final Map<Long, Table> tables = new ConcurrentHashMap<>(); // tables a lobby is still seating players at, by id
+    public static final long TABLE_TIMEOUT_MILLIS = 10_000; // time a lobby has to seat every player at a table
+
+    // Matchmaking metrics
+    private final LongAdder matchedClients = new LongAdder(); // clients that have been placed into a session
+    private final LongAdder totalWaitNanos = new LongAdder(); // summed time-to-match over matched clients
+    private final AtomicLong maxWaitNanos = new AtomicLong(); // longest time-to-match seen
+
+    /**
+     * A client in the waiting queue, along with when it joined
+     */
+    private static final class WaitingClient {
+        private final PlayerChannel client;
+        private final long enqueuedAt;
+
+        private WaitingClient(PlayerChannel client, long enqueuedAt) {
+            this.client = client;
+            this.enqueuedAt = enqueuedAt;
+        }
+    } // end WaitingClient
+
+    /**
+     * A table a lobby is seating players at, which starts once every seat is filled
+     */
+    private static final class Table {
+        private final WaitingClient[] seats; // the seated clients, in turn order
+        private int seated = 0; // number of seats filled
+        private boolean closed = false; // flag for if the table has started or been abandoned
+
+        private Table(int seats) {
+            this.seats = new WaitingClient[seats];
+        }
+    } // end Table
+
+    /**
+     * Constructor to create a GameManager that runs each game session on a new platform thread
+     */
+    public GameManager() {
+        this(task -> new Thread(task).start());
+    } // end constructor
 
     /**
-     * Synchronized method to add a client to the list of those waiting, and attempt to match them
+     * Constructor to create a GameManager that runs game sessions on the given executor
+     * @param sessionExecutor the executor to run blocking game sessions on
+     */
+    public GameManager(Executor sessionExecutor) {
+        this.sessionExecutor = sessionExecutor;
+    } // end constructor
+
+    /**
+     * Method to run a task on the executor game sessions run on. Timer wheel tasks that write to players
+     * hand their work to it, so a slow client never holds up the wheel's thread.
+     * @param task the task to run
+     */
+    public void execute(Runnable task) {
+        sessionExecutor.execute(task);
+    } // end execute
+
+    /**
+     * Method to add a ready client (one whose player has been created) to the queue of those waiting,
+     * and attempt to match them. Called by the client handler once its name has been received, or by the
+     * owner of any other PlayerChannel once its player has been created.
      * @param client the client to add
      */
-    public synchronized void addClient(ClientHandler client) {
-        waitingClients.add(client);
-        tryMatchClients();
+    public void addClient(PlayerChannel client) {
+        WaitingClient waiting = new WaitingClient(client, System.nanoTime());
+        RatingMatchmaker<WaitingClient> rated = ratingMatchmaker;
+        if (rated != null) {
+            rated.add(waiting, client.getPlayer().getName());
+        } else {
+            enqueue(waiting);
+            tryMatchClients();
+        }
+        scheduleEviction();
     } // end addClient
 
     /**
-     * Synchronized method to attempt to match waiting clients and place them into a game session
+     * Helper method to schedule a check for disconnected waiting clients, unless one is already pending
+     */
+    private void scheduleEviction() {
+        if (!evictionScheduled.get() && evictionScheduled.compareAndSet(false, true)) {
+            TimerWheel.SHARED.schedule(this::evictDisconnected, EVICTION_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    } // end scheduleEviction
+
+    /**
+     * Helper method run on the timer wheel to remove clients that disconnected while waiting, so they
+     * neither hold memory nor inflate the queue depth. Checks again later while anyone is still waiting.
+     */
+    private void evictDisconnected() {
+        int evicted = 0;
+        for (WaitingClient waiting : waitingClients) {
+            if (!waiting.client.isClosed()) continue;
+
+            // Claim one from the count before removing, so a matching thread never finds the queue short
+            int count = waitingCount.get();
+            if (count == 0) break;
+            if (!waitingCount.compareAndSet(count, count - 1)) continue;
+            if (waitingClients.remove(waiting)) {
+                evicted++;
+            } else {
+                waitingCount.incrementAndGet(); // a matching thread took it first
+            }
+        }
+        RatingMatchmaker<WaitingClient> rated = ratingMatchmaker;
+        if (rated != null) evicted += rated.evictGone();
+        Metrics.WAITING_EVICTED.add(evicted);
+
+        evictionScheduled.set(false);
+        if (getQueueDepth() > 0) scheduleEviction();
+    } // end evictDisconnected
+
+    /**
+     * Method to seat a player routed here by a lobby at the table the lobby matched them into. The table's
+     * session starts once every seat is filled. A table not filled within TABLE_TIMEOUT_MILLIS is abandoned
+     * and its players' links closed, and the lobby requeues them.
+     * @param client the player's link from the lobby
+     * @param tableId the lobby's id for the table
+     * @param seat the player's seat, in turn order
+     * @param seats the number of seats at the table
+     */
+    public void seatAtTable(PlayerChannel client, long tableId, int seat, int seats) {
+        Table table = tables.computeIfAbsent(tableId, id -> {
+            TimerWheel.SHARED.schedule(() -> execute(() -> abandonTable(id)), TABLE_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+            return new Table(seats);
+        });
+        boolean full;
+        synchronized (table) {
+            if (table.closed || table.seats.length != seats || table.seats[seat] != null) {
+                client.sendMessage("Cannot take seat " + seat + " at table " + tableId + ". Connection closing.");
+                client.cleanup();
+                return;
+            }
+            table.seats[seat] = new WaitingClient(client, System.nanoTime());
+            full = ++table.seated == seats;
+            table.closed = full;
+        }
+        if (!full) return;
+        tables.remove(tableId, table);
+        for (WaitingClient waiting : table.seats) {
+            if (!waiting.client.isClosed()) continue;
+            for (WaitingClient other : table.seats) other.client.cleanup(); // a player left while the table filled
+            return;
+        }
+        startSession(table.seats);
+    } // end seatAtTable
+
+    /**
+     * Helper method run once a table's timeout passes to abandon it if it was not filled in time, closing the links
+     * of the players already seated
+     * @param tableId the lobby's id for the table
+     */
+    private void abandonTable(long tableId) {
+        Table table = tables.remove(tableId);
+        if (table == null) return;
+        synchronized (table) {
+            if (table.closed) return;
+            table.closed = true;
+            for (WaitingClient waiting : table.seats) {
+                if (waiting != null) waiting.client.cleanup();
+            }
+        }
+        System.out.println("Table " + tableId + " abandoned: not every player arrived");
+    } // end abandonTable
+
+    /**
+     * Method to make this manager a lobby's, handing every matched table to a router that plays it on a game
+     * node rather than starting a session here. Should be called before any clients are added.
+     * @param router the router
+     */
+    public void enableRouting(LobbyRouter router) {
+        this.router = router;
+    } // end enableRouting
+
+    /**
+     * Method to switch to rating-aware matchmaking. Should be called before any clients are added.
+     * Starts a background sweep that retries waiting clients with their widened rating windows every second.
+     */
+    public void enableRatedMatchmaking() {
+        if (ratingMatchmaker != null) return;
+        ratingMatchmaker = new RatingMatchmaker<>((w1, w2) -> startSession(new WaitingClient[] {w1, w2}), w -> w.client.isClosed());
+
+        ScheduledExecutorService sweeper = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "wordsmith-matchmaker");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleAtFixedRate(() -> ratingMatchmaker.sweep(System.nanoTime()), 1, 1, TimeUnit.SECONDS);
+    } // end enableRatedMatchmaking
+
+    /**
+     * Method to start new sessions in simultaneous mode, where every player plays each round at the same time
+     */
+    public void enableSimultaneousPlay() {
+        simultaneous = true;
+    } // end enableSimultaneousPlay
+
+    /**
+     * Setter for the number of players seated in each new session. Does not apply to rated matchmaking,
+     * which always pairs two players.
+     * @param tableSize the number of players, from GameSession.MIN_PLAYERS to GameSession.MAX_PLAYERS
+     * @throws IllegalArgumentException if the table size is out of range
+     */
+    public void setTableSize(int tableSize) {
+        if (tableSize < GameSession.MIN_PLAYERS || tableSize > GameSession.MAX_PLAYERS) {
+            throw new IllegalArgumentException("Table size must be from " + GameSession.MIN_PLAYERS + " to " + GameSession.MAX_PLAYERS + ", not " + tableSize);
+        }
+        this.tableSize = tableSize;
+        tryMatchClients(); // clients already waiting may now fill a table
+    } // end setTableSize
+
+    /**
+     * Setter for the dictionary new sessions are played with. Sessions already running keep theirs.
+     * @param name the name of a dictionary in the DictionaryRegistry
+     * @throws IllegalArgumentException if no dictionary has that name
+     */
+    public void setDictionary(String name) {
+        if (!DictionaryRegistry.SHARED.isRegistered(name)) throw new IllegalArgumentException("No dictionary named " + name);
+        this.dictionaryName = name;
+    } // end setDictionary
+
+    /**
+     * Getter for the current version of the dictionary new sessions are played with, which a session pins when it starts
+     * @return the dictionary
+     */
+    public Dictionary getDictionary() {
+        return DictionaryRegistry.SHARED.get(dictionaryName);
+    } // end getDictionary
+
+    /**
+     * Getter for the name of the dictionary new sessions are played with
+     * @return the name of a dictionary in the DictionaryRegistry
+     */
+    public String getDictionaryName() {
+        return dictionaryName;
+    } // end getDictionaryName
+
+    /**
+     * Method to persist games to a store. Should be called before any clients are added.
+     * @param store the store to record moves and results in
+     */
+    public void enableStore(GameStore store) {
+        this.store = store;
+    } // end enableStore
+
+    /**
+     * Getter for a player's cumulative stats
+     * @param name the player's name
+     * @return the player's stats, or null if no store is enabled or they have not completed a game
+     */
+    public GameStore.PlayerStats getStats(String name) {
+        GameStore gameStore = store;
+        return gameStore == null ? null : gameStore.getStats(name);
+    } // end getStats
+
+    /**
+     * Method to record a move played in a game, if a store is enabled
+     * @param session the game session
+     * @param turn the number of the turn in the game, from 0
+     * @param player the player who moved
+     * @param result the Protocol result code of the move
+     * @param word the word played, or null if none was received
+     * @param points the points the move scored
+     */
+    public void recordTurn(GameSession session, int turn, Player player, byte result, String word, int points) {
+        GameStore gameStore = store;
+        if (gameStore != null) gameStore.recordTurn(session.getSeed(), turn, player.getName(), result, word, points);
+    } // end recordTurn
+
+    /**
+     * Method to hand a finished game's result to the result pipeline. Returns at once, so the session
+     * never waits on ratings or persistence.
+     * @param result the game's result
+     */
+    public void submitResult(GameResult result) {
+        results.submit(result);
+    } // end submitResult
+
+    /**
+     * Helper method run on the result pipeline's consumer thread to apply a batch of results. Updates both
+     * players' ratings after a completed two-player game when rated matchmaking is enabled, and records
+     * the final standings if a store is enabled. Results are applied one at a time, in the order they finished.
+     * @param batch the results
      */
-    private synchronized void tryMatchClients() {
-        while (waitingClients.size() >= 2) {
-            ClientHandler p1 = waitingClients.remove(0);
-            ClientHandler p2 = waitingClients.remove(0);
-               
-            // Wait until the players are completely ready to pair them into a game session
-            p1.waitUntilPlayerReady();
-            p2.waitUntilPlayerReady();
-            
-            // Initialize a new game session between the two players
-            GameSession session = new GameSession(p1, p2, this);
-            activeSessions.add(session);
-            new Thread(session).start();  // run session in new thread
-          
+    private void applyResults(List<GameResult> batch) {
+        RatingMatchmaker<WaitingClient> rated = ratingMatchmaker;
+        GameStore gameStore = store;
+        for (GameResult result : batch) {
+            if (rated != null && result.isCompleted() && result.getPlayerCount() == 2) { // abandoned games are not rated
+                int p1Score = result.getScore(0);
+                int p2Score = result.getScore(1);
+                double outcome = p1Score > p2Score ? 1.0 : p1Score < p2Score ? 0.0 : 0.5;
+                rated.recordResult(result.getName(0), result.getName(1), outcome);
+            }
+            if (gameStore != null) {
+                String[] names = new String[result.getPlayerCount()];
+                int[] scores = new int[names.length];
+                int[] ranks = new int[names.length];
+                for (int i = 0; i < names.length; i++) {
+                    names[i] = result.getName(i);
+                    scores[i] = result.getScore(i);
+                    ranks[i] = result.getRank(i);
+                }
+                gameStore.recordMatch(result.getSeed(), result.isCompleted(), names, scores, ranks);
+            }
+        }
+    } // end applyResults
+
+    /**
+     * Helper method to put a client into the queue. The client is offered before the count is raised,
+     * so a thread that claims from the count will always find enough clients in the queue.
+     * @param waiting the waiting client
+     */
+    private void enqueue(WaitingClient waiting) {
+        waitingClients.offer(waiting);
+        waitingCount.incrementAndGet();
+    } // end enqueue
+
+    /**
+     * Method to attempt to match waiting clients and place them into a game session. A table is claimed by
+     * atomically taking the table size from the waiting count, so any number of threads can add clients and
+     * start sessions without a global lock.
+     */
+    private void tryMatchClients() {
+        while (true) {
+            // Claim a full table of waiting clients, or stop if there are not enough
+            int size = tableSize;
+            int count = waitingCount.get();
+            if (count < size) return;
+            if (!waitingCount.compareAndSet(count, count - size)) continue;
+
+            WaitingClient[] group = new WaitingClient[size];
+            boolean allOpen = true;
+            for (int i = 0; i < size; i++) {
+                group[i] = waitingClients.poll();
+                allOpen &= !group[i].client.isClosed();
+            }
+
+            // A client that disconnected while waiting is dropped, and the rest go back in the queue
+            if (!allOpen) {
+                for (WaitingClient waiting : group) {
+                    if (!waiting.client.isClosed()) enqueue(waiting);
+                }
+                continue;
+            }
+
+            startSession(group);
         }
     } // end tryMatchClients
 
     /**
-     * Synchronized method to remove a gamesession from the list of active sessions once the session is finished
+     * Helper method to record the matched clients' time-to-match and start a game session between them.
+     * Event-driven clients deliver their own input, so their session needs no thread; a session with any
+     * other client is run on the session executor. A lobby routes the table to a game node instead.
+     * @param group the matched clients, in turn order
+     */
+    private void startSession(WaitingClient[] group) {
+        long now = System.nanoTime();
+        PlayerChannel[] handlers = new PlayerChannel[group.length];
+        boolean eventDriven = true;
+        for (int i = 0; i < group.length; i++) {
+            recordMatch(now - group[i].enqueuedAt);
+            handlers[i] = group[i].client;
+            eventDriven &= handlers[i].isEventDriven();
+        }
+
+        // A lobby plays the table on a game node instead
+        LobbyRouter lobby = router;
+        if (lobby != null) {
+            lobby.route(handlers);
+            return;
+        }
+
+        // Initialize a new game session between the players
+        GameSession session = new GameSession(handlers, this, simultaneous);
+        session.setId(activeSessions.add(session));
+        newestSession = session;
+        Metrics.SESSIONS_STARTED.increment();
+        String dictionary = dictionaryName;
+        if (eventDriven && DictionaryRegistry.SHARED.isLoaded(dictionary)) {
+            session.start(); // event-driven session, input arrives from the clients' own threads or event loops
+        } else if (eventDriven) {
+            DictionaryRegistry.SHARED.preload(dictionary).thenRun(session::start); // start once loaded, without holding up an event loop
+        } else {
+            sessionExecutor.execute(session);  // run session on its own thread
+        }
+    } // end startSession
+
+    /**
+     * Helper method to record one client's time-to-match
+     * @param waitNanos how long the client waited in the queue
+     */
+    private void recordMatch(long waitNanos) {
+        matchedClients.increment();
+        totalWaitNanos.add(waitNanos);
+        maxWaitNanos.accumulateAndGet(waitNanos, Math::max);
+        Metrics.MATCH_WAIT.record(waitNanos);
+    } // end recordMatch
+
+    /**
+     * Method to remove a gamesession from the list of active sessions once the session is finished.
+     * Removing a session that is no longer registered has no effect.
      * @param session the game session to remove
      */
-    public synchronized void removeSession(GameSession session) {
-        activeSessions.remove(session);
+    public void removeSession(GameSession session) {
+        activeSessions.remove(session.getId());
     } // end removeSession
 
+    /**
+     * Method to find an active session, for a spectator who asked to watch it
+     * @param id the session id
+     * @return the session, or null if no active session has that id
+     */
+    public GameSession findSession(long id) {
+        return activeSessions.get(id);
+    } // end findSession
+
+    /**
+     * Getter for the session started most recently, for a spectator who did not name a session
+     * @return the newest session, or null if it has already ended or none has started
+     */
+    public GameSession getNewestSession() {
+        GameSession session = newestSession;
+        return session == null || session.isFinished() ? null : session;
+    } // end getNewestSession
+
+    /**
+     * Getter for the number of sessions in the registry of active sessions
+     * @return the active session count
+     */
+    public int getActiveSessionCount() {
+        return activeSessions.size();
+    } // end getActiveSessionCount
+
+    /**
+     * Method to end every active session, closing the players' connections, then apply the results still
+     * in the pipeline and close the store. Called when the server shuts down.
+     */
+    public void shutdown() {
+        activeSessions.forEach(GameSession::abort); // each aborted session removes itself
+        try {
+            results.close(); // apply the results already handed over
+            GameStore gameStore = store;
+            if (gameStore != null) gameStore.close(); // write what is queued and take a final snapshot
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    } // end shutdown
+
+    /**
+     * Getter for the number of clients waiting to be matched
+     * @return the queue depth
+     */
+    public int getQueueDepth() {
+        RatingMatchmaker<WaitingClient> rated = ratingMatchmaker;
+        return rated != null ? rated.getWaitingCount() : waitingCount.get();
+    } // end getQueueDepth
+
+    /**
+     * Getter for a player's rating
+     * @param name the player's name
+     * @return the player's rating, or the default rating if rated matchmaking is off or the player is new
+     */
+    public int getRating(String name) {
+        RatingMatchmaker<WaitingClient> rated = ratingMatchmaker;
+        return rated != null ? rated.getRating(name) : RatingMatchmaker.DEFAULT_RATING;
+    } // end getRating
+
+    /**
+     * Getter for the number of clients that have been matched into a session
+     * @return the matched client count
+     */
+    public long getMatchedClients() {
+        return matchedClients.sum();
+    } // end getMatchedClients
+
+    /**
+     * Getter for the average time a matched client spent waiting
+     * @return the average time-to-match in milliseconds, or 0 if nobody has been matched
+     */
+    public double getAverageTimeToMatchMillis() {
+        long matched = matchedClients.sum();
+        return matched == 0 ? 0 : totalWaitNanos.sum() / (matched * 1e6);
+    } // end getAverageTimeToMatchMillis
+
+    /**
+     * Getter for the longest time a matched client spent waiting
+     * @return the maximum time-to-match in milliseconds
+     */
+    public double getMaxTimeToMatchMillis() {
+        return maxWaitNanos.get() / 1e6;
+    } // end getMaxTimeToMatchMillis
+
 } // end class
@@ -0,0 +1,98 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameResult
+ *
+ * This class contains the compact, immutable record of a finished game that a GameSession hands to the
+ * ResultPipeline, so the work that follows a game (ratings, stats and persistence) runs off the session.
+ * It holds only names and numbers, so the session and its players can be released as soon as it is built.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+public final class GameResult {
+
+    private final long seed; // seed of the game's letter pool, which identifies the game
+    private final boolean completed; // true if the game was played to the end rather than quit or stopped
+    private final String[] names; // the players' names, in turn order
+    private final int[] scores; // the players' final scores
+    private final int[] ranks; // the players' finishing positions, where tied players share a position
+    private final long finishedAt = System.nanoTime(); // when the game finished
+
+    /**
+     * Constructor to create a result
+     * @param seed the seed of the game's letter pool
+     * @param completed true if the game was played to the end
+     * @param names the players' names
+     * @param scores the players' final scores
+     * @param ranks the players' finishing positions
+     */
+    public GameResult(long seed, boolean completed, String[] names, int[] scores, int[] ranks) {
+        this.seed = seed;
+        this.completed = completed;
+        this.names = names.clone();
+        this.scores = scores.clone();
+        this.ranks = ranks.clone();
+    } // end constructor
+
+    /**
+     * Getter for the seed of the game's letter pool
+     * @return the seed
+     */
+    public long getSeed() {
+        return seed;
+    } // end getSeed
+
+    /**
+     * Getter for whether the game was played to the end
+     * @return true if the game was completed
+     */
+    public boolean isCompleted() {
+        return completed;
+    } // end isCompleted
+
+    /**
+     * Getter for the number of players
+     * @return the player count
+     */
+    public int getPlayerCount() {
+        return names.length;
+    } // end getPlayerCount
+
+    /**
+     * Getter for a player's name
+     * @param seat the player's index in turn order
+     * @return the name
+     */
+    public String getName(int seat) {
+        return names[seat];
+    } // end getName
+
+    /**
+     * Getter for a player's final score
+     * @param seat the player's index in turn order
+     * @return the score
+     */
+    public int getScore(int seat) {
+        return scores[seat];
+    } // end getScore
+
+    /**
+     * Getter for a player's finishing position
+     * @param seat the player's index in turn order
+     * @return the position, from 1
+     */
+    public int getRank(int seat) {
+        return ranks[seat];
+    } // end getRank
+
+    /**
+     * Getter for when the game finished
+     * @return the System.nanoTime at which the result was created
+     */
+    public long getFinishedAt() {
+        return finishedAt;
+    } // end getFinishedAt
+
+} // end class
@@ -3,145 +3,805 @@
  * Class: GameSession
  * 
  * Class intended to be the primary controller of game logic, containing methods to facilitate
- * gameplay and turn-management for a game session between two players.
+ * gameplay and turn-management for a game session between two to eight players sharing one letter pool.
+ * Players take turns in a fixed rotation, or in simultaneous mode answer each round at once.
  * 
  * @author Kirin Sharma
  * @version 2.0
  *
  */
 
-public class GameSession implements Runnable {
-    // ClientHandlers for the players in the game session
-    private final ClientHandler player1Handler;
-    private final ClientHandler player2Handler; 
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
-    // References to the players in the game session
-    private final Player player1;
-    private final Player player2;
+public class GameSession implements Runnable, GameTable {
+    public static final int MIN_PLAYERS = 2; // smallest table a session can be played at
+    public static final int MAX_PLAYERS = 8; // largest table a session can be played at
+    public static final int TURNS_PER_PLAYER = 8; // turns each player gets before the game ends
+    public static final int HINTS_PER_GAME = 1; // hints each player may ask for in a game
+
+    // Channels to the players and the players in the game session, in turn order
+    private final PlayerChannel[] handlers;
+    private final Player[] players;
 
     private final LetterPool letterPool; // the letter pool that will be used in the game session
-    private int turns; // tracks the number of total turns taken between the two players
+    private volatile Dictionary dictionary; // the dictionary version pinned when the session starts, or null before then
+    private int turns; // tracks the number of total turns taken between all players
     private boolean connected = false;
+    private boolean finished = false; // flag for if the results have been sent
+    private final ReentrantLock lock = new ReentrantLock(); // guards the turn state below, without pinning a virtual thread while it writes
+
+    private int current = 0; // index of the player whose turn it is
+
+    private GameManager gm; // Pointer to the GameManager holding this gamesession, or null for an offline simulation
+    private volatile long id = -1; // id of the session in the GameManager's registry, or -1 before it is registered
+
+    public static final long TURN_DEADLINE_MILLIS = 60_000; // time a player has to answer a prompt
+    private TimerWheel.Timeout deadline; // skips the current turn, or closes the current round, when it times out
 
-    private GameManager gm; // Pointer to the GameManager holding this gamesession
+    // Simultaneous mode state
+    private final boolean simultaneous; // flag for if every player plays each round at the same time
+    private int round = 0; // number of simultaneous rounds started
+    private final Move[] moves; // each player's judged submission for the current round, or null
+    private int movesIn = 0; // number of submissions received for the current round
+    private final long startedAt = System.nanoTime(); // when the session was created
+
+    // Best-word analysis, indexed by player
+    private final String[] bestWords; // best word on the rack each player was last dealt, or null if none can be formed
+    private final int[] hintsLeft; // hints each player may still ask for
+    private final String[] missedWords; // best word on the rack where each player fell furthest short of it
+    private final int[] missedPoints; // points each player fell short by on that rack
+
+    private final SpectatorFeed spectators = new SpectatorFeed(); // live feed of the game for clients watching it
+
+    /**
+     * A player's submission for a simultaneous round, along with the verdict on it
+     */
+    private static final class Move {
+        private final String word;
+        private final ScoredWord scored;
+        private final byte result;
+
+        private Move(String word, ScoredWord scored, byte result) {
+            this.word = word;
+            this.scored = scored;
+            this.result = result;
+        }
+    } // end Move
 
     /**
      * Constructor to initialize all instance variables necessary to run a game session
-     * @param player1Handler the clienthandler for player 1
-     * @param player2Handler the clienthandler for player 2
-     */
-    public GameSession(ClientHandler player1Handler, ClientHandler player2Handler, GameManager gm) {
-        this.player1Handler = player1Handler;
-        this.player2Handler = player2Handler;
-        this.player1 = player1Handler.getPlayer();
-        this.player2 = player2Handler.getPlayer();
-        this.letterPool = new LetterPool(); // shared letter pool for both players
+     * @param player1Handler the channel to player 1
+     * @param player2Handler the channel to player 2
+     */
+    public GameSession(PlayerChannel player1Handler, PlayerChannel player2Handler, GameManager gm) {
+        this(new PlayerChannel[] {player1Handler, player2Handler}, gm, new LetterPool(), false);
+    } // end constructor
+
+    /**
+     * Constructor to initialize a game session whose letter draws come from the given seed, so it can be replayed
+     * @param player1Handler the channel to player 1
+     * @param player2Handler the channel to player 2
+     * @param seed the seed for the session's letter pool
+     */
+    public GameSession(PlayerChannel player1Handler, PlayerChannel player2Handler, GameManager gm, long seed) {
+        this(new PlayerChannel[] {player1Handler, player2Handler}, gm, new LetterPool(seed), false);
+    } // end constructor
+
+    /**
+     * Constructor to initialize a game session in either turn-based or simultaneous mode
+     * @param player1Handler the channel to player 1
+     * @param player2Handler the channel to player 2
+     * @param simultaneous true for both players to play each round at the same time
+     */
+    public GameSession(PlayerChannel player1Handler, PlayerChannel player2Handler, GameManager gm, boolean simultaneous) {
+        this(new PlayerChannel[] {player1Handler, player2Handler}, gm, new LetterPool(), simultaneous);
+    } // end constructor
+
+    /**
+     * Constructor to initialize a game session for a table of players, who take turns in the order given
+     * @param handlers the channels to the players, between MIN_PLAYERS and MAX_PLAYERS of them
+     * @param simultaneous true for every player to play each round at the same time
+     * @throws IllegalArgumentException if the number of players is out of range
+     */
+    public GameSession(PlayerChannel[] handlers, GameManager gm, boolean simultaneous) {
+        this(handlers.clone(), gm, new LetterPool(), simultaneous);
+    } // end constructor
+
+    /**
+     * Constructor to initialize a turn-based game session for a table of players whose letter draws come
+     * from the given seed, so it can be replayed. A session without a GameManager is an offline simulation,
+     * as run by the GameSimulator: it sets no deadlines and reports nothing, so it replays at full speed.
+     * @param handlers the channels to the players, between MIN_PLAYERS and MAX_PLAYERS of them
+     * @param gm the GameManager, or null for an offline simulation
+     * @param seed the seed for the session's letter pool
+     * @throws IllegalArgumentException if the number of players is out of range
+     */
+    public GameSession(PlayerChannel[] handlers, GameManager gm, long seed) {
+        this(handlers.clone(), gm, new LetterPool(seed), false);
+    } // end constructor
+
+    /**
+     * Helper constructor to initialize all instance variables with the given letter pool
+     */
+    private GameSession(PlayerChannel[] handlers, GameManager gm, LetterPool letterPool, boolean simultaneous) {
+        if (handlers.length < MIN_PLAYERS || handlers.length > MAX_PLAYERS) {
+            throw new IllegalArgumentException("A session needs " + MIN_PLAYERS + " to " + MAX_PLAYERS + " players, not " + handlers.length);
+        }
+        this.handlers = handlers;
+        this.players = new Player[handlers.length];
+        for (int i = 0; i < handlers.length; i++) {
+            players[i] = handlers[i].getPlayer();
+        }
+        this.letterPool = letterPool; // shared letter pool for all players
         turns = 0;
         connected = true;
         this.gm = gm;
+        this.simultaneous = simultaneous;
+        this.moves = new Move[handlers.length];
+        this.bestWords = new String[handlers.length];
+        this.hintsLeft = new int[handlers.length];
+        Arrays.fill(hintsLeft, HINTS_PER_GAME);
+        this.missedWords = new String[handlers.length];
+        this.missedPoints = new int[handlers.length];
+
+        // Start with the first player
+        for (PlayerChannel handler : handlers) {
+            handler.setSession(this);
+        }
     } // end constructor
 
     @Override
     /**
-     * Override of the run method, contains logic for turn-based play between the two players
+     * Override of the run method, drives play between clients that do not deliver their input as events
+     * by reading each player's input on this thread: the player whose turn it is, or in simultaneous mode
+     * each player who has not yet answered the round, in seat order
      */
     public void run() {
-        // Start with player1
-        ClientHandler currentHandler = player1Handler;
-        Player currentPlayer = player1;
-
-        // Play until the letter pool is empty, or 16 turns have been taken (8 by each player)
-        while (connected && !letterPool.isEmpty() && turns < 16) {
+        try {
+            start();
+            while (!isFinished()) {
+                PlayerChannel handler;
+                lock.lock();
+                try {
+                    handler = simultaneous ? firstUnanswered() : handlers[current];
+                } finally {
+                    lock.unlock();
+                }
+                if (handler == null) continue; // the round is closing, and the next one is dealt once it has
+                String word = handler.receiveMessage(); // receive input from the player
+                onInput(handler, word);
+            }
+        } finally {
+            if (!isFinished()) abort("The game has ended because of a server error."); // never leave a session registered
+        }
+    } // end run
 
-            currentPlayer.drawLetters(letterPool); // draw letters
-            playWord(currentPlayer, currentHandler); // call to helper method to play a word (execute a turn)
-            if(!connected) break;
+    /**
+     * Method to begin the game by prompting the first player, or every player in simultaneous mode.
+     * The session pins the dictionary version that is current now, waiting for it if it is still loading,
+     * so a word list reloaded mid-game only applies to later games.
+     */
+    public void start() {
+        Dictionary pinned = gm != null ? gm.getDictionary() : DictionaryRegistry.SHARED.get(DictionaryRegistry.DEFAULT); // waits if still loading
+        lock.lock();
+        try {
+            if (finished) return; // aborted before it could start
+            dictionary = pinned;
+            if (simultaneous) {
+                for (PlayerChannel handler : handlers) {
+                    handler.queueMessage("All players play at the same time each round. You have " + TURN_DEADLINE_MILLIS / 1000 + " seconds to answer.");
+                }
+                beginRound();
+            } else {
+                beginTurn();
+            }
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    } // end start
 
-            turns++; // increment turns
+    /**
+     * Method to handle input from a player. Input from a player whose turn it is not is ignored.
+     * Event-driven channels call it from their own reading thread or event loop, and run() calls it for the rest.
+     * @param handler the channel the input came from
+     * @param word the input, or null if none was received
+     */
+    public void onInput(PlayerChannel handler, String word) {
+        if (dictionary == null) return; // the game has not started, so there is nothing to answer yet
+        if (word != null && word.trim().equals("?")) {
+            onHint(handler);
+            return;
+        }
+        if (simultaneous) {
+            onSubmission(handler, word);
+            return;
+        }
+        lock.lock();
+        try {
+            handleInput(handler, word);
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    } // end onInput
 
-            // Switch turns
-            if (currentHandler == player1Handler) {
-                currentHandler = player2Handler;
-                currentPlayer = player2;
+    /**
+     * Helper method to give a player the best word on their rack, if it is their turn and they have a hint left.
+     * The turn prompt is sent again, since the player has not yet answered it.
+     * @param handler the channel the request came from
+     */
+    private void onHint(PlayerChannel handler) {
+        int seat = seatOf(handler);
+        if (seat < 0) return;
+        lock.lock();
+        try {
+            if (finished) return;
+            boolean prompted = simultaneous ? moves[seat] == null : seat == current;
+            if (!prompted) {
+                handler.queueMessage("You can only ask for a hint on your turn.");
+                return;
+            }
+            if (hintsLeft[seat] == 0) {
+                handler.queueMessage("You have no hints left.");
+            } else if (bestWords[seat] == null) {
+                handler.queueMessage("No word can be formed from your letters. Try passing with '1'.");
             } else {
-                currentHandler = player1Handler;
-                currentPlayer = player1;
+                hintsLeft[seat]--;
+                handler.queueMessage("Hint: \"" + bestWords[seat] + "\" scores " + letterPool.getWordPoints(bestWords[seat]) + " points.");
             }
+            handler.queueTurnPrompt(players[seat].getRack());
+        } finally {
+            lock.unlock();
+            handler.flush();
         }
+    } // end onHint
 
-        // Game ended - notify players of results based on scores
-        int p1Score = player1.getScore();
-        int p2Score = player2.getScore();
+    /**
+     * Helper method to look up the best word on the rack a player has just been dealt
+     * @param seat the index of the player
+     */
+    private void findBestWord(int seat) {
+        long start = System.nanoTime();
+        bestWords[seat] = dictionary.bestWord(players[seat].getLetterCounts());
+        Metrics.BEST_WORD.record(System.nanoTime() - start);
+    } // end findBestWord
 
-        if(p1Score > p2Score) {
-            player1Handler.sendMessage("You win! You scored " + p1Score + " points, and your opponent only scored " + p2Score + " points.");
-            player2Handler.sendMessage("You lost. Your opponent scored " + p1Score + " points, and you scored " + p2Score + " points.");
-        } else if(p2Score > p1Score) {
-            player2Handler.sendMessage("You win! You scored " + p2Score + " points, and your opponent only scored " + p1Score + " points.");
-            player1Handler.sendMessage("You lost. Your opponent scored " + p2Score + " points, and you scored " + p1Score + " points.");
-        } else {
-            player1Handler.sendMessage("You tied! You and your opponent both scored " + p1Score + " points.");
-            player2Handler.sendMessage("You tied! You and your opponent both scored " + p2Score + " points.");
+    /**
+     * Helper method to remember the move where a player fell furthest short of the best word on their rack
+     * @param seat the index of the player
+     * @param points the points the player scored with the move
+     */
+    private void trackMissedChance(int seat, int points) {
+        int missed = letterPool.getWordPoints(bestWords[seat]) - points;
+        if (missed > missedPoints[seat]) {
+            missedPoints[seat] = missed;
+            missedWords[seat] = bestWords[seat];
         }
+    } // end trackMissedChance
 
-    } // end run
+    /**
+     * Helper method to write the messages queued for every player. Messages produced while handling an
+     * input are queued, and written together once the input has been handled, outside the lock.
+     */
+    private void flush() {
+        for (PlayerChannel handler : handlers) {
+            handler.flush();
+        }
+    } // end flush
 
     /**
-     * Helper method to allow a player to have their turn.
-     * They may play a word, or pass and redraw their letters
-     * If neither of those options are valid, they will be notified of the error and their turn will be skipped.
-     * @param player the player whose turn it is
-     * @param handler the clienthandler for the player whose turn it is
-     * @return
+     * Helper method to apply a player's input and advance to the next turn. Called with the lock held.
+     * @param handler the channel the input came from
+     * @param word the input, or null if none was received
      */
-    private boolean playWord(Player player, ClientHandler handler) {
-        handler.sendMessage("It's your turn! Your letters: " + player.getRack().toString() + ". Enter a word or '1' to pass and redraw letters: ");
+    private void handleInput(PlayerChannel handler, String word) {
+        if (finished || handler != handlers[current]) return;
+        if (deadline != null) deadline.cancel();
+
+        playWord(players[current], handler, word); // call to helper method to play a word (execute a turn)
+        if(!connected) {
+            finish();
+            return;
+        }
 
+        turns++; // increment turns
+        Metrics.TURNS.increment();
 
-        String word = handler.receiveMessage(); // receive input from the player
+        // Pass the turn to the next player in the rotation
+        current = (current + 1) % handlers.length;
+        beginTurn();
+    } // end handleInput
 
-        // If null, pass turn
-        if (word == null) {
-            handler.sendMessage("No word entered. Turn skipped.");
-            return false;
+    /**
+     * Helper method to start the next turn, or end the game once the letter pool is empty
+     * or every player has taken TURNS_PER_PLAYER turns
+     */
+    private void beginTurn() {
+        if (!connected || letterPool.isEmpty() || turns >= TURNS_PER_PLAYER * players.length) {
+            finish();
+            return;
         }
 
-        word = word.trim().toLowerCase(); // trim the word and format to lowercase
+        PlayerChannel handler = handlers[current];
+        players[current].drawLetters(letterPool); // draw letters
+        findBestWord(current);
+        handler.queueTurnPrompt(players[current].getRack());
+        if (spectators.isWatched()) spectators.publish("It's " + players[current].getName() + "'s turn. Letters: " + players[current].getRack() + ".");
+        int thisTurn = turns;
+        if (gm != null) deadline = TimerWheel.SHARED.schedule(() -> gm.execute(() -> onTurnDeadline(thisTurn)), TURN_DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
 
-        // If the player has elected to quit, inform both players and quit the game session
-        if(word.equals("0")) {
-            player1Handler.sendMessage("You or your opponent has elected to quit the game. Closing the connection now.");
-            player2Handler.sendMessage("You or your opponent has elected to quit the game. Closing the connection now.");
-            player1Handler.cleanup();
-            player2Handler.cleanup();
-            connected = false;
-            gm.removeSession(this);
+        // A player who has disconnected can never answer, so skip their turn straight away
+        if (handler.isClosed()) {
+            handleInput(handler, null);
         }
+    } // end beginTurn
 
-        // If the player has elected to redraw letters, allow them to do so
-        if(word.equals("1")) {
-            player.redrawLetters(letterPool);
-            handler.sendMessage("You have chosen to pass this turn and redraw letters.");
-            return false;
+    /**
+     * Helper method to skip a turn that has timed out, as if the player had entered nothing. The deadline
+     * fires on the shared TimerWheel and hands this to the GameManager's executor, since it writes to the players.
+     * @param timedOutTurn the turn the deadline was set for
+     */
+    private void onTurnDeadline(int timedOutTurn) {
+        lock.lock();
+        try {
+            if (finished || turns != timedOutTurn) return;
+            Metrics.TURNS_TIMED_OUT.increment();
+            handleInput(handlers[current], null);
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    } // end onTurnDeadline
+
+    /**
+     * Helper method to judge a simultaneous-mode submission and close the round once every player has answered.
+     * The submission is judged before the lock is taken, so the players' words are validated in parallel.
+     * @param handler the channel the input came from
+     * @param word the input, or null if none was received
+     */
+    private void onSubmission(PlayerChannel handler, String word) {
+        int seat = seatOf(handler);
+        if (seat < 0) return;
+        int submittedRound;
+        int[] rack; // the rack as dealt this round, since closing the round deals the next one
+        lock.lock();
+        try {
+            if (finished || moves[seat] != null) return;
+            submittedRound = round;
+            rack = players[seat].getLetterCounts();
+        } finally {
+            lock.unlock();
+        }
+
+        word = ScoredWord.normalize(word);
+        ScoredWord scored = score(word);
+        Move move = new Move(word, scored, judge(rack, word, scored));
+
+        lock.lock();
+        try {
+            // Drop the submission if the round closed while it was being judged
+            if (finished || round != submittedRound || moves[seat] != null) return;
+            moves[seat] = move;
+            movesIn++;
+            if (movesIn == moves.length) closeRound();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    } // end onSubmission
+
+    /**
+     * Helper method to find the first player who has not answered the current simultaneous round.
+     * Called with the lock held.
+     * @return the player's channel, or null if every player has answered
+     */
+    private PlayerChannel firstUnanswered() {
+        for (int i = 0; i < moves.length; i++) {
+            if (moves[i] == null) return handlers[i];
+        }
+        return null;
+    } // end firstUnanswered
+
+    /**
+     * Helper method to find a player's position at the table
+     * @param handler the player's channel
+     * @return the index of the player, or -1 if they are not in this session
+     */
+    private int seatOf(PlayerChannel handler) {
+        for (int i = 0; i < handlers.length; i++) {
+            if (handlers[i] == handler) return i;
         }
+        return -1;
+    } // end seatOf
 
-        // If the player does not have the necessary letters for the word, inform and pass the turn
-        if (!player.canFormWord(word)) {
-            handler.sendMessage("You don't have the necessary letters. Turn passed.");
-            return false;
+    /**
+     * Helper method to deal every player a rack and prompt them at once, or end the game once the letter
+     * pool is empty or TURNS_PER_PLAYER rounds have been played. Called with the lock held.
+     */
+    private void beginRound() {
+        if (!connected || letterPool.isEmpty() || turns >= TURNS_PER_PLAYER * players.length) {
+            finish();
+            return;
         }
 
-        // If the word is invalid, inform and pass the turn
-        if (!WordValidator.isValidWord(word)) {
-            handler.sendMessage("Invalid word. Turn passed.");
-            return false;
+        round++;
+        movesIn = 0;
+        for (int i = 0; i < players.length; i++) {
+            moves[i] = null;
+            players[i].drawLetters(letterPool);
+            findBestWord(i);
+            handlers[i].queueTurnPrompt(players[i].getRack());
         }
 
-        player.playWord(word); // remove the used letters from the rack
-        player.updateScore(letterPool.getWordPoints(word)); // update the player's score
-        handler.sendMessage("Word accepted! Your score: " + player.getScore());
+        if (spectators.isWatched()) spectators.publish("Round " + round + ": every player is choosing a word.");
+        int thisRound = round;
+        if (gm != null) deadline = TimerWheel.SHARED.schedule(() -> gm.execute(() -> onRoundDeadline(thisRound)), TURN_DEADLINE_MILLIS, TimeUnit.MILLISECONDS);
+
+        // A player who has disconnected can never answer, so skip them straight away
+        for (int i = 0; i < handlers.length; i++) {
+            if (handlers[i].isClosed()) {
+                moves[i] = new Move(null, null, Protocol.RESULT_NO_WORD);
+                movesIn++;
+            }
+        }
+        if (movesIn == moves.length) closeRound();
+    } // end beginRound
 
+    /**
+     * Helper method to close a round that has timed out, skipping any player who has not answered.
+     * Run on the GameManager's executor, like onTurnDeadline.
+     * @param timedOutRound the round the deadline was set for
+     */
+    private void onRoundDeadline(int timedOutRound) {
+        lock.lock();
+        try {
+            if (finished || round != timedOutRound) return;
+            Metrics.TURNS_TIMED_OUT.add(moves.length - movesIn);
+            for (int i = 0; i < moves.length; i++) {
+                if (moves[i] == null) moves[i] = new Move(null, null, Protocol.RESULT_NO_WORD);
+            }
+            movesIn = moves.length;
+            closeRound();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    } // end onRoundDeadline
+
+    /**
+     * Helper method to apply every player's move and start the next round. Called with the lock held.
+     */
+    private void closeRound() {
+        if (deadline != null) deadline.cancel();
+        for (int i = 0; i < players.length && connected; i++) {
+            applyMove(players[i], handlers[i], moves[i].word, moves[i].scored, moves[i].result);
+        }
+        if (!connected) {
+            finish();
+            return;
+        }
+
+        turns += players.length;
+        Metrics.TURNS.add(players.length);
+        beginRound();
+    } // end closeRound
+
+    /**
+     * Getter for the dictionary version the session is played with
+     * @return the dictionary the session pinned when it started, or null if it has not started
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    } // end getDictionary
+
+    /**
+     * Getter for the seed of the session's letter pool
+     * @return the seed the session's letter draws were generated from
+     */
+    public long getSeed() {
+        return letterPool.getSeed();
+    } // end getSeed
+
+    /**
+     * Getter for the id of the session in the GameManager's registry
+     * @return the session id, or -1 if the session has not been registered
+     */
+    public long getId() {
+        return id;
+    } // end getId
+
+    /**
+     * Setter for the id of the session in the GameManager's registry
+     * @param id the session id
+     */
+    public void setId(long id) {
+        this.id = id;
+    } // end setId
+
+    /**
+     * Method to add a spectator to the game, who is told the players and scores so far and then
+     * sent every turn until the game ends
+     * @param spectator the client watching
+     * @return true if the spectator is watching, false if the game has already ended
+     */
+    public boolean watch(ClientHandler spectator) {
+        lock.lock();
+        try {
+            if (finished || !spectators.subscribe(spectator)) return false;
+            StringBuilder names = new StringBuilder();
+            for (int i = 0; i < players.length; i++) {
+                if (i > 0) names.append(" vs ");
+                names.append(players[i].getName());
+            }
+            spectator.queueMessage("You are watching session " + id + ": " + names + ". " + scoreLine());
+        } finally {
+            lock.unlock();
+        }
+        spectator.flush();
         return true;
+    } // end watch
+
+    /**
+     * Helper method to describe every player's score for spectators
+     * @return the scores, such as "Scores: ann 12, bob 9."
+     */
+    private String scoreLine() {
+        StringBuilder line = new StringBuilder("Scores: ");
+        for (int i = 0; i < players.length; i++) {
+            if (i > 0) line.append(", ");
+            line.append(players[i].getName()).append(' ').append(players[i].getScore());
+        }
+        return line.append('.').toString();
+    } // end scoreLine
+
+    /**
+     * Helper method to describe a move for spectators
+     * @param player the player who made the move
+     * @param word the normalized input, or null if none was received
+     * @param result the verdict from judge
+     * @param points the points the move scored
+     * @return the description
+     */
+    private String describeMove(Player player, String word, byte result, int points) {
+        switch (result) {
+            case Protocol.RESULT_ACCEPTED:
+                return player.getName() + " played \"" + word + "\" for " + points + " points. " + scoreLine();
+            case Protocol.RESULT_REDRAWN:
+                return player.getName() + " passed and redrew their letters.";
+            case Protocol.RESULT_MISSING_LETTERS:
+                return player.getName() + " tried \"" + word + "\" without the letters for it.";
+            case Protocol.RESULT_INVALID_WORD:
+                return player.getName() + " tried \"" + word + "\", which is not a word.";
+            default:
+                return player.getName() + " did not play a word.";
+        }
+    } // end describeMove
+
+    /**
+     * Method to end the game without a result and close every player's connection, used when the server shuts down
+     */
+    public void abort() {
+        abort("The server is shutting down.");
+    } // end abort
+
+    /**
+     * Helper method to end the game without a result, tell every player why, close their connections
+     * and remove the session from the GameManager
+     * @param reason the message sent to every player
+     */
+    private void abort(String reason) {
+        lock.lock();
+        try {
+            if (finished) return;
+            finished = true;
+            if (deadline != null) deadline.cancel();
+            for (PlayerChannel handler : handlers) {
+                handler.queueMessage(reason + " Closing the connection now.");
+            }
+            spectators.close(reason + " The game has been stopped.");
+        } finally {
+            lock.unlock();
+        }
+        flush();
+        for (PlayerChannel handler : handlers) {
+            handler.cleanup();
+        }
+        if (gm != null) gm.removeSession(this);
+    } // end abort
+
+    /**
+     * Getter for whether the game has ended
+     * @return true if the results have been sent, false otherwise
+     */
+    public boolean isFinished() {
+        lock.lock();
+        try {
+            return finished;
+        } finally {
+            lock.unlock();
+        }
+    } // end isFinished
+
+    /**
+     * Helper method to notify every player of the results, ranked by score, once the game has ended,
+     * then hand the result to the GameManager's result pipeline and remove the session from its registry
+     */
+    private void finish() {
+        if (finished) return;
+        finished = true;
+        if (gm != null) Metrics.SESSION_DURATION.record(System.nanoTime() - startedAt); // offline sessions are not measured
+        if (deadline != null) deadline.cancel();
+
+        // Game ended - notify players of results based on scores
+        int[] scores = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            scores[i] = players[i].getScore();
+        }
+
+        // Tell each player where they fell furthest short of the best word on their rack
+        for (int i = 0; i < players.length; i++) {
+            if (missedWords[i] != null) {
+                handlers[i].queueMessage("Your biggest missed chance: \"" + missedWords[i] + "\" would have scored "
+                        + letterPool.getWordPoints(missedWords[i]) + " points.");
+            }
+        }
+
+        // Each player's rank is one more than the number of players who outscored them, so tied players share a rank
+        int[] ranks = new int[players.length];
+        for (int i = 0; i < players.length; i++) {
+            int rank = 1;
+            int bestOpponent = Integer.MIN_VALUE;
+            for (int j = 0; j < players.length; j++) {
+                if (j == i) continue;
+                if (scores[j] > scores[i]) rank++;
+                bestOpponent = Math.max(bestOpponent, scores[j]);
+            }
+            ranks[i] = rank;
+            handlers[i].queueGameOver(scores[i], bestOpponent, rank, players.length);
+        }
+        if (spectators.isWatched()) spectators.close(standingsLine(scores, ranks));
+        if (gm == null) return; // an offline simulation reports nothing
+
+        // Only names and numbers leave the session, so nothing holds on to it once it is removed
+        String[] names = new String[players.length];
+        for (int i = 0; i < players.length; i++) {
+            names[i] = players[i].getName();
+        }
+        gm.submitResult(new GameResult(getSeed(), connected, names, scores, ranks));
+        gm.removeSession(this);
+    } // end finish
+
+    /**
+     * Helper method to describe the final standings for spectators
+     * @param scores the players' final scores
+     * @param ranks the players' finishing positions
+     * @return the standings, such as "Game over! Final standings: 1st ann 30, 2nd bob 21."
+     */
+    private String standingsLine(int[] scores, int[] ranks) {
+        StringBuilder line = new StringBuilder(connected ? "Game over! Final standings: " : "The game has ended early. Final standings: ");
+        boolean first = true;
+        for (int rank = 1; rank <= players.length; rank++) {
+            for (int i = 0; i < players.length; i++) {
+                if (ranks[i] != rank) continue;
+                if (!first) line.append(", ");
+                line.append(ClientHandler.ordinal(rank)).append(' ').append(players[i].getName()).append(' ').append(scores[i]);
+                first = false;
+            }
+        }
+        return line.append('.').toString();
+    } // end standingsLine
+
+    /**
+     * Helper method to allow a player to have their turn.
+     * They may play a word, or pass and redraw their letters
+     * If neither of those options are valid, they will be notified of the error and their turn will be skipped.
+     * @param player the player whose turn it is
+     * @param handler the channel to the player whose turn it is
+     * @param word the input received from the player
+     * @return true if a word was played, false otherwise
+     */
+    private boolean playWord(Player player, PlayerChannel handler, String word) {
+        word = ScoredWord.normalize(word); // trim the word and format to lowercase
+        ScoredWord scored = score(word);
+        byte result = judge(player.getLetterCounts(), word, scored);
+        applyMove(player, handler, word, scored, result);
+        return result == Protocol.RESULT_ACCEPTED;
     } // end playWord
 
+    /**
+     * Helper method to look up a player's word in the session's dictionary, whose WordCache validates
+     * and scores it the first time it is played
+     * @param word the normalized input, or null if none was received
+     * @return the scored word, or null if the input was not a word
+     */
+    private ScoredWord score(String word) {
+        if (word == null || word.equals("0") || word.equals("1")) return null;
+        long validationStart = System.nanoTime();
+        ScoredWord scored = dictionary.lookup(word);
+        Metrics.WORD_VALIDATION.record(System.nanoTime() - validationStart);
+        return scored;
+    } // end score
+
+    /**
+     * Helper method to decide what a player's input means without changing or reading any game state,
+     * so it can run outside the lock
+     * @param rack a copy of the player's letter counts, taken with the lock held
+     * @param word the normalized input, or null if none was received
+     * @param scored the scored word from score
+     * @return one of the Protocol result codes
+     */
+    private static byte judge(int[] rack, String word, ScoredWord scored) {
+        // If null, pass turn
+        if (word == null) return Protocol.RESULT_NO_WORD;
+
+        // The player has elected to quit, or to pass and redraw letters
+        if (word.equals("0")) return Protocol.RESULT_QUIT;
+        if (word.equals("1")) return Protocol.RESULT_REDRAWN;
+
+        // If the player does not have the necessary letters for the word, pass the turn
+        if (scored == null || !scored.canBeFormedFrom(rack)) return Protocol.RESULT_MISSING_LETTERS;
+
+        // If the word is invalid, pass the turn
+        return scored.isValid() ? Protocol.RESULT_ACCEPTED : Protocol.RESULT_INVALID_WORD;
+    } // end judge
+
+    /**
+     * Helper method to carry out a judged move and tell the player the outcome. Called with the lock held.
+     * @param player the player who made the move
+     * @param handler the channel to the player
+     * @param word the normalized input, or null if none was received
+     * @param scored the scored word from score, or null if the input was not a word
+     * @param result the verdict from judge
+     */
+    private void applyMove(Player player, PlayerChannel handler, String word, ScoredWord scored, byte result) {
+        // If the player has elected to quit, they leave the game. Once fewer than two players would be left,
+        // inform everyone and quit the game session
+        if (result == Protocol.RESULT_QUIT) {
+            int remaining = 0;
+            for (PlayerChannel other : handlers) {
+                if (other != handler && !other.isClosed()) remaining++;
+            }
+            if (remaining >= 2) {
+                handler.queueResult(Protocol.RESULT_QUIT, player.getScore());
+                handler.flush(); // the connection is closed next, so write the notice now
+                handler.cleanup();
+                for (PlayerChannel other : handlers) {
+                    if (other != handler) other.queueMessage(player.getName() + " has left the game.");
+                }
+                spectators.publish(player.getName() + " has left the game.");
+                return;
+            }
+            for (int i = 0; i < handlers.length; i++) {
+                handlers[i].queueResult(Protocol.RESULT_QUIT, players[i].getScore());
+            }
+            flush(); // the connections are closed next, so write the notice now
+            for (PlayerChannel other : handlers) {
+                other.cleanup();
+            }
+            spectators.publish(player.getName() + " has quit the game.");
+            connected = false; // the caller finishes the game, which removes the session
+            return;
+        }
+
+        // If the player has elected to redraw letters, allow them to do so
+        if (result == Protocol.RESULT_REDRAWN) {
+            player.redrawLetters(letterPool);
+        }
+
+        int points = 0;
+        if (result == Protocol.RESULT_ACCEPTED) {
+            if (gm != null) Metrics.markStartup(Metrics.STARTUP_FIRST_VALID_MOVE, "First valid move");
+            points = scored.getPoints();
+            player.playWord(scored); // remove the used letters from the rack
+            player.updateScore(points); // update the player's score
+        }
+        trackMissedChance(seatOf(handler), points);
+        if (gm != null) gm.recordTurn(this, turns, player, result, word, points);
+        handler.queueResult(result, player.getScore());
+        if (spectators.isWatched()) spectators.publish(describeMove(player, word, result, points));
+    } // end applyMove
+
 } // end class
@@ -0,0 +1,425 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameSimulator
+ *
+ * This class contains an offline engine that plays GameSession logic without a network. Each simulated game
+ * is a session with no GameManager, whose players are connectionless PlayerChannels answering every prompt
+ * from a MoveSource, and whose letter draws come from a seed, so a game is fully determined by its seed and moves.
+ * Games are spread over every core with a ForkJoinPool, each task playing a range of games on its own thread.
+ *
+ * The engine has three uses. "record" plays games with the greedy bot, which plays the best word on its rack,
+ * and writes a script of each game to a file: its seed, player count, final scores and every input in the
+ * order the session asked for it. "replay" plays each script back through the current game logic and reports
+ * any game whose scores differ, so a change to scoring, drawing or validation can be regression-tested.
+ * "bench" measures raw game-logic throughput, apart from networking, in games per minute.
+ *
+ * Usage: java GameSimulator bench [games] [players] [threads]
+ *        java GameSimulator record [file] [games] [players] [firstSeed]
+ *        java GameSimulator replay [file] [threads]
+ * Run from the directory holding words_alpha.txt, as the validator loads it from the working directory.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+public class GameSimulator {
+
+    private static final int GAMES_PER_TASK = 256; // games a fork-join task plays itself rather than splitting further
+    private static final String NO_INPUT = "-"; // script token for a prompt that received no input
+    private static final String DEFAULT_SCRIPT_FILE = "games.script"; // file recorded to and replayed from by default
+    private static final int MISMATCHES_SHOWN = 10; // most differing games printed by a replay
+
+    /**
+     * Supplies the input for each prompt of a simulated game
+     */
+    public interface MoveSource {
+        /**
+         * Method to choose the input for a prompt
+         * @param player the player being prompted, holding their current rack
+         * @return the input, or null for no input
+         */
+        String nextMove(Player player);
+    } // end MoveSource
+
+    /**
+     * The greedy bot, which plays the highest-scoring word on its rack or passes when none can be formed,
+     * optionally recording each move as it is made
+     */
+    public static final class GreedyMoves implements MoveSource {
+        private final List<String> recorded; // the moves made, in order, or null if not recording
+        private int count = 0; // the number of moves made
+
+        /**
+         * Constructor to create a greedy bot
+         * @param record true to keep a list of the moves made
+         */
+        public GreedyMoves(boolean record) {
+            this.recorded = record ? new ArrayList<>() : null;
+        } // end constructor
+
+        @Override
+        public String nextMove(Player player) {
+            String word = WordValidator.bestWord(player.getLetterCounts());
+            String move = word != null ? word : "1";
+            count++;
+            if (recorded != null) recorded.add(move);
+            return move;
+        } // end nextMove
+
+        /**
+         * Getter for the moves made
+         * @return the moves, in the order they were made, or null if not recording
+         */
+        public List<String> getRecorded() {
+            return recorded;
+        } // end getRecorded
+
+        /**
+         * Getter for the number of moves made
+         * @return the move count
+         */
+        public int getCount() {
+            return count;
+        } // end getCount
+    } // end GreedyMoves
+
+    /**
+     * Plays back a script of moves in order, then sends no input once the script runs out
+     */
+    public static final class ScriptedMoves implements MoveSource {
+        private final String[] moves; // the moves to play
+        private int next = 0; // index of the next move
+
+        /**
+         * Constructor to play back a script of moves
+         * @param moves the moves, where NO_INPUT stands for a prompt with no input
+         */
+        public ScriptedMoves(String[] moves) {
+            this.moves = moves;
+        } // end constructor
+
+        @Override
+        public String nextMove(Player player) {
+            if (next == moves.length) return null;
+            String move = moves[next++];
+            return move.equals(NO_INPUT) ? null : move;
+        } // end nextMove
+    } // end ScriptedMoves
+
+    /**
+     * A recorded game: its seed, the number of players, their final scores and every input in the order
+     * the session asked for it. Written one game per line as "seed players score,score move move ...".
+     */
+    public static final class GameScript {
+        private final long seed;
+        private final int players;
+        private final int[] scores;
+        private final String[] moves;
+
+        /**
+         * Constructor to create a script
+         * @param seed the seed of the game's letter pool
+         * @param players the number of players
+         * @param scores the players' final scores, in turn order
+         * @param moves the inputs, in the order they were asked for
+         */
+        public GameScript(long seed, int players, int[] scores, String[] moves) {
+            this.seed = seed;
+            this.players = players;
+            this.scores = scores;
+            this.moves = moves;
+        } // end constructor
+
+        /**
+         * Method to read a script from its line
+         * @param line the line
+         * @return the script
+         * @throws IllegalArgumentException if the line is not a script
+         */
+        public static GameScript parse(String line) {
+            String[] fields = line.trim().split(" ");
+            if (fields.length < 3) throw new IllegalArgumentException("Not a game script: " + line);
+            String[] scoreFields = fields[2].split(",");
+            int[] scores = new int[scoreFields.length];
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] = Integer.parseInt(scoreFields[i]);
+            }
+            return new GameScript(Long.parseLong(fields[0]), Integer.parseInt(fields[1]), scores, Arrays.copyOfRange(fields, 3, fields.length));
+        } // end parse
+
+        /**
+         * Method to write the script as its line
+         * @return the line
+         */
+        public String format() {
+            StringBuilder line = new StringBuilder().append(seed).append(' ').append(players).append(' ');
+            for (int i = 0; i < scores.length; i++) {
+                if (i > 0) line.append(',');
+                line.append(scores[i]);
+            }
+            for (String move : moves) {
+                line.append(' ').append(move == null || move.isEmpty() ? NO_INPUT : move);
+            }
+            return line.toString();
+        } // end format
+    } // end GameScript
+
+    /**
+     * A PlayerChannel with no connection. It answers each prompt from its game's MoveSource and
+     * discards everything the session sends it.
+     */
+    private static final class SimulatedClient implements PlayerChannel {
+        private final Player player;
+        private final MoveSource source;
+
+        private SimulatedClient(String name, MoveSource source) {
+            this.player = new Player(name);
+            this.source = source;
+        }
+
+        @Override
+        public void queueMessage(String message) {}
+
+        @Override
+        public void queueTurnPrompt(List<Character> rack) {}
+
+        @Override
+        public void queueResult(byte code, int score) {}
+
+        @Override
+        public void queueGameOver(int score, int opponentScore, int rank, int players) {}
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public String receiveMessage() {
+            return source.nextMove(player);
+        }
+
+        @Override
+        public void cleanup() {}
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public boolean isEventDriven() {
+            return false;
+        }
+
+        @Override
+        public void setSession(GameTable session) {}
+
+        @Override
+        public Player getPlayer() {
+            return player;
+        }
+    } // end SimulatedClient
+
+    /**
+     * Totals over a range of simulated games, combined as fork-join tasks complete
+     */
+    private static final class Totals {
+        private long games = 0;
+        private long moves = 0;
+        private long points = 0;
+        private long mismatches = 0;
+
+        private Totals add(Totals other) {
+            games += other.games;
+            moves += other.moves;
+            points += other.points;
+            mismatches += other.mismatches;
+            return this;
+        }
+    } // end Totals
+
+    /**
+     * Plays one game of a range, adding its outcome to the totals
+     */
+    private interface GameRunner {
+        void run(int index, Totals totals);
+    } // end GameRunner
+
+    /**
+     * Plays a range of games, splitting it in half until each part is small enough to play directly
+     */
+    private static final class SimulationTask extends RecursiveTask<Totals> {
+        private static final long serialVersionUID = 1L;
+        private final int from;
+        private final int to;
+        private final transient GameRunner runner;
+
+        private SimulationTask(int from, int to, GameRunner runner) {
+            this.from = from;
+            this.to = to;
+            this.runner = runner;
+        }
+
+        @Override
+        protected Totals compute() {
+            if (to - from <= GAMES_PER_TASK) {
+                Totals totals = new Totals();
+                for (int i = from; i < to; i++) {
+                    runner.run(i, totals);
+                }
+                return totals;
+            }
+            int middle = (from + to) >>> 1;
+            SimulationTask left = new SimulationTask(from, middle, runner);
+            left.fork();
+            Totals right = new SimulationTask(middle, to, runner).compute();
+            return right.add(left.join());
+        }
+    } // end SimulationTask
+
+    /**
+     * Method to play one game offline on the calling thread
+     * @param seed the seed for the game's letter pool
+     * @param players the number of players, from GameSession.MIN_PLAYERS to GameSession.MAX_PLAYERS
+     * @param source the source of every player's moves
+     * @return the players' final scores, in turn order
+     */
+    public static int[] play(long seed, int players, MoveSource source) {
+        SimulatedClient[] clients = new SimulatedClient[players];
+        for (int i = 0; i < players; i++) {
+            clients[i] = new SimulatedClient("p" + (i + 1), source);
+        }
+        new GameSession(clients, null, seed).run();
+
+        int[] scores = new int[players];
+        for (int i = 0; i < players; i++) {
+            scores[i] = clients[i].getPlayer().getScore();
+        }
+        return scores;
+    } // end play
+
+    /**
+     * Method to play one game with the greedy bot and record its script
+     * @param seed the seed for the game's letter pool
+     * @param players the number of players
+     * @return the script of the game
+     */
+    public static GameScript record(long seed, int players) {
+        GreedyMoves source = new GreedyMoves(true);
+        int[] scores = play(seed, players, source);
+        return new GameScript(seed, players, scores, source.getRecorded().toArray(new String[0]));
+    } // end record
+
+    /**
+     * Method to play a script back through the current game logic
+     * @param script the script
+     * @return the players' final scores, which match the script's unless the game logic has changed
+     */
+    public static int[] replay(GameScript script) {
+        return play(script.seed, script.players, new ScriptedMoves(script.moves));
+    } // end replay
+
+    /**
+     * Method to play games with the greedy bot across a pool and report the throughput
+     * @param pool the pool to play on
+     * @param games the number of games
+     * @param players the number of players in each game
+     */
+    public static void bench(ForkJoinPool pool, int games, int players) {
+        GameRunner greedy = (index, totals) -> {
+            GreedyMoves source = new GreedyMoves(false);
+            for (int score : play(index, players, source)) {
+                totals.points += score;
+            }
+            totals.moves += source.getCount();
+            totals.games++;
+        };
+        pool.invoke(new SimulationTask(0, Math.max(1, games / 10), greedy)); // warm-up
+
+        long start = System.nanoTime();
+        Totals totals = pool.invoke(new SimulationTask(0, games, greedy));
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("%d games of %d players on %d threads in %.2f s: %.0f games/min, %.0f moves/s, %.2f points per player%n",
+                totals.games, players, pool.getParallelism(), seconds, totals.games * 60 / seconds, totals.moves / seconds,
+                (double) totals.points / (totals.games * players));
+    } // end bench
+
+    /**
+     * Main method to record, replay or benchmark simulated games
+     * @param args the mode, then its arguments as described in the class comment
+     * @throws IOException if a script file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        String mode = args.length > 0 ? args[0] : "bench";
+        switch (mode) {
+            case "bench": {
+                int games = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+                int players = args.length > 2 ? Integer.parseInt(args[2]) : GameSession.MIN_PLAYERS;
+                int threads = args.length > 3 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+                bench(new ForkJoinPool(threads), games, players);
+                break;
+            }
+            case "record": {
+                Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_SCRIPT_FILE);
+                int games = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+                int players = args.length > 3 ? Integer.parseInt(args[3]) : GameSession.MIN_PLAYERS;
+                long firstSeed = args.length > 4 ? Long.parseLong(args[4]) : 1;
+                GameScript[] scripts = new GameScript[games];
+                new ForkJoinPool().invoke(new SimulationTask(0, games, (index, totals) -> scripts[index] = record(firstSeed + index, players)));
+                try (BufferedWriter out = Files.newBufferedWriter(file)) {
+                    for (GameScript script : scripts) {
+                        out.write(script.format());
+                        out.newLine();
+                    }
+                }
+                System.out.println("Recorded " + games + " games of " + players + " players to " + file);
+                break;
+            }
+            case "replay": {
+                Path file = Paths.get(args.length > 1 ? args[1] : DEFAULT_SCRIPT_FILE);
+                int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+                List<GameScript> scripts = new ArrayList<>();
+                for (String line : Files.readAllLines(file)) {
+                    if (!line.isBlank() && !line.startsWith("#")) scripts.add(GameScript.parse(line));
+                }
+                Queue<String> mismatches = new ConcurrentLinkedQueue<>();
+                long start = System.nanoTime();
+                Totals totals = new ForkJoinPool(threads).invoke(new SimulationTask(0, scripts.size(), (index, sum) -> {
+                    GameScript script = scripts.get(index);
+                    int[] scores = replay(script);
+                    sum.games++;
+                    if (!Arrays.equals(scores, script.scores)) {
+                        sum.mismatches++;
+                        if (mismatches.size() < MISMATCHES_SHOWN) {
+                            mismatches.add("seed " + script.seed + ": recorded " + Arrays.toString(script.scores) + ", replayed " + Arrays.toString(scores));
+                        }
+                    }
+                }));
+                System.out.printf("Replayed %d games in %.2f s: %d differ%n", totals.games, (System.nanoTime() - start) / 1e9, totals.mismatches);
+                for (String mismatch : mismatches) {
+                    System.out.println("  " + mismatch);
+                }
+                if (totals.mismatches > 0) System.exit(1);
+                break;
+            }
+            default:
+                System.out.println("Usage: java GameSimulator bench [games] [players] [threads]");
+                System.out.println("       java GameSimulator record [file] [games] [players] [firstSeed]");
+                System.out.println("       java GameSimulator replay [file] [threads]");
+        }
+    } // end main
+
+} // end class
@@ -0,0 +1,677 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameStore
+ *
+ * This class contains the server's local, crash-safe store of finished games, the moves played in them,
+ * and each player's cumulative stats. Records are appended to a memory-mapped log, and a compacted snapshot
+ * of the stats is written periodically so the log never has to be replayed from the beginning.
+ *
+ * Callers only hand records to a queue, so nothing is written on the turn path. A single writer thread
+ * drains the queue in batches, appends each batch to the log and forces it to disk once (a group commit),
+ * then applies the batch to the in-memory stats, which can be read at any time without locking.
+ *
+ * Each log record is a 4-byte length, a 4-byte CRC32C and a 1-byte type, followed by the payload, where
+ * the length and checksum cover the type and payload. A zero length marks the end of the log, and a record
+ * whose checksum does not match is a torn write from a crash and ends the log the same way.
+ * Logs are numbered by generation. When a log fills up, or the snapshot interval has passed, the writer
+ * moves on to the next generation, writes a snapshot covering every earlier one to a temporary file,
+ * moves it into place atomically and deletes the logs it covers. Recovery loads the snapshot and replays
+ * the logs after it, then compacts them into a fresh snapshot before accepting new records.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+public class GameStore {
+
+    private static final int SNAPSHOT_MAGIC = 0x57534E50; // "WSNP"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final String SNAPSHOT_FILE = "stats.snapshot"; // name of the snapshot in the store directory
+    private static final String LOG_PREFIX = "games-"; // log files are named games-<generation>.log
+    private static final String LOG_SUFFIX = ".log";
+
+    private static final int RECORD_HEADER_BYTES = 9; // length, checksum and type
+    private static final byte TURN = 1; // a move played in a game
+    private static final byte MATCH = 2; // the final standings of a game
+
+    public static final int LOG_BYTES = 16 * 1024 * 1024; // size of each mapped log file
+    private static final long SNAPSHOT_INTERVAL_MILLIS = 60_000; // longest time between snapshots while records arrive
+    private static final int QUEUE_CAPACITY = 65_536; // records waiting for the writer before new ones are dropped
+    private static final int MAX_BATCH = 4096; // most records written in one group commit
+    private static final long POLL_MILLIS = 100; // longest the writer waits for a record before checking if it should stop
+
+    private final Path directory; // the directory holding the snapshot and logs
+    private final BlockingQueue<Record> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // records waiting to be written
+    private final Map<String, PlayerStats> stats = new ConcurrentHashMap<>(); // cumulative stats by player name
+    private final AtomicLong dropped = new AtomicLong(); // records dropped because the queue was full
+    private final Thread writer; // the thread that owns the log
+    private volatile boolean running = true; // cleared once the store is closed
+
+    // Log state, owned by the writer thread once recovery is done
+    private long generation; // generation of the log being appended to
+    private FileChannel logChannel; // channel of the log being appended to
+    private MappedByteBuffer log; // mapping of the log being appended to
+    private long lastSnapshotAt = System.nanoTime(); // when the last snapshot was written
+    private boolean dirty = false; // flag for if records have been written since the last snapshot
+    private long matches = 0; // games recorded in total
+    private long turns = 0; // moves recorded in total
+
+    /**
+     * A player's cumulative stats. Instances are immutable and replaced as games are recorded.
+     */
+    public static final class PlayerStats {
+        private final int games;
+        private final int wins;
+        private final int ties;
+        private final long totalPoints;
+        private final int bestScore;
+
+        private PlayerStats(int games, int wins, int ties, long totalPoints, int bestScore) {
+            this.games = games;
+            this.wins = wins;
+            this.ties = ties;
+            this.totalPoints = totalPoints;
+            this.bestScore = bestScore;
+        }
+
+        public int getGames() {
+            return games;
+        }
+
+        public int getWins() {
+            return wins;
+        }
+
+        public int getTies() {
+            return ties;
+        }
+
+        public long getTotalPoints() {
+            return totalPoints;
+        }
+
+        public int getBestScore() {
+            return bestScore;
+        }
+    } // end PlayerStats
+
+    /**
+     * A record waiting to be written
+     */
+    private abstract static class Record {
+        /**
+         * Method to write the record's payload
+         * @param out the buffer to write to
+         */
+        abstract void writePayload(ByteBuffer out);
+
+        /**
+         * Getter for the record type
+         * @return TURN or MATCH
+         */
+        abstract byte type();
+    } // end Record
+
+    /**
+     * A move played in a game
+     */
+    private static final class Turn extends Record {
+        private final long seed;
+        private final int turn;
+        private final byte[] name;
+        private final byte result;
+        private final byte[] word;
+        private final int points;
+
+        private Turn(long seed, int turn, String name, byte result, String word, int points) {
+            this.seed = seed;
+            this.turn = turn;
+            this.name = utf8(name);
+            this.result = result;
+            this.word = word == null ? new byte[0] : utf8(word);
+            this.points = points;
+        }
+
+        @Override
+        void writePayload(ByteBuffer out) {
+            out.putLong(seed).putInt(turn);
+            putBytes(out, name);
+            out.put(result);
+            putBytes(out, word);
+            out.putInt(points);
+        }
+
+        @Override
+        byte type() {
+            return TURN;
+        }
+    } // end Turn
+
+    /**
+     * The final standings of a game
+     */
+    private static final class Match extends Record {
+        private final long seed;
+        private final long endedAtMillis;
+        private final boolean completed;
+        private final byte[][] names;
+        private final int[] scores;
+        private final int[] ranks;
+
+        private Match(long seed, long endedAtMillis, boolean completed, byte[][] names, int[] scores, int[] ranks) {
+            this.seed = seed;
+            this.endedAtMillis = endedAtMillis;
+            this.completed = completed;
+            this.names = names;
+            this.scores = scores;
+            this.ranks = ranks;
+        }
+
+        @Override
+        void writePayload(ByteBuffer out) {
+            out.putLong(seed).putLong(endedAtMillis).put((byte) (completed ? 1 : 0)).put((byte) names.length);
+            for (int i = 0; i < names.length; i++) {
+                putBytes(out, names[i]);
+                out.putInt(scores[i]).put((byte) ranks[i]);
+            }
+        }
+
+        @Override
+        byte type() {
+            return MATCH;
+        }
+
+        /**
+         * Helper method to read a MATCH payload
+         * @param in the buffer positioned at the payload
+         * @return the match
+         */
+        private static Match read(ByteBuffer in) {
+            long seed = in.getLong();
+            long endedAtMillis = in.getLong();
+            boolean completed = in.get() != 0;
+            int n = in.get();
+            byte[][] names = new byte[n][];
+            int[] scores = new int[n];
+            int[] ranks = new int[n];
+            for (int i = 0; i < n; i++) {
+                names[i] = getBytes(in);
+                scores[i] = in.getInt();
+                ranks[i] = in.get();
+            }
+            return new Match(seed, endedAtMillis, completed, names, scores, ranks);
+        }
+    } // end Match
+
+    /**
+     * Constructor to open the store in a directory, recovering its state, and start the writer thread
+     * @param directory the directory holding the store, created if it does not exist
+     * @throws IOException if the store cannot be read or written
+     */
+    public GameStore(Path directory) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        recover();
+
+        writer = new Thread(this::run, "wordsmith-store");
+        writer.setDaemon(true);
+        writer.start();
+    } // end constructor
+
+    /**
+     * Method to record a move played in a game. Returns at once; the record is written by the writer thread.
+     * @param seed the seed of the game's letter pool, which identifies the game
+     * @param turn the number of the turn in the game, from 0
+     * @param name the name of the player who moved
+     * @param result the Protocol result code of the move
+     * @param word the word played, or null if none was received
+     * @param points the points the move scored
+     */
+    public void recordTurn(long seed, int turn, String name, byte result, String word, int points) {
+        offer(new Turn(seed, turn, name, result, word, points));
+    } // end recordTurn
+
+    /**
+     * Method to record the final standings of a game. Returns at once; the record is written by the writer thread.
+     * Games that were abandoned are kept in the log, but only completed games count toward player stats.
+     * @param seed the seed of the game's letter pool, which identifies the game
+     * @param completed true if the game was played to the end
+     * @param names the players' names
+     * @param scores the players' final scores
+     * @param ranks the players' finishing positions, where tied players share a position
+     */
+    public void recordMatch(long seed, boolean completed, String[] names, int[] scores, int[] ranks) {
+        byte[][] encoded = new byte[names.length][];
+        for (int i = 0; i < names.length; i++) {
+            encoded[i] = utf8(names[i]);
+        }
+        offer(new Match(seed, System.currentTimeMillis(), completed, encoded, scores.clone(), ranks.clone()));
+    } // end recordMatch
+
+    /**
+     * Getter for a player's cumulative stats
+     * @param name the player's name
+     * @return the player's stats, or null if they have not completed a game
+     */
+    public PlayerStats getStats(String name) {
+        return stats.get(name);
+    } // end getStats
+
+    /**
+     * Getter for the number of records dropped because the writer could not keep up
+     * @return the dropped record count
+     */
+    public long getDroppedCount() {
+        return dropped.get();
+    } // end getDroppedCount
+
+    /**
+     * Method to stop accepting records, write every record already queued and take a final snapshot
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        writer.join();
+    } // end close
+
+    /**
+     * Helper method to queue a record for the writer, dropping it if the queue is full rather than blocking a turn
+     * @param record the record
+     */
+    private void offer(Record record) {
+        if (!running || !queue.offer(record)) {
+            dropped.incrementAndGet();
+            Metrics.STORE_DROPPED.increment();
+        }
+    } // end offer
+
+    /**
+     * Helper method run by the writer thread. Writes each batch of queued records with one force to disk,
+     * and takes a snapshot when the interval has passed.
+     */
+    private void run() {
+        List<Record> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                Record first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, MAX_BATCH - 1);
+                }
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                if (!batch.isEmpty()) write(batch);
+                if (dirty && System.nanoTime() - lastSnapshotAt > TimeUnit.MILLISECONDS.toNanos(SNAPSHOT_INTERVAL_MILLIS)) {
+                    roll();
+                }
+            } catch (IOException e) {
+                System.err.println("Error writing game store: " + e.getMessage());
+            }
+            batch.clear();
+        }
+        try {
+            if (dirty) roll();
+            log.force();
+            logChannel.close();
+        } catch (IOException e) {
+            System.err.println("Error closing game store: " + e.getMessage());
+        }
+    } // end run
+
+    /**
+     * Helper method to append a batch of records to the log, force them to disk together, then apply them.
+     * Records written before the log fills up are applied before it is rolled, so the snapshot includes them.
+     * @param batch the records
+     * @throws IOException if the log cannot be written
+     */
+    private void write(List<Record> batch) throws IOException {
+        long start = System.nanoTime();
+        int from = log.position();
+        int applied = 0; // records of the batch in the stats so far
+        for (int i = 0; i < batch.size(); i++) {
+            Record record = batch.get(i);
+            if (!append(record)) {
+                log.force(from, log.position() - from);
+                // The records already in this log must be in the snapshot that replaces it
+                while (applied < i) {
+                    apply(batch.get(applied++));
+                }
+                roll();
+                from = log.position();
+                if (!append(record)) throw new IOException("Record larger than a log file");
+            }
+        }
+        log.force(from, log.position() - from);
+        Metrics.STORE_COMMIT.record(System.nanoTime() - start);
+        Metrics.STORE_RECORDS.add(batch.size());
+
+        while (applied < batch.size()) {
+            apply(batch.get(applied++));
+        }
+        dirty = true;
+    } // end write
+
+    /**
+     * Helper method to append one record to the log, leaving room for the zero length that ends it
+     * @param record the record
+     * @return true if the record was appended, false if the log is full
+     */
+    private boolean append(Record record) {
+        int start = log.position();
+        if (log.remaining() < RECORD_HEADER_BYTES + 4) return false;
+        try {
+            log.position(start + 8);
+            log.put(record.type());
+            record.writePayload(log);
+            if (log.remaining() < 4) throw new BufferOverflowException();
+        } catch (BufferOverflowException e) {
+            log.position(start);
+            return false;
+        }
+        int end = log.position();
+        int length = end - start - 8;
+        CRC32C crc = new CRC32C();
+        crc.update(log.duplicate().position(start + 8).limit(end));
+        log.putInt(start, length);
+        log.putInt(start + 4, (int) crc.getValue());
+        return true;
+    } // end append
+
+    /**
+     * Helper method to update the in-memory state with a record that has been written
+     * @param record the record
+     */
+    private void apply(Record record) {
+        if (record instanceof Turn) {
+            turns++;
+            return;
+        }
+        Match match = (Match) record;
+        matches++;
+        if (!match.completed) return;
+        int winners = 0;
+        for (int rank : match.ranks) {
+            if (rank == 1) winners++;
+        }
+        for (int i = 0; i < match.names.length; i++) {
+            String name = new String(match.names[i], StandardCharsets.UTF_8);
+            boolean first = match.ranks[i] == 1;
+            int score = match.scores[i];
+            stats.merge(name, new PlayerStats(1, first && winners == 1 ? 1 : 0, first && winners > 1 ? 1 : 0, score, score),
+                    (old, game) -> new PlayerStats(old.games + 1, old.wins + game.wins, old.ties + game.ties,
+                            old.totalPoints + score, Math.max(old.bestScore, score)));
+        }
+    } // end apply
+
+    /**
+     * Helper method to move on to the next log generation, then snapshot every earlier generation and delete them
+     * @throws IOException if the new log or the snapshot cannot be written
+     */
+    private void roll() throws IOException {
+        long covered = generation;
+        if (log != null) {
+            log.force();
+            logChannel.close();
+        }
+        openLog(covered + 1);
+        writeSnapshot(covered);
+        deleteLogsThrough(covered);
+        lastSnapshotAt = System.nanoTime();
+        dirty = false;
+    } // end roll
+
+    /**
+     * Helper method to map a new, empty log file
+     * @param newGeneration the generation of the log
+     * @throws IOException if the file cannot be created
+     */
+    private void openLog(long newGeneration) throws IOException {
+        generation = newGeneration;
+        logChannel = FileChannel.open(logPath(newGeneration), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, LOG_BYTES);
+    } // end openLog
+
+    /**
+     * Helper method to write the stats to a temporary file and move it over the snapshot atomically
+     * @param covered the last log generation the snapshot includes
+     * @throws IOException if the snapshot cannot be written
+     */
+    private void writeSnapshot(long covered) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(covered);
+        out.writeLong(matches);
+        out.writeLong(turns);
+        out.writeInt(stats.size());
+        for (Map.Entry<String, PlayerStats> entry : stats.entrySet()) {
+            PlayerStats player = entry.getValue();
+            out.writeUTF(entry.getKey());
+            out.writeInt(player.games);
+            out.writeInt(player.wins);
+            out.writeInt(player.ties);
+            out.writeLong(player.totalPoints);
+            out.writeInt(player.bestScore);
+        }
+        CRC32C crc = new CRC32C();
+        crc.update(bytes.toByteArray());
+        out.writeInt((int) crc.getValue());
+
+        Path tmp = Files.createTempFile(directory, SNAPSHOT_FILE, ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+            while (buffer.hasRemaining()) channel.write(buffer);
+            channel.force(true);
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } // end writeSnapshot
+
+    /**
+     * Helper method to load the snapshot, if there is a valid one
+     * @return the last log generation the snapshot includes, or 0 if there is no snapshot
+     * @throws IOException if the snapshot exists but cannot be read
+     */
+    private long readSnapshot() throws IOException {
+        Path path = directory.resolve(SNAPSHOT_FILE);
+        if (!Files.exists(path)) return 0;
+        byte[] bytes = Files.readAllBytes(path);
+        CRC32C crc = new CRC32C();
+        crc.update(bytes, 0, Math.max(0, bytes.length - 4));
+        if (bytes.length < 4 || ByteBuffer.wrap(bytes, bytes.length - 4, 4).getInt() != (int) crc.getValue()) {
+            throw new IOException("Corrupt snapshot: " + path);
+        }
+        try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(bytes, 0, bytes.length - 4))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Not a game store snapshot: " + path);
+            }
+            long covered = in.readLong();
+            matches = in.readLong();
+            turns = in.readLong();
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                stats.put(name, new PlayerStats(in.readInt(), in.readInt(), in.readInt(), in.readLong(), in.readInt()));
+            }
+            return covered;
+        }
+    } // end readSnapshot
+
+    /**
+     * Helper method to rebuild the state from the snapshot and the logs after it, then compact them
+     * @throws IOException if the store cannot be read or written
+     */
+    private void recover() throws IOException {
+        long start = System.nanoTime();
+        long covered = readSnapshot();
+        List<Long> generations = logGenerations();
+        long replayed = 0;
+        for (long logGeneration : generations) {
+            if (logGeneration > covered) replayed += replay(logPath(logGeneration));
+        }
+        generation = generations.isEmpty() ? covered : Math.max(covered, generations.get(generations.size() - 1));
+
+        // Compact what was replayed, so the next start only reads the snapshot
+        roll();
+        System.out.println("Game store recovered " + stats.size() + " players and " + matches + " games ("
+                + replayed + " records replayed) in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+    } // end recover
+
+    /**
+     * Helper method to apply every intact record in a log, stopping at the end of the log or a torn record
+     * @param path the log file
+     * @return the number of records applied
+     * @throws IOException if the log cannot be read
+     */
+    private long replay(Path path) throws IOException {
+        long applied = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            CRC32C crc = new CRC32C();
+            while (in.remaining() >= RECORD_HEADER_BYTES) {
+                int start = in.position();
+                int length = in.getInt();
+                int checksum = in.getInt();
+                if (length <= 0 || length > in.remaining()) break;
+                ByteBuffer body = in.slice().limit(length);
+                crc.reset();
+                crc.update(body.duplicate());
+                if ((int) crc.getValue() != checksum) break; // torn by a crash mid-write
+
+                byte type = body.get();
+                try {
+                    if (type == MATCH) {
+                        apply(Match.read(body));
+                    } else {
+                        turns++; // only the turn count is kept in memory
+                    }
+                } catch (RuntimeException e) {
+                    break; // a malformed record ends the log like a torn one
+                }
+                in.position(start + 8 + length);
+                applied++;
+            }
+        }
+        return applied;
+    } // end replay
+
+    /**
+     * Helper method to list the generations of the log files in the store, in order
+     * @return the generations
+     * @throws IOException if the directory cannot be listed
+     */
+    private List<Long> logGenerations() throws IOException {
+        List<Long> generations = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, LOG_PREFIX + "*" + LOG_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                try {
+                    generations.add(Long.parseLong(name.substring(LOG_PREFIX.length(), name.length() - LOG_SUFFIX.length())));
+                } catch (NumberFormatException e) {
+                    // not a log file
+                }
+            }
+        }
+        Collections.sort(generations);
+        return generations;
+    } // end logGenerations
+
+    /**
+     * Helper method to delete the log files a snapshot covers
+     * @param covered the last generation to delete
+     * @throws IOException if the directory cannot be listed
+     */
+    private void deleteLogsThrough(long covered) throws IOException {
+        for (long logGeneration : logGenerations()) {
+            if (logGeneration <= covered) Files.deleteIfExists(logPath(logGeneration));
+        }
+    } // end deleteLogsThrough
+
+    /**
+     * Helper method to build the path of a log file
+     * @param logGeneration the generation of the log
+     * @return the path
+     */
+    private Path logPath(long logGeneration) {
+        return directory.resolve(LOG_PREFIX + logGeneration + LOG_SUFFIX);
+    } // end logPath
+
+    /**
+     * Helper method to encode a string as UTF-8, cut to what a 2-byte length can hold
+     * @param text the string
+     * @return the encoded bytes
+     */
+    private static byte[] utf8(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > Short.MAX_VALUE ? Arrays.copyOf(bytes, Short.MAX_VALUE) : bytes;
+    } // end utf8
+
+    /**
+     * Helper method to write bytes preceded by their 2-byte length
+     * @param out the buffer to write to
+     * @param bytes the bytes
+     */
+    private static void putBytes(ByteBuffer out, byte[] bytes) {
+        out.putShort((short) bytes.length).put(bytes);
+    } // end putBytes
+
+    /**
+     * Helper method to read bytes preceded by their 2-byte length
+     * @param in the buffer to read from
+     * @return the bytes
+     */
+    private static byte[] getBytes(ByteBuffer in) {
+        byte[] bytes = new byte[in.getShort()];
+        in.get(bytes);
+        return bytes;
+    } // end getBytes
+
+    /**
+     * Main method to recover a store and print what it holds, and how long recovery took
+     * @param args optional store directory
+     * @throws Exception if the store cannot be opened
+     */
+    public static void main(String[] args) throws Exception {
+        GameStore store = new GameStore(Paths.get(args.length > 0 ? args[0] : WordsmithServer.DEFAULT_STORE_DIRECTORY));
+        List<Map.Entry<String, PlayerStats>> players = new ArrayList<>(store.stats.entrySet());
+        players.sort((a, b) -> Integer.compare(b.getValue().wins, a.getValue().wins));
+        for (Map.Entry<String, PlayerStats> entry : players.subList(0, Math.min(10, players.size()))) {
+            PlayerStats player = entry.getValue();
+            System.out.println(entry.getKey() + ": " + player.games + " games, " + player.wins + " wins, "
+                    + player.ties + " ties, best score " + player.bestScore);
+        }
+        store.close();
+    } // end main
+
+} // end class
@@ -0,0 +1,113 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameStoreCrashTest
+ *
+ * This class contains a crash test of the GameStore. A child JVM records games with long player names, enough
+ * to fill a log file partway through a batch, waits for them to be written and halts without closing the store.
+ * The store is then recovered in this JVM, and every game recorded must still be counted in the players' stats.
+ *
+ * Usage: java GameStoreCrashTest [games]
+ * Exits with status 1 if any game was lost.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+public class GameStoreCrashTest {
+
+    private static final int NAME_CHARS = 20000; // length of each player's name, so a few hundred games fill a log
+    private static final long WRITE_TIMEOUT_MILLIS = 30_000; // longest the child waits for its games to be written
+
+    /**
+     * Main method to run the crash test, or to record the games and crash when run as the child
+     * @param args optional game count, or --crash followed by the store directory and game count in the child
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length > 0 && args[0].equals("--crash")) {
+            recordAndCrash(Paths.get(args[1]), Integer.parseInt(args[2]));
+            return;
+        }
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+        Path directory = Files.createTempDirectory("wordsmith-crash");
+        try {
+            String java = Paths.get(System.getProperty("java.home"), "bin", "java").toString();
+            Process child = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                    "GameStoreCrashTest", "--crash", directory.toString(), Integer.toString(games)).inheritIO().start();
+            if (child.waitFor() != 0) {
+                System.err.println("The child did not write its games before crashing");
+                System.exit(1);
+            }
+
+            GameStore store = new GameStore(directory);
+            int lost = 0;
+            for (int i = 0; i < games; i++) {
+                for (int seat = 0; seat < 2; seat++) {
+                    GameStore.PlayerStats stats = store.getStats(name(i, seat));
+                    if (stats == null || stats.getGames() != 1) lost++;
+                }
+            }
+            store.close();
+            System.out.println("Recovered " + (2 * games - lost) + " of " + (2 * games) + " players' games");
+            if (lost > 0) System.exit(1);
+        } finally {
+            deleteDirectory(directory);
+        }
+    } // end main
+
+    /**
+     * Helper method run in the child to record the games, wait for the writer to apply them, then halt
+     * without closing the store, as a crash would
+     * @param directory the store directory
+     * @param games the number of games to record
+     * @throws IOException if the store cannot be opened
+     * @throws InterruptedException if interrupted while waiting for the writer
+     */
+    private static void recordAndCrash(Path directory, int games) throws IOException, InterruptedException {
+        GameStore store = new GameStore(directory);
+        for (int i = 0; i < games; i++) {
+            store.recordMatch(i, true, new String[] { name(i, 0), name(i, 1) }, new int[] { 20, 10 }, new int[] { 1, 2 });
+        }
+        long deadline = System.currentTimeMillis() + WRITE_TIMEOUT_MILLIS;
+        while (store.getStats(name(games - 1, 1)) == null) { // records are applied in order
+            if (System.currentTimeMillis() > deadline || store.getDroppedCount() > 0) Runtime.getRuntime().halt(1);
+            Thread.sleep(10);
+        }
+        Runtime.getRuntime().halt(0);
+    } // end recordAndCrash
+
+    /**
+     * Helper method to build the long name of a player in a game
+     * @param game the game number
+     * @param seat the player's seat
+     * @return the name
+     */
+    private static String name(int game, int seat) {
+        StringBuilder name = new StringBuilder(NAME_CHARS);
+        name.append("player-").append(game).append('-').append(seat).append('-');
+        while (name.length() < NAME_CHARS) {
+            name.append('x');
+        }
+        return name.toString();
+    } // end name
+
+    /**
+     * Helper method to delete the store directory and everything in it
+     * @param directory the directory
+     * @throws IOException if the directory cannot be listed
+     */
+    private static void deleteDirectory(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    } // end deleteDirectory
+
+} // end class
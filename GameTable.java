@@ -0,0 +1,23 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameTable
+ *
+ * This interface contains what a PlayerChannel needs from the game its player is seated at: somewhere to deliver
+ * the player's input. A GameSession is a table whose game is played in this process, and a RemoteTable is one
+ * whose game a lobby has routed to a game node, relaying each player's input and the node's replies.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+public interface GameTable {
+
+    /**
+     * Method to handle input from a player seated at the table
+     * @param handler the channel the input came from
+     * @param word the input, or null if the player disconnected
+     */
+    void onInput(PlayerChannel handler, String word);
+
+} // end interface
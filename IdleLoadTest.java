@@ -0,0 +1,165 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: IdleLoadTest
+ * 
+ * This class contains a load test that starts a server in-process, opens many idle client connections
+ * against it and reports the platform thread count and resident memory as the connection count grows.
+ * Each client sends its name and then goes quiet, so every pair sits in a game session waiting for a word.
+ * Runs should hold for less than GameSession.TURN_DEADLINE_MILLIS, after which missed turns start being skipped.
+ * 
+ * Usage: java IdleLoadTest [blocking|virtual|nio] [connections] [holdSeconds]
+ * The mode defaults to nio; virtual needs a Java 21+ runtime.
+ * Large runs need a raised file descriptor limit (ulimit -n), and clients are spread across
+ * 127.0.0.x source addresses so they do not run out of ephemeral ports.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+public class IdleLoadTest {
+
+    private static final int SERVER_PORT = 12345; // Default server port
+    private static final int CLIENTS_PER_ADDRESS = 20000; // connections per loopback source address
+    private static final int REPORT_EVERY = 10000; // connections between progress reports
+
+    /**
+     * Main method to run the load test
+     * @param args optional mode, connection count and number of seconds to hold the connections open
+     */
+    public static void main(String[] args) throws Exception {
+        String mode = args.length > 0 ? args[0].toLowerCase() : "nio";
+        int connections = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+        int holdSeconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        WordsmithServer server = createServer(mode);
+        Thread serverThread = new Thread(server::start, "wordsmith-server");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        waitForServer();
+
+        System.out.println("mode=" + mode + " baseline: " + report(0));
+        List<Socket> clients = new ArrayList<>(connections);
+        long start = System.nanoTime();
+        try {
+            for (int i = 0; i < connections; i++) {
+                clients.add(openIdleClient(i));
+                if ((i + 1) % REPORT_EVERY == 0) {
+                    System.out.println(report(i + 1));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Stopped after " + clients.size() + " connections: " + e.getMessage());
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        System.out.printf("Opened %d connections in %.1f s (%.0f/s)%n", clients.size(), seconds, clients.size() / seconds);
+
+        // Hold the connections open so the steady state can be observed
+        for (int s = 0; s < holdSeconds; s++) {
+            Thread.sleep(1000);
+        }
+        System.gc();
+        System.out.println("steady state: " + report(clients.size()));
+
+        for (Socket client : clients) {
+            client.close();
+        }
+        server.shutdown();
+    } // end main
+
+    /**
+     * Helper method to create a server in the given mode
+     * @param mode "blocking", "virtual" or "nio"
+     * @return the server
+     */
+    private static WordsmithServer createServer(String mode) {
+        if (mode.equals("nio")) {
+            return new WordsmithServer(true, Runtime.getRuntime().availableProcessors());
+        }
+        if (mode.equals("virtual")) {
+            ExecutorService executor = WordsmithServer.newVirtualThreadExecutor();
+            if (executor == null) {
+                throw new IllegalStateException("Virtual threads are not supported by this runtime (Java 21+ required)");
+            }
+            return new WordsmithServer(executor);
+        }
+        return new WordsmithServer();
+    } // end createServer
+
+    /**
+     * Helper method to wait until the server is answering connections. Asks for the server's status, as a
+     * lobby does, so the probe never joins matchmaking as a player.
+     */
+    private static void waitForServer() throws InterruptedException {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            try (Socket probe = new Socket("localhost", SERVER_PORT)) {
+                probe.getOutputStream().write((Protocol.CLUSTER_STATUS + "\n").getBytes(StandardCharsets.US_ASCII));
+                if (probe.getInputStream().read() >= 0) return; // the reply has started, so the server is up
+                Thread.sleep(100);
+            } catch (IOException e) {
+                Thread.sleep(100);
+            }
+        }
+        throw new IllegalStateException("Server did not start on port " + SERVER_PORT);
+    } // end waitForServer
+
+    /**
+     * Helper method to open one client connection, send a name and leave it idle
+     * @param index the index of the client, used for its name and source address
+     * @return the connected socket
+     * @throws IOException if the connection fails
+     */
+    private static Socket openIdleClient(int index) throws IOException {
+        Socket socket = new Socket();
+        int address = 1 + index / CLIENTS_PER_ADDRESS;
+        socket.bind(new InetSocketAddress(InetAddress.getByAddress(new byte[] {127, 0, 0, (byte) address}), 0));
+        socket.connect(new InetSocketAddress("localhost", SERVER_PORT));
+        OutputStream out = socket.getOutputStream();
+        out.write(("bot" + index + "\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+        return socket;
+    } // end openIdleClient
+
+    /**
+     * Helper method to describe the current thread count and memory use
+     * @param connections the number of open connections
+     * @return a one-line report
+     */
+    private static String report(int connections) {
+        int threads = ManagementFactory.getThreadMXBean().getThreadCount();
+        long heapUsed = Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory();
+        return "connections=" + connections + " platformThreads=" + threads
+                + " heapMiB=" + heapUsed / (1024 * 1024) + " rssMiB=" + residentSetMiB();
+    } // end report
+
+    /**
+     * Helper method to read this process's resident set size from /proc
+     * @return the RSS in MiB, or -1 if it is not available on this platform
+     */
+    private static long residentSetMiB() {
+        try {
+            for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+                if (line.startsWith("VmRSS:")) {
+                    return Long.parseLong(line.replaceAll("[^0-9]", "")) / 1024;
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // fall through
+        }
+        return -1;
+    } // end residentSetMiB
+
+} // end class
@@ -0,0 +1,181 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: InMemoryChannel
+ *
+ * This class contains a PlayerChannel for a player in the same process as the server, such as a local bot,
+ * a co-located client or a test. Nothing is encoded and no socket is involved: messages the session sends are
+ * kept as text protocol lines in a queue the peer polls, and the peer's input is handed straight to the
+ * session on the peer's own thread, as an event loop would. The channel is event-driven, so it can share a
+ * session with socket clients, and a session between in-memory channels needs no thread of its own: a single
+ * thread can play both sides of a game by polling each channel and answering its prompts.
+ * The peer should keep polling, as messages wait in the queue until they are taken.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class InMemoryChannel implements PlayerChannel {
+
+    private final Player player; // the player on this channel
+    private final ReentrantLock outLock = new ReentrantLock(); // guards pending, promptPending and gameOverPending
+    private final List<String> pending = new ArrayList<>(); // messages queued until the next flush
+    private boolean promptPending = false; // flag for if a turn prompt is queued
+    private boolean gameOverPending = false; // flag for if the final result is queued
+    private final LinkedBlockingQueue<String> delivered = new LinkedBlockingQueue<>(); // flushed messages the peer has not taken
+    private volatile GameTable session; // the table this player is seated at, if any
+    private volatile boolean prompted = false; // flag for if the player has been prompted and has not yet answered
+    private volatile boolean gameOver = false; // flag for if the player has been sent the final result
+    private volatile boolean closed = false; // flag for if the channel has been closed
+
+    /**
+     * Constructor to create a channel for a new player
+     * @param name the player's name
+     */
+    public InMemoryChannel(String name) {
+        this.player = new Player(name);
+    } // end constructor
+
+    /**
+     * Method for the peer to send a line of input, which is handled by the session on the calling thread
+     * @param line the input, in the text protocol
+     */
+    public void send(String line) {
+        if (closed) return;
+        prompted = false;
+        GameTable current = session;
+        if (current != null) current.onInput(this, line);
+    } // end send
+
+    /**
+     * Method for the peer to take the next message sent to the player, without waiting
+     * @return the message, or null if there is none
+     */
+    public String poll() {
+        return delivered.poll();
+    } // end poll
+
+    /**
+     * Method for the peer to take the next message sent to the player, waiting for one if need be
+     * @param timeout how long to wait
+     * @param unit the unit of the timeout
+     * @return the message, or null if none arrived in time
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public String poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return delivered.poll(timeout, unit);
+    } // end poll
+
+    /**
+     * Getter for whether the player has been prompted for a move and has not yet answered
+     * @return true if it is the player's move
+     */
+    public boolean isPrompted() {
+        return prompted;
+    } // end isPrompted
+
+    /**
+     * Getter for whether the player has been sent the final result of their game
+     * @return true if the game is over
+     */
+    public boolean isGameOver() {
+        return gameOver;
+    } // end isGameOver
+
+    /**
+     * Method for the peer to disconnect, which the session treats like a dropped connection
+     */
+    public void close() {
+        cleanup();
+        GameTable current = session;
+        if (current != null) current.onInput(this, null);
+    } // end close
+
+    @Override
+    public void queueMessage(String message) {
+        outLock.lock();
+        try {
+            pending.add(message);
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueMessage
+
+    @Override
+    public void queueTurnPrompt(List<Character> rack) {
+        outLock.lock();
+        try {
+            pending.add(ClientHandler.turnPromptText(rack));
+            promptPending = true;
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueTurnPrompt
+
+    @Override
+    public void queueResult(byte code, int score) {
+        queueMessage(ClientHandler.resultText(code, score));
+    } // end queueResult
+
+    @Override
+    public void queueGameOver(int score, int opponentScore, int rank, int players) {
+        outLock.lock();
+        try {
+            pending.add(ClientHandler.gameOverText(ClientHandler.outcomeOf(score, opponentScore), score, opponentScore, rank, players));
+            gameOverPending = true;
+        } finally {
+            outLock.unlock();
+        }
+    } // end queueGameOver
+
+    /**
+     * Method to hand every queued message to the peer. The prompt and game over flags are only raised here,
+     * after the session has released its lock, so a peer that sees them also sees the player's new rack and score.
+     */
+    @Override
+    public void flush() {
+        outLock.lock();
+        try {
+            delivered.addAll(pending);
+            pending.clear();
+            if (promptPending) prompted = true;
+            if (gameOverPending) gameOver = true;
+            promptPending = false;
+            gameOverPending = false;
+        } finally {
+            outLock.unlock();
+        }
+    } // end flush
+
+    @Override
+    public void cleanup() {
+        closed = true;
+    } // end cleanup
+
+    @Override
+    public boolean isClosed() {
+        return closed;
+    } // end isClosed
+
+    @Override
+    public boolean isEventDriven() {
+        return true;
+    } // end isEventDriven
+
+    @Override
+    public void setSession(GameTable session) {
+        this.session = session;
+    } // end setSession
+
+    @Override
+    public Player getPlayer() {
+        return player;
+    } // end getPlayer
+
+} // end class
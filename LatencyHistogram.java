@@ -0,0 +1,115 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: LatencyHistogram
+ * 
+ * This class contains a lock-free, log-linear latency histogram in the style of HdrHistogram.
+ * Values below 32 get an exact bucket, and larger values get one of 16 linear sub-buckets per power of two,
+ * so every recorded value is within about 6% of its bucket's bounds. Recording is one atomic increment
+ * plus a LongAdder add, and never blocks, so it is safe to call from the turn loop.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LatencyHistogram {
+
+    private static final int LINEAR_LIMIT = 32; // values below this have their own bucket
+    private static final int SUB_BUCKETS = 16; // buckets per power of two above the linear range
+    private static final int BUCKET_COUNT = LINEAR_LIMIT + 59 * SUB_BUCKETS; // enough for any positive long
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT); // number of values in each bucket
+    private final LongAdder total = new LongAdder(); // sum of all recorded values
+    private final AtomicLong max = new AtomicLong(); // largest recorded value
+
+    /**
+     * Method to record a value. Negative values are recorded as 0.
+     * @param value the value, typically a duration in nanoseconds
+     */
+    public void record(long value) {
+        if (value < 0) value = 0;
+        counts.incrementAndGet(bucketOf(value));
+        total.add(value);
+        if (value > max.get()) max.accumulateAndGet(value, Math::max);
+    } // end record
+
+    /**
+     * Getter for the number of recorded values
+     * @return the count
+     */
+    public long getCount() {
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) count += counts.get(i);
+        return count;
+    } // end getCount
+
+    /**
+     * Getter for the mean of the recorded values
+     * @return the mean, or 0 if nothing has been recorded
+     */
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0 : (double) total.sum() / count;
+    } // end getMean
+
+    /**
+     * Getter for the largest recorded value
+     * @return the maximum
+     */
+    public long getMax() {
+        return max.get();
+    } // end getMax
+
+    /**
+     * Method to estimate a percentile from the buckets
+     * @param fraction the percentile as a fraction, e.g. 0.99
+     * @return the upper bound of the bucket holding the percentile, capped at the maximum, or 0 if empty
+     */
+    public long getPercentile(double fraction) {
+        long[] snapshot = new long[BUCKET_COUNT];
+        long count = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            snapshot[i] = counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) return 0;
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) return Math.min(upperBound(i), max.get());
+        }
+        return max.get();
+    } // end getPercentile
+
+    /**
+     * Helper method to find the bucket for a value
+     * @param value a non-negative value
+     * @return the bucket index
+     */
+    private static int bucketOf(long value) {
+        if (value < LINEAR_LIMIT) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - 4; // keeps the top 5 bits, 16..31
+        int top = (int) (value >>> shift);
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+    } // end bucketOf
+
+    /**
+     * Helper method to find the largest value that falls in a bucket
+     * @param bucket the bucket index
+     * @return the bucket's upper bound
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < LINEAR_LIMIT) return bucket;
+        int k = bucket - LINEAR_LIMIT;
+        int shift = k / SUB_BUCKETS + 1;
+        long top = k % SUB_BUCKETS + SUB_BUCKETS;
+        return ((top + 1) << shift) - 1;
+    } // end upperBound
+
+} // end class
@@ -4,22 +4,22 @@
  * 
  * This class represents the pool of available letters and their
  * respective points for the game Wordsmith.
+ * The bag is a primitive char array drawn from by swap-remove in constant time, using a
+ * SplittableRandom seeded per pool so that a session's draws can be replayed from its seed.
  * 
  * @author Kirin Sharma
  * @version 2.0
  *
  */
 
-import java.util.ArrayList;
-import java.util.Map;
-import java.util.HashMap;
-import java.util.List;
+import java.util.SplittableRandom;
 
 public class LetterPool 
 {
-    // Static maps mapping to letter distributions and points
-    private static final Map<Character, Integer> LETTER_DISTRIBUTION = new HashMap<>();
-    private static final Map<Character, Integer> LETTER_POINTS = new HashMap<>();
+    // Static tables of letter distributions and points, indexed by letter ('A' = 0)
+    private static final int[] LETTER_DISTRIBUTION = new int[26];
+    private static final int[] LETTER_POINTS = new int[26];
+    private static final int BAG_SIZE; // total number of letters in a full bag
 
     static {
         // Define point values for letters
@@ -32,59 +32,132 @@ public class LetterPool
         String tenPoints = "QZ";
 
         // Frequencies for each letter in the group
-        // Add each letter to the letterBag and insert into the letterPoints HashMap
-        for (char c : onePoint.toCharArray())    LETTER_DISTRIBUTION.put(c, 12); // more vowels than consonants
-        for (char c : twoPoints.toCharArray())   LETTER_DISTRIBUTION.put(c, 9);
-        for (char c : threePoints.toCharArray()) LETTER_DISTRIBUTION.put(c, 6);
-        for (char c : fourPoints.toCharArray())  LETTER_DISTRIBUTION.put(c, 5);
-        for (char c : fivePoints.toCharArray())  LETTER_DISTRIBUTION.put(c, 3);
-        for (char c : eightPoints.toCharArray()) LETTER_DISTRIBUTION.put(c, 2);
-        for (char c : tenPoints.toCharArray())   LETTER_DISTRIBUTION.put(c, 1);
+        for (char c : onePoint.toCharArray())    LETTER_DISTRIBUTION[c - 'A'] = 12; // more vowels than consonants
+        for (char c : twoPoints.toCharArray())   LETTER_DISTRIBUTION[c - 'A'] = 9;
+        for (char c : threePoints.toCharArray()) LETTER_DISTRIBUTION[c - 'A'] = 6;
+        for (char c : fourPoints.toCharArray())  LETTER_DISTRIBUTION[c - 'A'] = 5;
+        for (char c : fivePoints.toCharArray())  LETTER_DISTRIBUTION[c - 'A'] = 3;
+        for (char c : eightPoints.toCharArray()) LETTER_DISTRIBUTION[c - 'A'] = 2;
+        for (char c : tenPoints.toCharArray())   LETTER_DISTRIBUTION[c - 'A'] = 1;
 
         // Assign points based on your groups
-        for (char c : onePoint.toCharArray()) LETTER_POINTS.put(c, 1);
-        for (char c : twoPoints.toCharArray()) LETTER_POINTS.put(c, 2);
-        for (char c : threePoints.toCharArray()) LETTER_POINTS.put(c, 3);
-        for (char c : fourPoints.toCharArray()) LETTER_POINTS.put(c, 4);
-        for (char c : fivePoints.toCharArray()) LETTER_POINTS.put(c, 5);
-        for (char c : eightPoints.toCharArray()) LETTER_POINTS.put(c, 8);
-        for (char c : tenPoints.toCharArray()) LETTER_POINTS.put(c, 10);
+        for (char c : onePoint.toCharArray()) LETTER_POINTS[c - 'A'] = 1;
+        for (char c : twoPoints.toCharArray()) LETTER_POINTS[c - 'A'] = 2;
+        for (char c : threePoints.toCharArray()) LETTER_POINTS[c - 'A'] = 3;
+        for (char c : fourPoints.toCharArray()) LETTER_POINTS[c - 'A'] = 4;
+        for (char c : fivePoints.toCharArray()) LETTER_POINTS[c - 'A'] = 5;
+        for (char c : eightPoints.toCharArray()) LETTER_POINTS[c - 'A'] = 8;
+        for (char c : tenPoints.toCharArray()) LETTER_POINTS[c - 'A'] = 10;
+
+        int total = 0;
+        for (int freq : LETTER_DISTRIBUTION) total += freq;
+        BAG_SIZE = total;
     }
 
-	private List<Character> letterBag; // Bag of available letters
+	private final char[] letterBag; // Bag of available letters; only the first size entries are in the bag
+	private int size; // number of letters currently in the bag
+	private final long seed; // the seed the draws were generated from
+	private final SplittableRandom random; // random number generator for draws
 	
 	/**
-	 * Default constructor to initialize the letterBag
+	 * Default constructor to initialize the letterBag with a randomly chosen seed
 	 */
 	public LetterPool()
 	{
-		letterBag = new ArrayList<>();
-        for(Map.Entry<Character, Integer> entry : LETTER_DISTRIBUTION.entrySet()) {
-            char letter  = entry.getKey();
-            int freq = entry.getValue();
-            for(int i = 0; i < freq; i++) {
-                letterBag.add(letter);
+		this(new SplittableRandom().nextLong());
+	} // end default constructor
+
+	/**
+	 * Constructor to initialize the letterBag with a fixed seed, so the sequence of draws can be replayed
+	 * @param seed the seed for the pool's random number generator
+	 */
+	public LetterPool(long seed)
+	{
+		this.seed = seed;
+		random = new SplittableRandom(seed);
+		letterBag = new char[BAG_SIZE];
+        for(int letter = 0; letter < 26; letter++) {
+            for(int i = 0; i < LETTER_DISTRIBUTION[letter]; i++) {
+                letterBag[size++] = (char) ('A' + letter);
             }
         }
-	} // end default constructor
+	} // end constructor
+
+    /**
+     * Method to draw one random letter from the letterBag in constant time, by swapping the chosen
+     * letter with the last one in the bag.
+     * @return the letter drawn
+     * @throws IllegalStateException if the bag is empty
+     */
+    public synchronized char drawLetter() {
+        if (size == 0) throw new IllegalStateException("Letter pool is empty");
+        int index = random.nextInt(size);
+        char letter = letterBag[index];
+        letterBag[index] = letterBag[--size];
+        return letter;
+    } // end drawLetter
 
     /**
-     * Method to return a list of letters to the letterBag.
+     * Method to draw up to n random letters, adding them to a rack of letter counts.
+     * @param n the number of letters wanted
+     * @param letterCounts the count of each letter 'A'-'Z' to add the drawn letters to
+     * @return the number of letters drawn, which is less than n if the bag runs out
+     */
+    public synchronized int draw(int n, int[] letterCounts) {
+        int count = Math.min(n, size);
+        for (int i = 0; i < count; i++) {
+            int index = random.nextInt(size);
+            letterCounts[letterBag[index] - 'A']++;
+            letterBag[index] = letterBag[--size];
+        }
+        return count;
+    } // end draw
+
+    /**
+     * Method to return a single letter to the letterBag.
+     * @param letter the letter to return
+     * @throws IllegalArgumentException if the letter is not 'A'-'Z'
+     * @throws IllegalStateException if the bag is already full
+     */
+    public synchronized void returnLetter(char letter) {
+        if (letter < 'A' || letter > 'Z') throw new IllegalArgumentException("Not a letter: " + letter);
+        if (size == letterBag.length) throw new IllegalStateException("Letter pool is full");
+        letterBag[size++] = letter;
+    } // end returnLetter
+
+    /**
+     * Method to return a rack of letters to the letterBag.
      * This method is synchronized to ensure thread safety.
-     * @param letters the list of letters to return to the letterBag
+     * Nothing is returned unless the whole rack fits in the bag.
+     * @param letterCounts the count of each letter 'A'-'Z' to return
+     * @throws IllegalArgumentException if there are not 26 counts or a count is negative
+     * @throws IllegalStateException if the letters would overfill the bag
      */
-    public synchronized void returnLetters(List<Character> letters) {
-        letterBag.addAll(letters);
+    public synchronized void returnLetters(int[] letterCounts) {
+        if (letterCounts.length != 26) throw new IllegalArgumentException("Expected 26 letter counts, not " + letterCounts.length);
+        int total = 0;
+        for (int count : letterCounts) {
+            if (count < 0) throw new IllegalArgumentException("Negative letter count: " + count);
+            total += count;
+        }
+        if (total > letterBag.length - size) throw new IllegalStateException("Letter pool is full");
+        for (int letter = 0; letter < 26; letter++) {
+            for (int n = letterCounts[letter]; n > 0; n--) {
+                letterBag[size++] = (char) ('A' + letter);
+            }
+        }
     } // end returnLetters
 
     /**
-     * Helper method to get the point value of a given letter.
+     * Method to get the point value of a given letter, ignoring case.
      * @param letter the letter to check the value of
-     * @return the point value of the letter
+     * @return the point value of the letter, or 0 if it is not a letter
      */
-    private int getLetterPoints(char letter) 
+    public static int getLetterPoints(char letter) 
     {
-        return LETTER_POINTS.getOrDefault(letter, 0);
+        if (letter >= 'A' && letter <= 'Z') return LETTER_POINTS[letter - 'A'];
+        if (letter >= 'a' && letter <= 'z') return LETTER_POINTS[letter - 'a'];
+        return 0;
     } // end getLetterPoints
 
     /**
@@ -96,28 +169,36 @@ public class LetterPool
         if(word == null) return 0;
 
         int points = 0;
-        for(char c : word.toUpperCase().toCharArray()) {
-            points += getLetterPoints(c);
+        for(int i = 0; i < word.length(); i++) {
+            points += getLetterPoints(word.charAt(i));
         }
 
         return points;
     } // end getWordPoints
 
     /**
-     * Getter for letterBag
-     * @return the letterBag as a read-only list
+     * Getter for the number of letters left in the bag
+     * @return the number of letters remaining
      */
-    public List<Character> getLetterBag()
+    public synchronized int getRemaining()
     {
-    	return letterBag;
-    } // end getLetterBag
+    	return size;
+    } // end getRemaining
+
+    /**
+     * Getter for seed
+     * @return the seed the pool's draws are generated from
+     */
+    public long getSeed() {
+        return seed;
+    } // end getSeed
     
     /**
-     * Method to determine if the letterBag is empty (or null)
-     * @return true if the bag is empty or null, false otherwise
+     * Method to determine if the letterBag is empty
+     * @return true if the bag is empty, false otherwise
      */
-    public boolean isEmpty() {
-        return letterBag == null || letterBag.isEmpty();
+    public synchronized boolean isEmpty() {
+        return size == 0;
     } // end isEmpty
 
 } // end class
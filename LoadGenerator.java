@@ -0,0 +1,492 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: LoadGenerator
+ *
+ * This class contains a headless load generator for the Wordsmith server. It keeps N simulated players
+ * connected at once, spread over a few selector threads, and each bot answers every prompt with the
+ * highest-scoring word it can form from its rack using the dictionary. When a bot's game ends it reconnects
+ * as a new player, until the run is over. It reports connects per second, turn round-trip latency
+ * percentiles (from sending a move to the server's reply), games completed per second, bytes received per
+ * turn and error counts. Bots speak the text protocol, or the binary Protocol when run with "--binary".
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+public class LoadGenerator {
+
+    private final InetSocketAddress server; // the address of the server under test
+    private final int bots; // number of concurrently connected bots
+    private final int seconds; // length of the run
+    private final DictionaryIndex dictionary; // dictionary the bots choose words from
+    private final boolean binary; // flag for if bots use the binary protocol
+
+    // Counters shared by all selector threads
+    private final LongAdder connects = new LongAdder();
+    private final LongAdder gamesCompleted = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder connectErrors = new LongAdder();
+    private final LongAdder ioErrors = new LongAdder();
+    private final LongAdder unexpectedCloses = new LongAdder();
+    private final AtomicInteger nextBotId = new AtomicInteger();
+
+    private volatile boolean running = true; // flag for if bots should keep reconnecting
+
+    /**
+     * Constructor to initialize a load generator
+     * @param server the address of the server under test
+     * @param bots number of concurrently connected bots
+     * @param seconds length of the run
+     * @param dictionary dictionary the bots choose words from
+     */
+    public LoadGenerator(InetSocketAddress server, int bots, int seconds, DictionaryIndex dictionary) {
+        this(server, bots, seconds, dictionary, false);
+    } // end constructor
+
+    /**
+     * Constructor to initialize a load generator using the chosen protocol
+     * @param server the address of the server under test
+     * @param bots number of concurrently connected bots
+     * @param seconds length of the run
+     * @param dictionary dictionary the bots choose words from
+     * @param binary true for bots to use the binary protocol, false for the text protocol
+     */
+    public LoadGenerator(InetSocketAddress server, int bots, int seconds, DictionaryIndex dictionary, boolean binary) {
+        this.server = server;
+        this.bots = bots;
+        this.seconds = seconds;
+        this.dictionary = dictionary;
+        this.binary = binary;
+    } // end constructor
+
+    /**
+     * Method to run the load test and print a report
+     * @param threads the number of selector threads to spread the bots over
+     * @throws InterruptedException if interrupted while waiting for the run to finish
+     */
+    public void run(int threads) throws InterruptedException {
+        Driver[] drivers = new Driver[threads];
+        Thread[] driverThreads = new Thread[threads];
+        for (int i = 0; i < threads; i++) {
+            int share = bots / threads + (i < bots % threads ? 1 : 0);
+            drivers[i] = new Driver(share);
+            driverThreads[i] = new Thread(drivers[i], "load-driver-" + i);
+            driverThreads[i].start();
+        }
+
+        long start = System.nanoTime();
+        for (int s = 1; s <= seconds; s++) {
+            Thread.sleep(1000);
+            System.out.println("t=" + s + "s connects=" + connects.sum() + " turns=" + turns.sum()
+                    + " games=" + gamesCompleted.sum() + " errors=" + errorCount());
+        }
+        running = false;
+        for (Thread thread : driverThreads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - start) / 1e9;
+
+        // Merge every thread's latency samples
+        int total = 0;
+        for (Driver driver : drivers) total += driver.latencyCount;
+        long[] latencies = new long[total];
+        int offset = 0;
+        for (Driver driver : drivers) {
+            System.arraycopy(driver.latencies, 0, latencies, offset, driver.latencyCount);
+            offset += driver.latencyCount;
+        }
+        Arrays.sort(latencies);
+
+        System.out.println("---- Wordsmith load test: " + bots + " bots, " + seconds + " s, "
+                + (binary ? "binary" : "text") + " protocol ----");
+        System.out.printf("connects/sec:   %.1f (%d total)%n", connects.sum() / elapsed, connects.sum());
+        System.out.printf("games/sec:      %.1f (%d total)%n", gamesCompleted.sum() / elapsed, gamesCompleted.sum());
+        System.out.printf("turns/sec:      %.1f (%d total)%n", turns.sum() / elapsed, turns.sum());
+        System.out.printf("bytes/turn:     %.1f received%n", turns.sum() == 0 ? 0.0 : (double) bytesReceived.sum() / turns.sum());
+        System.out.printf("turn RTT (us):  p50=%d p99=%d p999=%d max=%d%n",
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                latencies.length == 0 ? 0 : latencies[latencies.length - 1] / 1000);
+        System.out.println("errors:         connect=" + connectErrors.sum() + " io=" + ioErrors.sum()
+                + " unexpectedClose=" + unexpectedCloses.sum());
+    } // end run
+
+    /**
+     * Helper method to get a percentile from sorted nanosecond samples
+     * @param sorted the sorted samples
+     * @param fraction the percentile as a fraction
+     * @return the percentile in microseconds
+     */
+    private static long percentile(long[] sorted, double fraction) {
+        if (sorted.length == 0) return 0;
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * fraction))] / 1000;
+    } // end percentile
+
+    /**
+     * Helper method to total the error counters
+     * @return the number of errors so far
+     */
+    private long errorCount() {
+        return connectErrors.sum() + ioErrors.sum() + unexpectedCloses.sum();
+    } // end errorCount
+
+    /**
+     * One simulated player's connection state
+     */
+    private static final class Bot {
+        private final SocketChannel channel;
+        private final ByteBuffer readBuffer = ByteBuffer.allocate(1024);
+        private final StringBuilder line = new StringBuilder();
+        private ByteBuffer pendingWrite; // bytes not yet written
+        private long moveSentAt = 0; // when the last move was sent, or 0 if no reply is awaited
+        private boolean gameOver = false;
+
+        private Bot(SocketChannel channel) {
+            this.channel = channel;
+        }
+    } // end Bot
+
+    /**
+     * A selector thread driving its share of the bots
+     */
+    private final class Driver implements Runnable {
+        private final int share; // number of bots this thread keeps connected
+        private long[] latencies = new long[1024]; // turn round-trip samples in nanoseconds
+        private int latencyCount = 0;
+        private final int[] rack = new int[26]; // scratch letter counts for choosing a word
+
+        private Driver(int share) {
+            this.share = share;
+        }
+
+        @Override
+        public void run() {
+            try (Selector selector = Selector.open()) {
+                for (int i = 0; i < share; i++) {
+                    connect(selector);
+                }
+                while (running) {
+                    selector.select(100);
+                    Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                    while (keys.hasNext()) {
+                        SelectionKey key = keys.next();
+                        keys.remove();
+                        handle(selector, key);
+                    }
+                }
+                for (SelectionKey key : selector.keys()) {
+                    key.channel().close();
+                }
+            } catch (IOException e) {
+                System.err.println("Load driver error: " + e.getMessage());
+            }
+        } // end run
+
+        /**
+         * Helper method to open a new bot connection
+         * @param selector the selector to register with
+         */
+        private void connect(Selector selector) {
+            try {
+                SocketChannel channel = SocketChannel.open();
+                channel.configureBlocking(false);
+                Bot bot = new Bot(channel);
+                int ops = channel.connect(server) ? SelectionKey.OP_READ : SelectionKey.OP_CONNECT;
+                SelectionKey key = channel.register(selector, ops, bot);
+                if (ops == SelectionKey.OP_READ) onConnected(key, bot);
+            } catch (IOException e) {
+                connectErrors.increment();
+            }
+        } // end connect
+
+        /**
+         * Helper method to handle one ready key
+         * @param selector the selector
+         * @param key the ready key
+         */
+        private void handle(Selector selector, SelectionKey key) {
+            Bot bot = (Bot) key.attachment();
+            boolean connecting = key.isConnectable();
+            try {
+                if (connecting) {
+                    bot.channel.finishConnect();
+                    key.interestOps(SelectionKey.OP_READ);
+                    onConnected(key, bot);
+                }
+                if (key.isValid() && key.isWritable()) flush(key, bot);
+                if (key.isValid() && key.isReadable()) read(selector, key, bot);
+            } catch (IOException e) {
+                if (connecting) connectErrors.increment(); else ioErrors.increment();
+                close(selector, key, bot, false);
+            }
+        } // end handle
+
+        /**
+         * Helper method to send the bot's name once it has connected
+         * @param key the bot's key
+         * @param bot the bot
+         * @throws IOException if writing fails
+         */
+        private void onConnected(SelectionKey key, Bot bot) throws IOException {
+            connects.increment();
+            String name = "bot" + nextBotId.incrementAndGet();
+            if (!binary) {
+                send(key, bot, name);
+                return;
+            }
+            ByteBuffer hello = ByteBuffer.allocate(Protocol.HANDSHAKE.length() + 1 + Protocol.HEADER_BYTES + name.length());
+            hello.put((Protocol.HANDSHAKE + "\n").getBytes(StandardCharsets.US_ASCII));
+            Protocol.writeText(hello, Protocol.NAME, name.getBytes(StandardCharsets.US_ASCII));
+            hello.flip();
+            write(key, bot, hello);
+        } // end onConnected
+
+        /**
+         * Helper method to read and handle complete lines from the server
+         * @param selector the selector
+         * @param key the bot's key
+         * @param bot the bot
+         * @throws IOException if reading fails
+         */
+        private void read(Selector selector, SelectionKey key, Bot bot) throws IOException {
+            int read = bot.channel.read(bot.readBuffer);
+            if (read < 0) {
+                close(selector, key, bot, !bot.gameOver);
+                return;
+            }
+            bytesReceived.add(read);
+            if (binary) {
+                readFrames(selector, key, bot);
+                return;
+            }
+            bot.readBuffer.flip();
+            String chunk = StandardCharsets.UTF_8.decode(bot.readBuffer).toString();
+            bot.readBuffer.clear();
+
+            for (int i = 0; i < chunk.length(); i++) {
+                char c = chunk.charAt(i);
+                if (c == '\n') {
+                    onLine(selector, key, bot, bot.line.toString());
+                    bot.line.setLength(0);
+                    if (!key.isValid()) return;
+                } else if (c != '\r') {
+                    bot.line.append(c);
+                }
+            }
+        } // end read
+
+        /**
+         * Helper method to handle every complete frame in the bot's read buffer
+         * @param selector the selector
+         * @param key the bot's key
+         * @param bot the bot
+         * @throws IOException if writing fails or a frame is malformed
+         */
+        private void readFrames(Selector selector, SelectionKey key, Bot bot) throws IOException {
+            ByteBuffer buffer = bot.readBuffer;
+            buffer.flip();
+            while (buffer.remaining() >= 2) {
+                int length = buffer.getShort(buffer.position()) & 0xFFFF;
+                if (length == 0 || length > buffer.capacity() - 2) throw new IOException("Bad frame from server");
+                if (buffer.remaining() < length + 2) break;
+                buffer.position(buffer.position() + 2);
+                byte type = buffer.get();
+                int end = buffer.position() + length - 1;
+                onFrame(selector, key, bot, type, buffer, end);
+                if (!key.isValid()) return;
+                buffer.position(end);
+            }
+            buffer.compact();
+        } // end readFrames
+
+        /**
+         * Helper method to react to one frame from the server
+         * @param selector the selector
+         * @param key the bot's key
+         * @param bot the bot
+         * @param type the message type
+         * @param payload the read buffer, positioned at the frame's payload
+         * @param end the index just past the payload
+         * @throws IOException if writing fails
+         */
+        private void onFrame(Selector selector, SelectionKey key, Bot bot, byte type, ByteBuffer payload, int end) throws IOException {
+            if (type == Protocol.RESULT && bot.moveSentAt != 0) {
+                recordLatency(System.nanoTime() - bot.moveSentAt);
+                bot.moveSentAt = 0;
+                turns.increment();
+            }
+
+            if (type == Protocol.TURN_PROMPT) {
+                Arrays.fill(rack, 0);
+                while (payload.position() < end) {
+                    int letter = payload.get() - 'A';
+                    if (letter >= 0 && letter < 26) rack[letter]++;
+                }
+                String word = dictionary == null ? null : dictionary.bestWord(rack);
+                ByteBuffer move = ByteBuffer.allocate(Protocol.HEADER_BYTES + 1 + (word == null ? 0 : word.length()));
+                Protocol.writeMove(move, word == null ? Protocol.MOVE_PASS : Protocol.MOVE_WORD, word);
+                move.flip();
+                write(key, bot, move);
+                bot.moveSentAt = System.nanoTime();
+            } else if (type == Protocol.GAME_OVER) {
+                bot.gameOver = true;
+                gamesCompleted.increment();
+                close(selector, key, bot, false);
+            }
+        } // end onFrame
+
+        /**
+         * Helper method to react to one line from the server, the same way WordsmithClient does
+         * @param selector the selector
+         * @param key the bot's key
+         * @param bot the bot
+         * @param message the line received
+         * @throws IOException if writing fails
+         */
+        private void onLine(Selector selector, SelectionKey key, Bot bot, String message) throws IOException {
+            // The first line after a move is the server's verdict on it
+            if (bot.moveSentAt != 0) {
+                recordLatency(System.nanoTime() - bot.moveSentAt);
+                bot.moveSentAt = 0;
+                turns.increment();
+            }
+
+            if (message.contains("Enter a word")) {
+                String word = chooseWord(message);
+                send(key, bot, word);
+                bot.moveSentAt = System.nanoTime();
+            } else if (message.contains("You win!") || message.contains("You lost.") || message.contains("You tied!")) {
+                bot.gameOver = true;
+                gamesCompleted.increment();
+                close(selector, key, bot, false);
+            }
+        } // end onLine
+
+        /**
+         * Helper method to choose the best word for the rack in a turn prompt
+         * @param prompt the prompt, which lists the rack as "[A, B, C]"
+         * @return the word to play, or "1" to pass and redraw
+         */
+        private String chooseWord(String prompt) {
+            Arrays.fill(rack, 0);
+            int open = prompt.indexOf('[');
+            int close = prompt.indexOf(']', open + 1);
+            if (open < 0 || close < 0) return "1";
+            for (int i = open + 1; i < close; i++) {
+                char c = prompt.charAt(i);
+                if (c >= 'A' && c <= 'Z') rack[c - 'A']++;
+            }
+            String word = dictionary == null ? null : dictionary.bestWord(rack);
+            return word == null ? "1" : word;
+        } // end chooseWord
+
+        /**
+         * Helper method to send a line, leaving any unwritten remainder for when the channel is writable
+         * @param key the bot's key
+         * @param bot the bot
+         * @param message the line to send
+         * @throws IOException if writing fails
+         */
+        private void send(SelectionKey key, Bot bot, String message) throws IOException {
+            write(key, bot, StandardCharsets.UTF_8.encode(message + "\n"));
+        } // end send
+
+        /**
+         * Helper method to write bytes, leaving any unwritten remainder for when the channel is writable
+         * @param key the bot's key
+         * @param bot the bot
+         * @param buffer the bytes to write
+         * @throws IOException if writing fails
+         */
+        private void write(SelectionKey key, Bot bot, ByteBuffer buffer) throws IOException {
+            bot.channel.write(buffer);
+            if (buffer.hasRemaining()) {
+                bot.pendingWrite = buffer;
+                key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+            }
+        } // end write
+
+        /**
+         * Helper method to finish a pending write
+         * @param key the bot's key
+         * @param bot the bot
+         * @throws IOException if writing fails
+         */
+        private void flush(SelectionKey key, Bot bot) throws IOException {
+            if (bot.pendingWrite != null) {
+                bot.channel.write(bot.pendingWrite);
+                if (bot.pendingWrite.hasRemaining()) return;
+                bot.pendingWrite = null;
+            }
+            key.interestOps(SelectionKey.OP_READ);
+        } // end flush
+
+        /**
+         * Helper method to close a bot and, while the run continues, replace it with a new one
+         * @param selector the selector
+         * @param key the bot's key
+         * @param bot the bot
+         * @param unexpected true if the server closed the connection mid-game
+         */
+        private void close(Selector selector, SelectionKey key, Bot bot, boolean unexpected) {
+            if (unexpected) unexpectedCloses.increment();
+            key.cancel();
+            try {
+                bot.channel.close();
+            } catch (IOException e) {
+                ioErrors.increment();
+            }
+            if (running) connect(selector);
+        } // end close
+
+        /**
+         * Helper method to store a latency sample
+         * @param nanos the round-trip time in nanoseconds
+         */
+        private void recordLatency(long nanos) {
+            if (latencyCount == latencies.length) {
+                latencies = Arrays.copyOf(latencies, latencies.length * 2);
+            }
+            latencies[latencyCount++] = nanos;
+        } // end recordLatency
+    } // end Driver
+
+    /**
+     * Main method to run a load test
+     * @param args number of bots, optional run length in seconds, host and port, plus "--binary" anywhere
+     *             for bots to use the binary protocol
+     */
+    public static void main(String[] args) throws Exception {
+        boolean binary = Arrays.asList(args).contains("--binary");
+        args = Arrays.stream(args).filter(arg -> !arg.equals("--binary")).toArray(String[]::new);
+        int bots = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        String host = args.length > 2 ? args[2] : "localhost";
+        int port = args.length > 3 ? Integer.parseInt(args[3]) : 12345;
+
+        DictionaryIndex dictionary = null;
+        try {
+            dictionary = DictionaryIndex.openOrBuild(Paths.get("./words_alpha.txt"), Paths.get("./words_alpha.dawg"));
+        } catch (IOException e) {
+            System.err.println("No dictionary available, bots will always pass: " + e.getMessage());
+        }
+
+        int threads = Math.max(1, Math.min(bots, Math.min(4, Runtime.getRuntime().availableProcessors())));
+        new LoadGenerator(new InetSocketAddress(host, port), bots, seconds, dictionary, binary).run(threads);
+    } // end main
+
+} // end class
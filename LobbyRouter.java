@@ -0,0 +1,347 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: LobbyRouter
+ *
+ * This class contains the routing for a lobby: a server that accepts and matches players, but plays no games itself.
+ * Each table the lobby's GameManager matches is routed to one of several game nodes, ordinary servers that seat the
+ * players at the table the lobby names, and is played there as a RemoteTable. A heartbeat on the shared TimerWheel
+ * asks every node for its session count each second, and each table goes to the node with the lowest load: the
+ * sessions it last reported plus the tables routed to it since. A node that misses MAX_MISSED_HEARTBEATS heartbeats
+ * in a row is down: its tables are abandoned, their players are requeued in the lobby, and it is sent no tables until
+ * it answers a heartbeat again. A node that cannot be reached when a table is routed to it is only checked at once,
+ * and the table tries the next node, so one refused connection does not cost a node its games. Tables matched while
+ * every node is down, or that no node could take, wait in the lobby until the next heartbeat finds a node up.
+ * Reaching a node blocks, so tables are routed on the lobby's task executor and heartbeats on a background thread,
+ * never on the thread that matched the table.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class LobbyRouter {
+
+    public static final long HEARTBEAT_INTERVAL_MILLIS = 1_000; // time between checks on every node
+    public static final int MAX_MISSED_HEARTBEATS = 3; // heartbeats in a row a node may miss before it is down
+    public static final int CONNECT_TIMEOUT_MILLIS = 1_000; // time to wait for a node to accept a connection or answer
+
+    private final GameManager gameManager; // the lobby's game manager, which requeued players rejoin
+    private final List<Node> nodes; // the game nodes tables are routed to
+    private final Executor executor; // routes tables and runs each link's relay
+    private final ExecutorService checker; // background thread that checks on the nodes
+    private final ConcurrentLinkedQueue<PlayerChannel[]> parked = new ConcurrentLinkedQueue<>(); // tables waiting for a node to come up
+    private final AtomicLong nextTableId = new AtomicLong(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE / 2)); // so lobbies sharing nodes use different ids
+    private final AtomicBoolean started = new AtomicBoolean(false); // flag for if the heartbeat is running
+
+    /**
+     * A game node and what the lobby knows of it
+     */
+    public static final class Node {
+        private final InetSocketAddress address; // where the node accepts connections
+        private volatile boolean up = true; // flag for if tables may be routed to the node, assumed until it fails to answer
+        private final AtomicInteger load = new AtomicInteger(); // sessions last reported plus tables routed since
+        private int missed = 0; // heartbeats missed in a row, touched only by the checker thread
+        private final Set<RemoteTable> tables = ConcurrentHashMap.newKeySet(); // tables being played on the node
+
+        private Node(InetSocketAddress address) {
+            this.address = address;
+        }
+
+        /**
+         * Getter for the node's address
+         * @return where the node accepts connections
+         */
+        public InetSocketAddress getAddress() {
+            return address;
+        } // end getAddress
+
+        /**
+         * Getter for whether tables may be routed to the node
+         * @return true if the node is up
+         */
+        public boolean isUp() {
+            return up;
+        } // end isUp
+
+        /**
+         * Getter for the node's load
+         * @return the sessions it last reported plus the tables routed to it since
+         */
+        public int getLoad() {
+            return load.get();
+        } // end getLoad
+
+        @Override
+        public String toString() {
+            return address.getHostString() + ":" + address.getPort();
+        } // end toString
+    } // end Node
+
+    /**
+     * Constructor to create a router for a lobby
+     * @param gameManager the lobby's game manager
+     * @param nodeAddresses the addresses of the game nodes
+     * @param executor the executor to route tables and relay links on
+     * @throws IllegalArgumentException if no nodes are given
+     */
+    public LobbyRouter(GameManager gameManager, List<InetSocketAddress> nodeAddresses, Executor executor) {
+        if (nodeAddresses.isEmpty()) throw new IllegalArgumentException("A lobby needs at least one game node");
+        this.gameManager = gameManager;
+        this.executor = executor;
+        List<Node> list = new ArrayList<>();
+        for (InetSocketAddress address : nodeAddresses) {
+            Node node = new Node(address);
+            list.add(node);
+            Metrics.registerGauge("wordsmith_node_load{node=\"" + node + "\"}", node::getLoad);
+        }
+        this.nodes = Collections.unmodifiableList(list);
+        Metrics.registerGauge("wordsmith_nodes_up", () -> nodes.stream().filter(Node::isUp).count());
+        this.checker = Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "wordsmith-lobby");
+            thread.setDaemon(true);
+            return thread;
+        });
+    } // end constructor
+
+    /**
+     * Method to start checking on the nodes, straight away and then every HEARTBEAT_INTERVAL_MILLIS
+     */
+    public void start() {
+        if (started.compareAndSet(false, true)) checker.execute(this::heartbeat);
+    } // end start
+
+    /**
+     * Method to route a matched table to a game node. Returns at once; the table is routed on the executor.
+     * @param players the matched players, in turn order
+     */
+    public void route(PlayerChannel[] players) {
+        executor.execute(() -> dispatch(players));
+    } // end route
+
+    /**
+     * Helper method to route a table to the node with the lowest load, trying the next if a node cannot be reached.
+     * A node that cannot be reached is checked on the checker thread, which decides if it is down.
+     * The table waits in the lobby if every node is down or none could be reached.
+     * @param players the matched players, in turn order
+     */
+    private void dispatch(PlayerChannel[] players) {
+        List<Node> tried = new ArrayList<>();
+        while (true) {
+            Node node = claimLeastLoaded(tried);
+            if (node == null) {
+                parked.offer(players);
+                for (PlayerChannel player : players) {
+                    player.sendMessage("No game server can be reached. Your game will start as soon as one is back.");
+                }
+                return;
+            }
+
+            RemoteTable table = new RemoteTable(this, node, nextTableId.getAndIncrement(), players);
+            if (table.open(CONNECT_TIMEOUT_MILLIS)) {
+                node.tables.add(table);
+                Metrics.TABLES_ROUTED.increment();
+                System.out.println("Table " + table.getId() + " routed to node " + node + ": " + describe(players));
+                table.start(executor);
+                return;
+            }
+            node.load.decrementAndGet(); // the table was not routed there after all
+            tried.add(node);
+            checker.execute(() -> check(node));
+        }
+    } // end dispatch
+
+    /**
+     * Helper method to pick the node with the lowest load for a table, counting the table in its load at once
+     * so tables routed together spread across the nodes
+     * @param skipped nodes the table has already failed to reach
+     * @return the node, or null if every node is down or skipped
+     */
+    private synchronized Node claimLeastLoaded(List<Node> skipped) {
+        Node best = leastLoaded(skipped);
+        if (best != null) best.load.incrementAndGet();
+        return best;
+    } // end claimLeastLoaded
+
+    /**
+     * Helper method to find the node with the lowest load that is up
+     * @param skipped nodes not to consider
+     * @return the node, or null if every node is down or skipped
+     */
+    private Node leastLoaded(List<Node> skipped) {
+        Node best = null;
+        for (Node node : nodes) {
+            if (node.up && !skipped.contains(node) && (best == null || node.load.get() < best.load.get())) best = node;
+        }
+        return best;
+    } // end leastLoaded
+
+    /**
+     * Method called by a RemoteTable when a player's link to its node fails before their game is over.
+     * The player is requeued, and the node is checked at once rather than at the next heartbeat.
+     * @param table the table
+     * @param player the player, who is still connected to the lobby
+     */
+    void seatLost(RemoteTable table, PlayerChannel player) {
+        Node node = table.getNode();
+        checker.execute(() -> check(node));
+        requeue(player, "The connection to your game was lost.");
+    } // end seatLost
+
+    /**
+     * Method called by a RemoteTable once no player is still playing at it
+     * @param table the table
+     */
+    void tableDone(RemoteTable table) {
+        table.getNode().tables.remove(table);
+    } // end tableDone
+
+    /**
+     * Helper method to put a player back into the lobby's matchmaking
+     * @param player the player
+     * @param reason what happened to their game, to tell them
+     */
+    private void requeue(PlayerChannel player, String reason) {
+        player.setSession(null);
+        player.sendMessage(reason + " Finding you a new game.");
+        Metrics.PLAYERS_REQUEUED.increment();
+        gameManager.addClient(player);
+    } // end requeue
+
+    /**
+     * Helper method to stop routing tables to a node, abandoning the tables on it so their players are requeued
+     * @param node the node
+     * @param reason why it is down, for the log
+     */
+    private void markDown(Node node, String reason) {
+        synchronized (node) {
+            if (!node.up) return;
+            node.up = false;
+        }
+        Metrics.NODES_DOWN.increment();
+        System.err.println("Game node " + node + " is down because " + reason + ". Requeueing its players.");
+        for (RemoteTable table : node.tables) {
+            table.abandon(); // each link's relay requeues its player
+        }
+    } // end markDown
+
+    /**
+     * Helper method run on the checker thread to check on every node, route any waiting tables if a node is up,
+     * and schedule the next heartbeat
+     */
+    private void heartbeat() {
+        try {
+            for (Node node : nodes) {
+                check(node);
+            }
+            if (leastLoaded(Collections.emptyList()) != null) retryParked();
+        } finally {
+            TimerWheel.SHARED.schedule(() -> checker.execute(this::heartbeat), HEARTBEAT_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    } // end heartbeat
+
+    /**
+     * Helper method run on the checker thread to ask a node for its session count. A node that answers is up,
+     * and one that has missed too many heartbeats in a row is down.
+     * @param node the node
+     */
+    private void check(Node node) {
+        try (Socket socket = new Socket()) {
+            socket.connect(node.address, CONNECT_TIMEOUT_MILLIS);
+            socket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            socket.getOutputStream().write((Protocol.CLUSTER_STATUS + "\n").getBytes(StandardCharsets.US_ASCII));
+            String reply = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII)).readLine();
+            if (reply == null || !reply.startsWith(Protocol.CLUSTER_SESSIONS + " ")) throw new IOException("Unexpected reply: " + reply);
+            node.load.set(Integer.parseInt(reply.substring(Protocol.CLUSTER_SESSIONS.length() + 1).trim()));
+            node.missed = 0;
+            if (!node.up) {
+                node.up = true;
+                System.out.println("Game node " + node + " is up");
+            }
+        } catch (IOException | NumberFormatException e) {
+            if (++node.missed >= MAX_MISSED_HEARTBEATS) markDown(node, "it missed " + node.missed + " heartbeats");
+        }
+    } // end check
+
+    /**
+     * Helper method to route the tables that were waiting for a node. A table a player has left since is broken
+     * up, and its other players requeued.
+     */
+    private void retryParked() {
+        PlayerChannel[] players;
+        while ((players = parked.poll()) != null) {
+            boolean allOpen = true;
+            for (PlayerChannel player : players) {
+                allOpen &= !player.isClosed();
+            }
+            if (allOpen) {
+                route(players);
+                continue;
+            }
+            for (PlayerChannel player : players) {
+                if (!player.isClosed()) requeue(player, "An opponent left before your game could start.");
+            }
+        }
+    } // end retryParked
+
+    /**
+     * Helper method to describe a table's players for the log
+     * @param players the players
+     * @return their names, such as "ann vs bob"
+     */
+    private static String describe(PlayerChannel[] players) {
+        StringBuilder names = new StringBuilder();
+        for (PlayerChannel player : players) {
+            if (names.length() > 0) names.append(" vs ");
+            names.append(player.getPlayer().getName());
+        }
+        return names.toString();
+    } // end describe
+
+    /**
+     * Getter for the game nodes
+     * @return the nodes, in the order they were given
+     */
+    public List<Node> getNodes() {
+        return nodes;
+    } // end getNodes
+
+    /**
+     * Method to parse a list of game node addresses
+     * @param spec the addresses as host:port, separated by commas
+     * @return the addresses
+     * @throws IllegalArgumentException if an address is not host:port
+     */
+    public static List<InetSocketAddress> parseNodes(String spec) {
+        List<InetSocketAddress> addresses = new ArrayList<>();
+        for (String part : spec.split(",")) {
+            int colon = part.lastIndexOf(':');
+            if (colon <= 0 || !part.substring(colon + 1).matches("\\d+")) {
+                throw new IllegalArgumentException("Game node " + part + " is not host:port");
+            }
+            addresses.add(new InetSocketAddress(part.substring(0, colon), Integer.parseInt(part.substring(colon + 1))));
+        }
+        return addresses;
+    } // end parseNodes
+
+} // end class
@@ -0,0 +1,197 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: Metrics
+ * 
+ * This class contains the server's metrics: counters, latency histograms and gauges, shared by every class
+ * that records them. Counters are LongAdders and histograms are lock-free, so recording never blocks the
+ * turn loop. The current values can be served as plain text from a local HTTP endpoint.
+ * Startup milestones, such as the first connection accepted and the first valid move, are recorded once each
+ * as milliseconds since the JVM started, so the effect of class data sharing and background loading shows.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+public class Metrics {
+
+    // Counters
+    public static final LongAdder CONNECTIONS_ACCEPTED = new LongAdder(); // client connections accepted, counted at their first line
+    public static final LongAdder SESSIONS_STARTED = new LongAdder(); // game sessions started
+    public static final LongAdder TURNS = new LongAdder(); // turns completed across all sessions
+    public static final LongAdder TURNS_TIMED_OUT = new LongAdder(); // turns skipped because the deadline passed
+    public static final LongAdder CONNECTIONS_REAPED = new LongAdder(); // connections closed for being idle
+    public static final LongAdder WAITING_EVICTED = new LongAdder(); // disconnected clients removed from matchmaking
+    public static final LongAdder STORE_RECORDS = new LongAdder(); // records written to the game store
+    public static final LongAdder STORE_DROPPED = new LongAdder(); // records dropped because the game store fell behind
+    public static final LongAdder RESULTS_PUBLISHED = new LongAdder(); // game results applied by the result pipeline
+    public static final LongAdder RESULTS_DROPPED = new LongAdder(); // game results dropped because the result pipeline fell behind
+    public static final LongAdder WORD_CACHE_HITS = new LongAdder(); // played words found in the word cache
+    public static final LongAdder WORD_CACHE_MISSES = new LongAdder(); // played words scored and validated because they were not cached
+    public static final LongAdder SPECTATORS_ACTIVE = new LongAdder(); // clients watching a live game
+    public static final LongAdder SPECTATOR_EVENTS = new LongAdder(); // events published to watched games
+    public static final LongAdder SPECTATOR_DROPPED = new LongAdder(); // events a spectator missed because it fell behind
+    public static final LongAdder SPECTATORS_DISCONNECTED = new LongAdder(); // spectators disconnected for falling too far behind
+    public static final LongAdder DICTIONARY_RELOADS = new LongAdder(); // new dictionary versions swapped in after a word list changed
+    public static final LongAdder TABLES_ROUTED = new LongAdder(); // matched tables a lobby routed to a game node
+    public static final LongAdder PLAYERS_REQUEUED = new LongAdder(); // players a lobby requeued because their game node went away
+    public static final LongAdder NODES_DOWN = new LongAdder(); // times a lobby found a game node down
+
+    // Latency histograms, in nanoseconds
+    public static final LatencyHistogram WORD_VALIDATION = new LatencyHistogram(); // word cache lookup per turn, including the dictionary lookup on a miss
+    public static final LatencyHistogram BEST_WORD = new LatencyHistogram(); // anagram index query for the best word on a rack
+    public static final LatencyHistogram MESSAGE_SEND = new LatencyHistogram(); // time to flush queued messages to a client
+    public static final LatencyHistogram CLIENT_REPLY = new LatencyHistogram(); // time from a server message to the client's reply, including the player's think time
+    public static final LatencyHistogram MATCH_WAIT = new LatencyHistogram(); // time a client waited to be matched
+    public static final LatencyHistogram SESSION_DURATION = new LatencyHistogram(); // time from a session starting to its results
+    public static final LatencyHistogram STORE_COMMIT = new LatencyHistogram(); // time to write and force one batch to the game store
+    public static final LatencyHistogram RESULT_LAG = new LatencyHistogram(); // time from a game ending to its result being applied
+
+    // Startup milestones, in milliseconds since the JVM started, or -1 until reached
+    public static final AtomicLong STARTUP_LISTENING = new AtomicLong(-1); // the server socket was bound
+    public static final AtomicLong STARTUP_FIRST_ACCEPT = new AtomicLong(-1); // the first client connection sent its first line
+    public static final AtomicLong STARTUP_DICTIONARY_READY = new AtomicLong(-1); // the dictionary for new games finished loading
+    public static final AtomicLong STARTUP_FIRST_VALID_MOVE = new AtomicLong(-1); // the first word was accepted in a game
+
+    private static final Map<String, LongSupplier> GAUGES = new LinkedHashMap<>(); // gauges read when metrics are rendered
+    private static final long START_NANOS = System.nanoTime(); // when the metrics were first loaded
+
+    // Turn count and time at the previous render, for the turns per second gauge
+    private static long lastTurns = 0;
+    private static long lastRenderNanos = START_NANOS;
+
+    private Metrics() {}
+
+    /**
+     * Method to record a startup milestone the first time it is reached, and print how long it took.
+     * Later calls cost one read.
+     * @param milestone one of the STARTUP milestones
+     * @param description what was reached, for the printed line
+     */
+    public static void markStartup(AtomicLong milestone, String description) {
+        if (milestone.get() >= 0) return;
+        long millis = ManagementFactory.getRuntimeMXBean().getUptime();
+        if (milestone.compareAndSet(-1, millis)) {
+            System.out.println(description + " " + millis + " ms after the JVM started");
+        }
+    } // end markStartup
+
+    /**
+     * Method to register a gauge whose value is read each time the metrics are rendered
+     * @param name the gauge's name
+     * @param gauge the supplier of its current value
+     */
+    public static synchronized void registerGauge(String name, LongSupplier gauge) {
+        GAUGES.put(name, gauge);
+    } // end registerGauge
+
+    /**
+     * Method to render every metric as plain text, one "name value" pair per line, in the Prometheus text format.
+     * Latencies are reported in microseconds.
+     * @return the rendered metrics
+     */
+    public static synchronized String render() {
+        long now = System.nanoTime();
+        long turns = TURNS.sum();
+        double turnsPerSecond = now == lastRenderNanos ? 0 : (turns - lastTurns) * 1e9 / (now - lastRenderNanos);
+        lastTurns = turns;
+        lastRenderNanos = now;
+
+        StringBuilder out = new StringBuilder();
+        line(out, "wordsmith_uptime_seconds", (now - START_NANOS) / 1_000_000_000L);
+        line(out, "wordsmith_connections_accepted_total", CONNECTIONS_ACCEPTED.sum());
+        line(out, "wordsmith_sessions_started_total", SESSIONS_STARTED.sum());
+        line(out, "wordsmith_turns_total", turns);
+        line(out, "wordsmith_turns_timed_out_total", TURNS_TIMED_OUT.sum());
+        line(out, "wordsmith_connections_reaped_total", CONNECTIONS_REAPED.sum());
+        line(out, "wordsmith_waiting_evicted_total", WAITING_EVICTED.sum());
+        line(out, "wordsmith_store_records_total", STORE_RECORDS.sum());
+        line(out, "wordsmith_store_dropped_total", STORE_DROPPED.sum());
+        line(out, "wordsmith_results_published_total", RESULTS_PUBLISHED.sum());
+        line(out, "wordsmith_results_dropped_total", RESULTS_DROPPED.sum());
+        line(out, "wordsmith_spectators_active", SPECTATORS_ACTIVE.sum());
+        line(out, "wordsmith_spectator_events_total", SPECTATOR_EVENTS.sum());
+        line(out, "wordsmith_spectator_dropped_total", SPECTATOR_DROPPED.sum());
+        line(out, "wordsmith_spectators_disconnected_total", SPECTATORS_DISCONNECTED.sum());
+        line(out, "wordsmith_dictionary_reloads_total", DICTIONARY_RELOADS.sum());
+        line(out, "wordsmith_tables_routed_total", TABLES_ROUTED.sum());
+        line(out, "wordsmith_players_requeued_total", PLAYERS_REQUEUED.sum());
+        line(out, "wordsmith_nodes_down_total", NODES_DOWN.sum());
+        long cacheHits = WORD_CACHE_HITS.sum();
+        long cacheLookups = cacheHits + WORD_CACHE_MISSES.sum();
+        line(out, "wordsmith_word_cache_hits_total", cacheHits);
+        line(out, "wordsmith_word_cache_lookups_total", cacheLookups);
+        out.append("wordsmith_word_cache_hit_ratio ").append(String.format("%.3f", cacheLookups == 0 ? 0.0 : (double) cacheHits / cacheLookups)).append('\n');
+        line(out, "wordsmith_startup_listening_ms", STARTUP_LISTENING.get());
+        line(out, "wordsmith_startup_first_accept_ms", STARTUP_FIRST_ACCEPT.get());
+        line(out, "wordsmith_startup_dictionary_ready_ms", STARTUP_DICTIONARY_READY.get());
+        line(out, "wordsmith_startup_first_valid_move_ms", STARTUP_FIRST_VALID_MOVE.get());
+        out.append("wordsmith_turns_per_second ").append(String.format("%.1f", turnsPerSecond)).append('\n');
+        for (Map.Entry<String, LongSupplier> gauge : GAUGES.entrySet()) {
+            line(out, gauge.getKey(), gauge.getValue().getAsLong());
+        }
+        histogram(out, "wordsmith_word_validation_us", WORD_VALIDATION);
+        histogram(out, "wordsmith_best_word_us", BEST_WORD);
+        histogram(out, "wordsmith_message_send_us", MESSAGE_SEND);
+        histogram(out, "wordsmith_client_reply_us", CLIENT_REPLY);
+        histogram(out, "wordsmith_match_wait_us", MATCH_WAIT);
+        histogram(out, "wordsmith_session_duration_us", SESSION_DURATION);
+        histogram(out, "wordsmith_store_commit_us", STORE_COMMIT);
+        histogram(out, "wordsmith_result_lag_us", RESULT_LAG);
+        return out.toString();
+    } // end render
+
+    /**
+     * Helper method to append one metric line
+     */
+    private static void line(StringBuilder out, String name, long value) {
+        out.append(name).append(' ').append(value).append('\n');
+    } // end line
+
+    /**
+     * Helper method to append a histogram's count, mean, percentiles and maximum, converted to microseconds
+     */
+    private static void histogram(StringBuilder out, String name, LatencyHistogram histogram) {
+        line(out, name + "_count", histogram.getCount());
+        out.append(name).append("_mean ").append(String.format("%.1f", histogram.getMean() / 1000)).append('\n');
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            out.append(name).append("{quantile=\"").append(q).append("\"} ").append(histogram.getPercentile(q) / 1000).append('\n');
+        }
+        line(out, name + "_max", histogram.getMax() / 1000);
+    } // end histogram
+
+    /**
+     * Method to serve the metrics over HTTP at http://127.0.0.1:port/metrics. Only the loopback interface is bound.
+     * @param port the port to listen on
+     * @return the running HTTP server
+     * @throws IOException if the port cannot be bound
+     */
+    public static HttpServer startHttpServer(int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", exchange -> {
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        return server;
+    } // end startHttpServer
+
+} // end class
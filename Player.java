@@ -4,23 +4,26 @@
  * 
  * This class represents an individual player in the game
  * and contains logic controlling basic functions a player can perform.
+ * The rack is stored as a count per letter, so checking, playing and drawing letters
+ * runs without boxing or allocating.
  * 
  * @author Kirin Sharma
  * @version 2.0
  *
  */
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.AbstractList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
-import java.util.Random;
 
 public class Player 
 {	 
+	private static final int RACK_SIZE = 7; // the number of letters a full rack holds
+
 	private final String name; // the name of the player
-	private List<Character> rack; // the letters a player has to play
+	private final int[] rack = new int[26]; // the count of each letter 'A'-'Z' the player has to play
+	private int rackSize; // the total number of letters in the rack
+	private final List<Character> rackView = new RackView(); // read-only view of the rack
 	private int score; // tracks the player's score in their game
 	
 	/**
@@ -31,30 +34,45 @@ public class Player
 	public Player(String playerName) {
 		name = playerName;
 		score = 0;
-		rack = new ArrayList<>();
+		rackSize = 0;
 	} // end constructor
 
 	/**
-	 * Determines whether the player can form a given word with the letters in its rack 
+	 * Determines whether the player can form a given word with the letters in its rack.
+	 * Letters are taken from the rack as the word is scanned, then put back, so no scratch space is needed.
 	 * @param word the word to check
 	 * @return true if it is possible to form the word with the current rack, false otherwise
 	 */
-	public boolean canFormWord(String word) {
+	public synchronized boolean canFormWord(String word) {
 		if(word == null) return false;
 
-		Map<Character, Integer> letterCounts = new HashMap<>();
-		for (char c : rack) {
-			letterCounts.put(c, letterCounts.getOrDefault(c, 0) + 1);
+		int length = word.length();
+		int i = 0;
+		boolean formable = true;
+		for (; i < length; i++) {
+			int letter = letterIndex(word.charAt(i));
+			if (letter < 0 || rack[letter] == 0) {
+				formable = false;
+				break;
+			}
+			rack[letter]--;
 		}
 
-		for (char c : word.toUpperCase().toCharArray()) {
-			if (!letterCounts.containsKey(c) || letterCounts.get(c) == 0) {
-				return false;
-			}
-			letterCounts.put(c, letterCounts.get(c) - 1);
+		// Restore the letters taken so far
+		for (int j = 0; j < i; j++) {
+			rack[letterIndex(word.charAt(j))]++;
 		}
+		return formable;
+	} // end canFormWord
 
-		return true;
+	/**
+	 * Determines whether the player can form a scored word with the letters in its rack, by comparing
+	 * the word's letter counts with the rack's
+	 * @param word the scored word to check
+	 * @return true if it is possible to form the word with the current rack, false otherwise
+	 */
+	public synchronized boolean canFormWord(ScoredWord word) {
+		return word != null && word.canBeFormedFrom(rack);
 	} // end canFormWord
 
 	/**
@@ -62,15 +80,7 @@ public class Player
 	 * @param lp the letter pool to draw from
 	 */
 	public synchronized void drawLetters(LetterPool lp) {
-		int available = lp.getLetterBag().size();
-		int needed = 7 - rack.size();
-
-		int count = Math.min(available, needed);
-		Random random = new Random();
-		for(int i = 0; i < count; i++) {
-			char c = lp.getLetterBag().remove(random.nextInt(lp.getLetterBag().size()));
-			rack.add(c);
-		}
+		rackSize += lp.draw(RACK_SIZE - rackSize, rack);
 	} // end drawLetters
 	
 	/**
@@ -78,9 +88,9 @@ public class Player
 	 * @param lp the letter pool to return the letters to, then draw from
 	 */
     public synchronized void redrawLetters(LetterPool lp) {
-        List<Character> returning = rack;
-        lp.returnLetters(returning);
-        rack.clear();
+        lp.returnLetters(rack);
+        Arrays.fill(rack, 0);
+        rackSize = 0;
         drawLetters(lp);
     } // end redrawLetters
 
@@ -89,15 +99,46 @@ public class Player
 	 * @param word the word which letters should be removed from rack
 	 * @return true if the operation was successful, false if the word was null
 	 */
-	public boolean playWord(String word) {
+	public synchronized boolean playWord(String word) {
 		if(word == null) return false;
 		
-		for(char c : word.toUpperCase().toCharArray()) {
-			rack.remove((Character) c);
+		for(int i = 0; i < word.length(); i++) {
+			int letter = letterIndex(word.charAt(i));
+			if (letter >= 0 && rack[letter] > 0) {
+				rack[letter]--;
+				rackSize--;
+			}
 		}
 
 		return true;
 	} // end playWord
+
+	/**
+	 * Method to remove a scored word's letters from the rack once the player has played it
+	 * @param word the scored word which letters should be removed from rack
+	 * @return true if the operation was successful, false if the word was null
+	 */
+	public synchronized boolean playWord(ScoredWord word) {
+		if(word == null) return false;
+
+		for (int letter = 0; letter < 26; letter++) {
+			int used = Math.min(word.getLetterCount(letter), rack[letter]);
+			rack[letter] -= used;
+			rackSize -= used;
+		}
+		return true;
+	} // end playWord
+
+	/**
+	 * Helper method to map a letter to its index in the rack, ignoring case
+	 * @param c the character
+	 * @return 0-25 for a letter, -1 for anything else
+	 */
+	private static int letterIndex(char c) {
+		if (c >= 'A' && c <= 'Z') return c - 'A';
+		if (c >= 'a' && c <= 'z') return c - 'a';
+		return -1;
+	} // end letterIndex
 	
 	/**
 	 * Getter for name
@@ -123,12 +164,44 @@ public class Player
 		score += points;
 	} // end updateScore
 
+	/**
+	 * Getter for a copy of the rack's letter counts
+	 * @return the count of each letter 'A'-'Z' in the rack
+	 */
+	public synchronized int[] getLetterCounts() {
+		return rack.clone();
+	} // end getLetterCounts
+
 	/**
 	 * Getter for rack
-	 * @return an unmodifiable list view of rack
+	 * @return an unmodifiable list view of rack, in alphabetical order
 	 */
 	public List<Character> getRack() {
-		return Collections.unmodifiableList(rack);
+		return rackView;
 	} // end getRack
 
+	/**
+	 * Read-only list view over the letter counts. Letters are cached Character values, so reading it does not allocate.
+	 */
+	private final class RackView extends AbstractList<Character> {
+		@Override
+		public Character get(int index) {
+			synchronized (Player.this) {
+				if (index < 0 || index >= rackSize) throw new IndexOutOfBoundsException("Index: " + index);
+				for (int letter = 0; letter < rack.length; letter++) {
+					if (index < rack[letter]) return (char) ('A' + letter);
+					index -= rack[letter];
+				}
+				throw new IllegalStateException("Rack counts out of sync");
+			}
+		}
+
+		@Override
+		public int size() {
+			synchronized (Player.this) {
+				return rackSize;
+			}
+		}
+	} // end RackView
+
 } // end class
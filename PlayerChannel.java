@@ -0,0 +1,103 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: PlayerChannel
+ *
+ * This interface contains everything a GameSession and the GameManager need from a player's connection,
+ * so game logic does not depend on how the player is reached. ClientHandler implements it over a blocking
+ * Socket or a non-blocking SocketChannel, and InMemoryChannel implements it with queues for players in the
+ * same process, such as local bots, which then play without TCP at all.
+ * Messages are queued and written together on flush, so a turn costs one write per player. A channel either
+ * delivers its player's input to its session as events, through GameTable.onInput, or is read by the
+ * session's own thread through receiveMessage.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.List;
+
+public interface PlayerChannel {
+
+    /**
+     * Getter for the player on this channel
+     * @return the player, or null if the player has not yet given their name
+     */
+    Player getPlayer();
+
+    /**
+     * Setter for the table the player is seated at, which event-driven channels deliver input to
+     * @param session the game session or remote table, or null once the player has left it
+     */
+    void setSession(GameTable session);
+
+    /**
+     * Method to determine if this channel delivers its player's input to the session itself.
+     * Sessions between such channels need no thread of their own.
+     * @return true if input arrives as events, false if the session must call receiveMessage
+     */
+    boolean isEventDriven();
+
+    /**
+     * Method to receive the player's input, for a session reading a channel that is not event-driven.
+     * An event-driven channel hands its input to the session itself, so by default none is received here.
+     * @return the input, or null if none was received
+     */
+    default String receiveMessage() {
+        return null;
+    } // end receiveMessage
+
+    /**
+     * Method to queue an informational message until the next flush
+     * @param message the message to queue
+     */
+    void queueMessage(String message);
+
+    /**
+     * Method to queue a turn prompt showing the player's rack until the next flush
+     * @param rack the letters in the player's rack
+     */
+    void queueTurnPrompt(List<Character> rack);
+
+    /**
+     * Method to queue the result of the player's move until the next flush
+     * @param code one of the Protocol result codes
+     * @param score the player's total score, sent with an accepted word
+     */
+    void queueResult(byte code, int score);
+
+    /**
+     * Method to queue the final result of the game until the next flush
+     * @param score the player's score
+     * @param opponentScore the best score among the player's opponents
+     * @param rank the player's finishing position, where tied players share a position
+     * @param players the number of players in the game
+     */
+    void queueGameOver(int score, int opponentScore, int rank, int players);
+
+    /**
+     * Method to send every queued message to the player
+     */
+    void flush();
+
+    /**
+     * Method to send a message to the player straight away
+     * @param message the message to send
+     */
+    default void sendMessage(String message) {
+        queueMessage(message);
+        flush();
+    } // end sendMessage
+
+    /**
+     * Method to close the channel once the player is done with it
+     */
+    void cleanup();
+
+    /**
+     * Method to determine if the channel has been closed
+     * @return true if the player can no longer be reached, false otherwise
+     */
+    boolean isClosed();
+
+} // end interface
@@ -0,0 +1,216 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: Protocol
+ *
+ * This class contains the constants and encoding helpers for the compact binary wire protocol.
+ * A client opts in by sending the handshake line "WSB/1" before anything else; clients that do not
+ * are served the original line-based text protocol. After the handshake every message in both
+ * directions is a frame: a 2-byte big-endian length, then a 1-byte message type, then the payload,
+ * where the length covers the type and payload. Integers are 4-byte big-endian and letters are ASCII.
+ *
+ * Server to client:
+ *   INFO        UTF-8 text that is only meant to be shown to the player
+ *   TURN_PROMPT the rack, one uppercase letter per byte
+ *   RESULT      1 byte result code for the move just made
+ *   SCORE       4 byte total score, sent after an accepted word
+ *   GAME_OVER   1 byte outcome, 4 byte own score, 4 byte best opponent score, 1 byte finishing
+ *               position (tied players share a position), 1 byte number of players
+ *
+ * Client to server:
+ *   NAME        UTF-8 player name, or WATCH and an optional session id to watch a game as a spectator,
+ *               who is then only sent INFO
+ *   MOVE        1 byte move kind, then the word for MOVE_WORD; MOVE_HINT asks for a hint without ending the turn
+ *
+ * A lobby routing players to a game node opens one link per player and sends "WSN/1 seat table seat seats" first,
+ * naming the table the player is seated at, their seat in turn order and the number of seats. The link then
+ * speaks the binary protocol, starting with the player's NAME. A lobby checking a node's load sends
+ * "WSN/1 status" instead, and is answered with the line "sessions n" before the connection closes.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+public final class Protocol {
+
+    public static final int VERSION = 1; // version of the binary protocol
+    public static final String HANDSHAKE = "WSB/" + VERSION; // line a client sends first to select the binary protocol
+    public static final String WATCH = "/watch"; // sent in place of a name, optionally followed by a session id, to watch a game
+    public static final String CLUSTER_HANDSHAKE = "WSN/" + VERSION; // starts the line a lobby sends first to a game node
+    public static final String CLUSTER_SEAT = CLUSTER_HANDSHAKE + " seat"; // followed by the table id, seat and number of seats
+    public static final String CLUSTER_STATUS = CLUSTER_HANDSHAKE + " status"; // asks a game node for its load
+    public static final String CLUSTER_SESSIONS = "sessions"; // followed by the node's active session count, in reply to CLUSTER_STATUS
+    public static final int HEADER_BYTES = 3; // length and type bytes at the start of every frame
+    public static final int MAX_FRAME_BYTES = 1024; // largest frame, excluding the length, either side accepts
+    public static final int GAME_OVER_BYTES = 11; // payload bytes of a GAME_OVER frame
+
+    // Server to client message types
+    public static final byte INFO = 0x01;
+    public static final byte TURN_PROMPT = 0x02;
+    public static final byte RESULT = 0x03;
+    public static final byte SCORE = 0x04;
+    public static final byte GAME_OVER = 0x05;
+
+    // Client to server message types
+    public static final byte NAME = 0x10;
+    public static final byte MOVE = 0x11;
+
+    // Result codes carried by RESULT
+    public static final byte RESULT_ACCEPTED = 0;
+    public static final byte RESULT_REDRAWN = 1;
+    public static final byte RESULT_MISSING_LETTERS = 2;
+    public static final byte RESULT_INVALID_WORD = 3;
+    public static final byte RESULT_NO_WORD = 4;
+    public static final byte RESULT_QUIT = 5;
+
+    // Outcomes carried by GAME_OVER
+    public static final byte OUTCOME_WIN = 0;
+    public static final byte OUTCOME_LOSS = 1;
+    public static final byte OUTCOME_TIE = 2;
+
+    // Move kinds carried by MOVE
+    public static final byte MOVE_WORD = 0;
+    public static final byte MOVE_PASS = 1;
+    public static final byte MOVE_QUIT = 2;
+    public static final byte MOVE_HINT = 3;
+
+    /**
+     * Private constructor, this class only holds constants and static helpers
+     */
+    private Protocol() {
+    } // end constructor
+
+    /**
+     * Method to write a text frame, such as INFO or NAME. Text too long for one frame is cut short.
+     * @param out the buffer to write to, which must have room for the frame
+     * @param type the message type
+     * @param text the UTF-8 encoded text
+     */
+    public static void writeText(ByteBuffer out, byte type, byte[] text) {
+        int length = fittingTextLength(text);
+        writeHeader(out, type, length);
+        out.put(text, 0, length);
+    } // end writeText
+
+    /**
+     * Method to find how much of some text fits in one frame, cutting only between UTF-8 characters
+     * @param text the UTF-8 encoded text
+     * @return the number of leading bytes that fit
+     */
+    public static int fittingTextLength(byte[] text) {
+        int length = Math.min(text.length, MAX_FRAME_BYTES - 1);
+        if (length < text.length) {
+            while (length > 0 && (text[length] & 0xC0) == 0x80) length--; // back up to the start of a character
+        }
+        return length;
+    } // end fittingTextLength
+
+    /**
+     * Method to write a TURN_PROMPT frame
+     * @param out the buffer to write to, which must have room for the frame
+     * @param rack the letters in the rack
+     */
+    public static void writeTurnPrompt(ByteBuffer out, List<Character> rack) {
+        writeHeader(out, TURN_PROMPT, rack.size());
+        for (int i = 0; i < rack.size(); i++) {
+            out.put((byte) rack.get(i).charValue());
+        }
+    } // end writeTurnPrompt
+
+    /**
+     * Method to write a RESULT frame
+     * @param out the buffer to write to, which must have room for the frame
+     * @param code the result code
+     */
+    public static void writeResult(ByteBuffer out, byte code) {
+        writeHeader(out, RESULT, 1);
+        out.put(code);
+    } // end writeResult
+
+    /**
+     * Method to write a SCORE frame
+     * @param out the buffer to write to, which must have room for the frame
+     * @param score the player's total score
+     */
+    public static void writeScore(ByteBuffer out, int score) {
+        writeHeader(out, SCORE, 4);
+        out.putInt(score);
+    } // end writeScore
+
+    /**
+     * Method to write a GAME_OVER frame
+     * @param out the buffer to write to, which must have room for the frame
+     * @param outcome the outcome for the receiving player
+     * @param score the receiving player's score
+     * @param opponentScore the best score among the receiving player's opponents
+     * @param rank the receiving player's finishing position
+     * @param players the number of players in the game
+     */
+    public static void writeGameOver(ByteBuffer out, byte outcome, int score, int opponentScore, int rank, int players) {
+        writeHeader(out, GAME_OVER, GAME_OVER_BYTES);
+        out.put(outcome);
+        out.putInt(score);
+        out.putInt(opponentScore);
+        out.put((byte) rank);
+        out.put((byte) players);
+    } // end writeGameOver
+
+    /**
+     * Method to write a MOVE frame
+     * @param out the buffer to write to, which must have room for the frame
+     * @param kind the move kind
+     * @param word the word played, ignored unless kind is MOVE_WORD
+     */
+    public static void writeMove(ByteBuffer out, byte kind, String word) {
+        int length = kind == MOVE_WORD ? word.length() : 0;
+        writeHeader(out, MOVE, 1 + length);
+        out.put(kind);
+        for (int i = 0; i < length; i++) {
+            out.put((byte) word.charAt(i));
+        }
+    } // end writeMove
+
+    /**
+     * Helper method to write a frame header
+     * @param out the buffer to write to
+     * @param type the message type
+     * @param payloadLength the number of payload bytes that will follow
+     */
+    private static void writeHeader(ByteBuffer out, byte type, int payloadLength) {
+        out.putShort((short) (1 + payloadLength));
+        out.put(type);
+    } // end writeHeader
+
+    /**
+     * Method to translate a client frame into the equivalent line of the text protocol, so the rest of
+     * the server handles both protocols the same way
+     * @param type the message type
+     * @param body the buffer holding the payload
+     * @param offset the index of the first payload byte
+     * @param length the number of payload bytes
+     * @return the equivalent text line, or null if the frame is not a client message or names an unknown move
+     */
+    public static String toLine(byte type, byte[] body, int offset, int length) {
+        if (type == NAME) {
+            return new String(body, offset, length, StandardCharsets.UTF_8);
+        }
+        if (type != MOVE || length < 1) return null;
+        switch (body[offset]) {
+            case MOVE_PASS:
+                return "1";
+            case MOVE_QUIT:
+                return "0";
+            case MOVE_HINT:
+                return "?";
+            case MOVE_WORD:
+                return new String(body, offset + 1, length - 1, StandardCharsets.US_ASCII);
+            default:
+                return null;
+        }
+    } // end toLine
+
+} // end class
@@ -0,0 +1,298 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: RatingMatchmaker
+ *
+ * This class contains rating-aware matchmaking. Each player name has an Elo-style rating, and waiting
+ * players are kept in queues bucketed by rating, held in a sorted map keyed by bucket. An arrival is
+ * compared with the oldest player in the nearest non-empty bucket on each side, which costs O(log b)
+ * for b occupied buckets regardless of how many players are waiting. Players who are not matched on
+ * arrival have their acceptable rating gap widened over time by a periodic sweep.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+public class RatingMatchmaker<T> {
+
+    public static final int DEFAULT_RATING = 1200; // rating given to a player the first time they are seen
+    private static final int K_FACTOR = 32; // maximum rating change from a single game
+
+    private final int bucketWidth; // rating points covered by each bucket
+    private final int baseWindow; // rating gap accepted as soon as a player arrives
+    private final int widenPerSecond; // rating gap added for each second a player waits
+    private final int maxWindow; // largest rating gap ever accepted
+
+    private final Map<String, Integer> ratings = new ConcurrentHashMap<>(); // rating per player name
+    private final TreeMap<Integer, ArrayDeque<Waiting<T>>> buckets = new TreeMap<>(); // non-empty buckets by index
+    private final ReentrantLock lock = new ReentrantLock(); // guards buckets and waitingCount
+    private int waitingCount = 0; // number of players in all buckets
+
+    private final BiConsumer<T, T> onMatch; // called with each matched pair, outside the lock
+    private final Predicate<T> isGone; // true for players who left while waiting
+
+    /**
+     * A player in a bucket, with their rating and when they joined
+     */
+    private static final class Waiting<T> {
+        private final T player;
+        private final int rating;
+        private final long enqueuedAt;
+
+        private Waiting(T player, int rating, long enqueuedAt) {
+            this.player = player;
+            this.rating = rating;
+            this.enqueuedAt = enqueuedAt;
+        }
+    } // end Waiting
+
+    /**
+     * Constructor to create a matchmaker with the default window settings
+     * @param onMatch called with each matched pair
+     * @param isGone true for players who left while waiting and should be dropped
+     */
+    public RatingMatchmaker(BiConsumer<T, T> onMatch, Predicate<T> isGone) {
+        this(50, 100, 50, 1000, onMatch, isGone);
+    } // end constructor
+
+    /**
+     * Constructor to create a matchmaker with custom window settings
+     * @param bucketWidth rating points covered by each bucket
+     * @param baseWindow rating gap accepted as soon as a player arrives
+     * @param widenPerSecond rating gap added for each second a player waits
+     * @param maxWindow largest rating gap ever accepted
+     * @param onMatch called with each matched pair
+     * @param isGone true for players who left while waiting and should be dropped
+     */
+    public RatingMatchmaker(int bucketWidth, int baseWindow, int widenPerSecond, int maxWindow,
+            BiConsumer<T, T> onMatch, Predicate<T> isGone) {
+        this.bucketWidth = bucketWidth;
+        this.baseWindow = baseWindow;
+        this.widenPerSecond = widenPerSecond;
+        this.maxWindow = maxWindow;
+        this.onMatch = onMatch;
+        this.isGone = isGone;
+    } // end constructor
+
+    /**
+     * Getter for a player's rating
+     * @param name the player's name
+     * @return the rating, or the default rating for a new player
+     */
+    public int getRating(String name) {
+        return ratings.getOrDefault(name, DEFAULT_RATING);
+    } // end getRating
+
+    /**
+     * Method to update both players' Elo ratings after a game
+     * @param nameA the first player's name
+     * @param nameB the second player's name
+     * @param scoreA 1 if the first player won, 0.5 for a tie, 0 if they lost
+     */
+    public void recordResult(String nameA, String nameB, double scoreA) {
+        int ratingA = getRating(nameA);
+        int ratingB = getRating(nameB);
+        double expectedA = 1.0 / (1.0 + Math.pow(10, (ratingB - ratingA) / 400.0));
+        int change = (int) Math.round(K_FACTOR * (scoreA - expectedA));
+        ratings.put(nameA, ratingA + change);
+        ratings.put(nameB, ratingB - change);
+    } // end recordResult
+
+    /**
+     * Method to add a player to matchmaking. If an opponent within range is waiting, the pair is
+     * passed to the match callback straight away; otherwise the player waits in their rating bucket.
+     * @param player the player to add
+     * @param name the player's name, used to look up their rating
+     */
+    public void add(T player, String name) {
+        add(player, getRating(name), System.nanoTime());
+    } // end add
+
+    /**
+     * Method to add a player with a known rating and arrival time
+     * @param player the player to add
+     * @param rating the player's rating
+     * @param now the arrival time from System.nanoTime()
+     */
+    public void add(T player, int rating, long now) {
+        Waiting<T> arrival = new Waiting<>(player, rating, now);
+        Waiting<T> partner;
+        lock.lock();
+        try {
+            partner = takePartner(arrival, now);
+            if (partner == null) {
+                insert(arrival);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (partner != null) {
+            onMatch.accept(partner.player, arrival.player);
+        }
+    } // end add
+
+    /**
+     * Method to retry waiting players with their widened windows. Visits the oldest player in every
+     * bucket, so its cost depends on the number of occupied buckets, not the number of waiting players.
+     * @param now the current time from System.nanoTime()
+     */
+    public void sweep(long now) {
+        ArrayList<Waiting<T>> matched = new ArrayList<>();
+        lock.lock();
+        try {
+            for (Integer key : new ArrayList<>(buckets.keySet())) {
+                Waiting<T> head = removeHead(key);
+                if (head == null || isGone.test(head.player)) continue;
+                Waiting<T> partner = takePartner(head, now);
+                if (partner == null) {
+                    buckets.computeIfAbsent(key, k -> new ArrayDeque<>()).addFirst(head);
+                    waitingCount++;
+                } else {
+                    matched.add(partner);
+                    matched.add(head);
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (int i = 0; i < matched.size(); i += 2) {
+            onMatch.accept(matched.get(i).player, matched.get(i + 1).player);
+        }
+    } // end sweep
+
+    /**
+     * Method to remove every waiting player who has left. Visits every waiting player, so it is meant
+     * to be called occasionally rather than on each arrival.
+     * @return the number of players removed
+     */
+    public int evictGone() {
+        lock.lock();
+        try {
+            int removed = 0;
+            for (Integer key : new ArrayList<>(buckets.keySet())) {
+                ArrayDeque<Waiting<T>> queue = buckets.get(key);
+                int before = queue.size();
+                queue.removeIf(waiting -> isGone.test(waiting.player));
+                removed += before - queue.size();
+                if (queue.isEmpty()) buckets.remove(key);
+            }
+            waitingCount -= removed;
+            return removed;
+        } finally {
+            lock.unlock();
+        }
+    } // end evictGone
+
+    /**
+     * Getter for the number of waiting players
+     * @return the number of players in all buckets
+     */
+    public int getWaitingCount() {
+        lock.lock();
+        try {
+            return waitingCount;
+        } finally {
+            lock.unlock();
+        }
+    } // end getWaitingCount
+
+    /**
+     * Helper method to find, remove and return the closest acceptable opponent for a player, if any.
+     * Only the oldest player in the nearest occupied bucket on each side is considered. Called with the lock held.
+     * @param seeker the player looking for an opponent, who must not be in a bucket
+     * @param now the current time
+     * @return the opponent, or null if none is within range
+     */
+    private Waiting<T> takePartner(Waiting<T> seeker, long now) {
+        int bucket = bucketOf(seeker.rating);
+        Integer below = headKey(buckets.floorKey(bucket), true);
+        Integer above = headKey(buckets.higherKey(bucket), false);
+
+        Waiting<T> low = below == null ? null : buckets.get(below).peekFirst();
+        Waiting<T> high = above == null ? null : buckets.get(above).peekFirst();
+        Waiting<T> best = low;
+        Integer bestKey = below;
+        if (high != null && (best == null || Math.abs(high.rating - seeker.rating) < Math.abs(best.rating - seeker.rating))) {
+            best = high;
+            bestKey = above;
+        }
+        if (best == null) return null;
+
+        int gap = Math.abs(best.rating - seeker.rating);
+        if (gap > Math.max(windowFor(seeker, now), windowFor(best, now))) return null;
+        return removeHead(bestKey);
+    } // end takePartner
+
+    /**
+     * Helper method to skip past buckets whose heads have left, dropping those players
+     * @param key the starting bucket key, or null
+     * @param downward true to continue to lower buckets, false for higher
+     * @return the key of the nearest bucket with a live head, or null if there is none
+     */
+    private Integer headKey(Integer key, boolean downward) {
+        while (key != null) {
+            ArrayDeque<Waiting<T>> queue = buckets.get(key);
+            while (!queue.isEmpty() && isGone.test(queue.peekFirst().player)) {
+                queue.pollFirst();
+                waitingCount--;
+            }
+            if (!queue.isEmpty()) return key;
+            buckets.remove(key);
+            key = downward ? buckets.lowerKey(key) : buckets.higherKey(key);
+        }
+        return null;
+    } // end headKey
+
+    /**
+     * Helper method to remove the oldest player from a bucket, dropping the bucket if it empties
+     * @param key the bucket key
+     * @return the removed player, or null if the bucket does not exist
+     */
+    private Waiting<T> removeHead(Integer key) {
+        ArrayDeque<Waiting<T>> queue = buckets.get(key);
+        if (queue == null) return null;
+        Waiting<T> head = queue.pollFirst();
+        if (queue.isEmpty()) buckets.remove(key);
+        if (head != null) waitingCount--;
+        return head;
+    } // end removeHead
+
+    /**
+     * Helper method to place a player at the back of their rating bucket
+     * @param waiting the player to insert
+     */
+    private void insert(Waiting<T> waiting) {
+        buckets.computeIfAbsent(bucketOf(waiting.rating), k -> new ArrayDeque<>()).addLast(waiting);
+        waitingCount++;
+    } // end insert
+
+    /**
+     * Helper method to compute the rating gap a waiting player will currently accept
+     * @param waiting the waiting player
+     * @param now the current time
+     * @return the acceptable rating gap
+     */
+    private int windowFor(Waiting<T> waiting, long now) {
+        long seconds = (now - waiting.enqueuedAt) / 1_000_000_000L;
+        return (int) Math.min(maxWindow, baseWindow + seconds * widenPerSecond);
+    } // end windowFor
+
+    /**
+     * Helper method to map a rating to its bucket index
+     * @param rating the rating
+     * @return the bucket index
+     */
+    private int bucketOf(int rating) {
+        return Math.floorDiv(rating, bucketWidth);
+    } // end bucketOf
+
+} // end class
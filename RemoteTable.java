@@ -0,0 +1,278 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: RemoteTable
+ *
+ * This class contains a table a lobby has matched and routed to a game node, which plays the game. Each player has
+ * their own link to the node, speaking the binary Protocol whatever protocol the player speaks to the lobby. The
+ * player's input is sent to the node as MOVE frames, and a relay thread per link reads the node's frames and queues
+ * them on the player's channel, flushing once the node has nothing more to send, so a turn is still one write.
+ * A link that fails before the player's game is over, while the player is still connected, means the node has gone
+ * away: the LobbyRouter is told, and the player is requeued for a new game. A player told the game was quit has
+ * their connection closed, as in a game played locally, and the node closing their link after that is expected.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+public class RemoteTable implements GameTable {
+
+    private final LobbyRouter router; // the router that routed the table, told when a link fails
+    private final LobbyRouter.Node node; // the node the table is played on
+    private final long id; // the table's id, unique to the lobby
+    private final Seat[] seats; // each player's link to the node, in turn order
+
+    /**
+     * One player at the table and their link to the node
+     */
+    private static final class Seat {
+        private final PlayerChannel player; // the player's channel to the lobby
+        private final ByteBuffer frame = ByteBuffer.allocate(Protocol.MAX_FRAME_BYTES + 2); // frame being sent, guarded by the seat
+        private Socket socket; // the link to the node
+        private DataInputStream in; // frames from the node
+        private OutputStream out; // frames to the node, guarded by the seat
+        private volatile boolean done = false; // flag for if the player's game is over or they left it
+
+        private Seat(PlayerChannel player) {
+            this.player = player;
+        }
+    } // end Seat
+
+    /**
+     * Constructor to create a table routed to a node
+     * @param router the router routing the table
+     * @param node the node it is played on
+     * @param id the table's id
+     * @param players the matched players, in turn order
+     */
+    public RemoteTable(LobbyRouter router, LobbyRouter.Node node, long id, PlayerChannel[] players) {
+        this.router = router;
+        this.node = node;
+        this.id = id;
+        this.seats = new Seat[players.length];
+        for (int i = 0; i < players.length; i++) {
+            seats[i] = new Seat(players[i]);
+        }
+    } // end constructor
+
+    /**
+     * Method to open every player's link to the node and seat them at the table there. If any link cannot be
+     * opened, every link is closed again.
+     * @param connectTimeoutMillis how long to wait for each connection
+     * @return true if every player is seated, false if the node could not be reached
+     */
+    public boolean open(int connectTimeoutMillis) {
+        try {
+            for (int i = 0; i < seats.length; i++) {
+                Seat seat = seats[i];
+                seat.socket = new Socket();
+                seat.socket.connect(node.getAddress(), connectTimeoutMillis);
+                seat.socket.setTcpNoDelay(true); // the node batches its writes per turn already
+                seat.in = new DataInputStream(new BufferedInputStream(seat.socket.getInputStream()));
+                seat.out = seat.socket.getOutputStream();
+                byte[] request = (Protocol.CLUSTER_SEAT + " " + id + " " + i + " " + seats.length + "\n").getBytes(StandardCharsets.US_ASCII);
+                byte[] name = seat.player.getPlayer().getName().getBytes(StandardCharsets.UTF_8); // cut to fit a frame by writeText
+                synchronized (seat) {
+                    seat.out.write(request);
+                    seat.frame.clear();
+                    Protocol.writeText(seat.frame, Protocol.NAME, name);
+                    seat.out.write(seat.frame.array(), 0, seat.frame.position());
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            for (Seat seat : seats) {
+                seat.done = true;
+                close(seat);
+            }
+            return false;
+        }
+    } // end open
+
+    /**
+     * Method to hand each player to the table and start relaying the node's messages to them
+     * @param executor the executor to run each link's relay on
+     */
+    public void start(Executor executor) {
+        for (Seat seat : seats) {
+            seat.player.setSession(this);
+            executor.execute(() -> relay(seat));
+            if (seat.player.isClosed()) leave(seat); // left before their input could reach the table
+        }
+    } // end start
+
+    @Override
+    public void onInput(PlayerChannel handler, String word) {
+        Seat seat = seatOf(handler);
+        if (seat == null || seat.done) return;
+        if (word == null) {
+            leave(seat);
+            return;
+        }
+        synchronized (seat) {
+            try {
+                seat.frame.clear();
+                if (word.equals("1")) {
+                    Protocol.writeMove(seat.frame, Protocol.MOVE_PASS, null);
+                } else if (word.equals("0")) {
+                    Protocol.writeMove(seat.frame, Protocol.MOVE_QUIT, null);
+                } else if (word.equals("?")) {
+                    Protocol.writeMove(seat.frame, Protocol.MOVE_HINT, null);
+                } else {
+                    int longest = Protocol.MAX_FRAME_BYTES - 2; // room for the type and move kind
+                    Protocol.writeMove(seat.frame, Protocol.MOVE_WORD, word.length() > longest ? word.substring(0, longest) : word);
+                }
+                seat.out.write(seat.frame.array(), 0, seat.frame.position());
+            } catch (IOException e) {
+                close(seat); // the relay finds the link closed and reports it
+            }
+        }
+    } // end onInput
+
+    /**
+     * Method to close every link, for a node that has stopped answering. Players whose games were not over are requeued.
+     */
+    public void abandon() {
+        for (Seat seat : seats) {
+            close(seat);
+        }
+    } // end abandon
+
+    /**
+     * Helper method run on a link's own thread to pass each of the node's messages on to the player,
+     * until the player's game is over or the link fails
+     * @param seat the player's seat
+     */
+    private void relay(Seat seat) {
+        PlayerChannel player = seat.player;
+        byte[] payload = new byte[Protocol.MAX_FRAME_BYTES];
+        boolean quit = false; // flag for if the node said the game was quit
+        try {
+            while (!seat.done) {
+                int length = seat.in.readUnsignedShort();
+                if (length == 0 || length > Protocol.MAX_FRAME_BYTES) throw new IOException("Frame too long");
+                byte type = seat.in.readByte();
+                seat.in.readFully(payload, 0, length - 1);
+                switch (type) {
+                    case Protocol.INFO:
+                        player.queueMessage(new String(payload, 0, length - 1, StandardCharsets.UTF_8));
+                        break;
+                    case Protocol.TURN_PROMPT:
+                        List<Character> rack = new ArrayList<>(length - 1);
+                        for (int i = 0; i < length - 1; i++) {
+                            rack.add((char) payload[i]);
+                        }
+                        player.queueTurnPrompt(rack);
+                        break;
+                    case Protocol.RESULT:
+                        if (payload[0] != Protocol.RESULT_ACCEPTED) player.queueResult(payload[0], 0); // an accepted word waits for its SCORE
+                        if (payload[0] == Protocol.RESULT_QUIT) {
+                            quit = true;
+                            seat.done = true; // the node closes the link next
+                        }
+                        break;
+                    case Protocol.SCORE:
+                        player.queueResult(Protocol.RESULT_ACCEPTED, ByteBuffer.wrap(payload, 0, 4).getInt());
+                        break;
+                    case Protocol.GAME_OVER:
+                        ByteBuffer result = ByteBuffer.wrap(payload, 0, Protocol.GAME_OVER_BYTES);
+                        result.get(); // the outcome follows from the scores
+                        int score = result.getInt();
+                        int opponentScore = result.getInt();
+                        player.queueGameOver(score, opponentScore, result.get(), result.get());
+                        seat.done = true;
+                        break;
+                    default:
+                        break;
+                }
+                if (seat.done || seat.in.available() == 0) player.flush(); // one write for everything the node sent together
+            }
+        } catch (IOException e) {
+            // the link closed, which is expected once the player has left
+        } finally {
+            close(seat);
+        }
+        if (quit) {
+            player.setSession(null);
+            player.cleanup(); // a quit game closes every connection told of it, as a local session does
+        }
+        if (!seat.done) {
+            seat.done = true;
+            if (!player.isClosed()) router.seatLost(this, player);
+        }
+        if (isDone()) router.tableDone(this);
+    } // end relay
+
+    /**
+     * Helper method to end a player's part in the table when they disconnect or quit, which the node sees as
+     * their link closing
+     * @param seat the player's seat
+     */
+    private void leave(Seat seat) {
+        seat.done = true;
+        close(seat);
+    } // end leave
+
+    /**
+     * Helper method to close a player's link to the node
+     * @param seat the player's seat
+     */
+    private static void close(Seat seat) {
+        try {
+            if (seat.socket != null) seat.socket.close();
+        } catch (IOException e) {
+            System.err.println("Error closing link to node: " + e.getMessage());
+        }
+    } // end close
+
+    /**
+     * Helper method to find a player's seat
+     * @param handler the player's channel
+     * @return the seat, or null if the player is not at this table
+     */
+    private Seat seatOf(PlayerChannel handler) {
+        for (Seat seat : seats) {
+            if (seat.player == handler) return seat;
+        }
+        return null;
+    } // end seatOf
+
+    /**
+     * Method to determine if every player's game at the table is over, or they have left it
+     * @return true if no player is still playing
+     */
+    public boolean isDone() {
+        for (Seat seat : seats) {
+            if (!seat.done) return false;
+        }
+        return true;
+    } // end isDone
+
+    /**
+     * Getter for the node the table is played on
+     * @return the node
+     */
+    public LobbyRouter.Node getNode() {
+        return node;
+    } // end getNode
+
+    /**
+     * Getter for the table's id
+     * @return the id, unique to the lobby
+     */
+    public long getId() {
+        return id;
+    } // end getId
+
+} // end class
@@ -0,0 +1,100 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: ResultPipeline
+ *
+ * This class contains the game-completion pipeline. Sessions hand a GameResult to a bounded queue and move on,
+ * and a single consumer thread drains the queue in batches and passes each batch to a handler, which applies
+ * ratings, stats and persistence. Having one consumer also means results are applied one at a time, so
+ * handlers need no locking of their own. The consumer thread is started with the first result.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+public class ResultPipeline {
+
+    private static final int QUEUE_CAPACITY = 16_384; // results waiting for the consumer before new ones are dropped
+    private static final int MAX_BATCH = 256; // most results handled in one batch
+    private static final long POLL_MILLIS = 100; // longest the consumer waits for a result before checking if it should stop
+
+    private final BlockingQueue<GameResult> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY); // results waiting to be handled
+    private final Consumer<List<GameResult>> handler; // applies each batch of results
+    private final AtomicBoolean started = new AtomicBoolean(); // flag for if the consumer thread has been started
+    private volatile boolean running = true; // cleared once the pipeline is closed
+    private volatile Thread consumer; // the consumer thread, once started
+
+    /**
+     * Constructor to create a pipeline
+     * @param handler applies each batch of results, on the consumer thread
+     */
+    public ResultPipeline(Consumer<List<GameResult>> handler) {
+        this.handler = handler;
+    } // end constructor
+
+    /**
+     * Method to hand a result to the pipeline. Returns at once, and drops the result if the queue is full
+     * rather than blocking the session.
+     * @param result the result
+     * @return true if the result was queued
+     */
+    public boolean submit(GameResult result) {
+        if (!started.get() && started.compareAndSet(false, true)) {
+            Thread thread = new Thread(this::run, "wordsmith-results");
+            thread.setDaemon(true);
+            consumer = thread;
+            thread.start();
+        }
+        if (running && queue.offer(result)) return true;
+        Metrics.RESULTS_DROPPED.increment();
+        return false;
+    } // end submit
+
+    /**
+     * Method to stop accepting results and wait for every queued result to be handled
+     * @throws InterruptedException if interrupted while waiting for the consumer
+     */
+    public void close() throws InterruptedException {
+        running = false;
+        if (started.compareAndSet(false, true)) return; // never started, so nothing is queued
+        while (consumer == null) Thread.onSpinWait(); // started by a submit that has not yet published the thread
+        consumer.join();
+    } // end close
+
+    /**
+     * Helper method run by the consumer thread, handling the queued results in batches until the pipeline is closed
+     */
+    private void run() {
+        List<GameResult> batch = new ArrayList<>(MAX_BATCH);
+        while (running || !queue.isEmpty()) {
+            try {
+                GameResult first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                handler.accept(batch);
+            } catch (RuntimeException e) {
+                System.err.println("Error handling game results: " + e);
+            }
+            long now = System.nanoTime();
+            for (GameResult result : batch) {
+                Metrics.RESULT_LAG.record(now - result.getFinishedAt());
+            }
+            Metrics.RESULTS_PUBLISHED.add(batch.size());
+            batch.clear();
+        }
+    } // end run
+
+} // end class
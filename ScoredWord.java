@@ -0,0 +1,128 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: ScoredWord
+ *
+ * This class contains everything the server needs to judge and play a word, worked out in a single pass:
+ * the normalized word, whether it is in the dictionary, its points, and how many of each letter it uses.
+ * Players check and spend their rack against the letter counts, so a move never re-scans or re-cases the word.
+ * Instances are immutable and are shared across sessions through the WordCache of the Dictionary they were judged against.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+public final class ScoredWord {
+
+    private final String word; // the normalized word
+    private final boolean valid; // flag for if the word is in the dictionary
+    private final int points; // the points the word scores
+    private final byte[] letterCounts = new byte[26]; // the count of each letter 'a'-'z' in the word
+    private final boolean lettersOnly; // flag for if every character is a letter 'a'-'z'
+
+    /**
+     * Constructor to score and validate a normalized word
+     * @param word the word, already normalized with normalize
+     * @param dictionary the dictionary to validate the word against
+     */
+    ScoredWord(String word, Dictionary dictionary) {
+        this.word = word;
+        int total = 0;
+        boolean letters = true;
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            if (c < 'a' || c > 'z') {
+                letters = false;
+                continue;
+            }
+            if (letterCounts[c - 'a'] < Byte.MAX_VALUE) letterCounts[c - 'a']++; // no rack holds this many, so saturating is safe
+            total += LetterPool.getLetterPoints(c);
+        }
+        this.points = total;
+        this.lettersOnly = letters;
+        this.valid = letters && dictionary.contains(word);
+    } // end constructor
+
+    /**
+     * Method to trim and lowercase a player's input in one pass. Input that is already trimmed and lowercase,
+     * which is what clients normally send, is returned as is without allocating.
+     * @param input the input, or null
+     * @return the normalized input, or null if the input was null
+     */
+    public static String normalize(String input) {
+        if (input == null) return null;
+        int start = 0;
+        int end = input.length();
+        while (start < end && input.charAt(start) <= ' ') start++;
+        while (end > start && input.charAt(end - 1) <= ' ') end--;
+
+        boolean lower = true;
+        for (int i = start; i < end && lower; i++) {
+            char c = input.charAt(i);
+            lower = c < 'A' || c > 'Z';
+        }
+        if (lower) return start == 0 && end == input.length() ? input : input.substring(start, end);
+
+        char[] chars = new char[end - start];
+        for (int i = start; i < end; i++) {
+            char c = input.charAt(i);
+            chars[i - start] = c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : Character.toLowerCase(c);
+        }
+        return new String(chars);
+    } // end normalize
+
+    /**
+     * Getter for the normalized word
+     * @return the word
+     */
+    public String getWord() {
+        return word;
+    } // end getWord
+
+    /**
+     * Getter for whether the word is in the dictionary
+     * @return true if the word is valid
+     */
+    public boolean isValid() {
+        return valid;
+    } // end isValid
+
+    /**
+     * Getter for the points the word scores, as LetterPool.getWordPoints would score it
+     * @return the points
+     */
+    public int getPoints() {
+        return points;
+    } // end getPoints
+
+    /**
+     * Getter for how many of a letter the word uses
+     * @param letter the index of the letter, 0 for 'a' to 25 for 'z'
+     * @return the count
+     */
+    public int getLetterCount(int letter) {
+        return letterCounts[letter];
+    } // end getLetterCount
+
+    /**
+     * Getter for whether the word is made only of letters, and so could be formed from a rack
+     * @return true if every character is a letter 'a'-'z'
+     */
+    public boolean isLettersOnly() {
+        return lettersOnly;
+    } // end isLettersOnly
+
+    /**
+     * Method to determine if the word can be formed from the letters in a rack
+     * @param rack the count of each letter 'A'-'Z' in the rack
+     * @return true if the word is made only of letters and the rack holds every letter it uses
+     */
+    public boolean canBeFormedFrom(int[] rack) {
+        if (!lettersOnly) return false;
+        for (int letter = 0; letter < 26; letter++) {
+            if (letterCounts[letter] > rack[letter]) return false;
+        }
+        return true;
+    } // end canBeFormedFrom
+
+} // end class
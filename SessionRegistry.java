@@ -0,0 +1,157 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: SessionRegistry
+ *
+ * This class contains a registry of live game sessions split into independently locked shards, so threads
+ * starting and ending sessions on different cores rarely wait on each other. Each session is given an id whose
+ * low bits name the shard holding it, so adding and removing are O(1) hash map operations under one shard's lock.
+ * A thread adds to the shard picked by its own thread id, so a fixed set of event loops or session threads
+ * each tend to keep to their own shard. Iteration visits one shard at a time, copying it under its lock and
+ * running the action outside, so stats and shutdown never stall the whole registry.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class SessionRegistry<T> {
+
+    private final Shard<T>[] shards; // the shards, a power of two of them
+    private final int shardBits; // number of low id bits naming the shard
+    private final int mask; // shard count minus one
+
+    /**
+     * One independently locked part of the registry
+     */
+    private static final class Shard<T> {
+        private final ReentrantLock lock = new ReentrantLock(); // guards the fields below
+        private final HashMap<Long, T> sessions = new HashMap<>(); // sessions in this shard by id
+        private long nextSequence = 0; // sequence number for the next id handed out by this shard
+    } // end Shard
+
+    /**
+     * Constructor to create a registry with four shards per available processor
+     */
+    public SessionRegistry() {
+        this(4 * Runtime.getRuntime().availableProcessors());
+    } // end constructor
+
+    /**
+     * Constructor to create a registry with a given number of shards
+     * @param shardCount the number of shards, rounded up to a power of two
+     */
+    @SuppressWarnings("unchecked")
+    public SessionRegistry(int shardCount) {
+        int size = Integer.highestOneBit(Math.max(1, shardCount - 1)) << 1;
+        this.shards = (Shard<T>[]) new Shard<?>[size];
+        for (int i = 0; i < size; i++) {
+            shards[i] = new Shard<>();
+        }
+        this.shardBits = Integer.numberOfTrailingZeros(size);
+        this.mask = size - 1;
+    } // end constructor
+
+    /**
+     * Method to add a session to the shard belonging to the calling thread
+     * @param session the session to add
+     * @return the session's id, which is needed to remove it
+     */
+    public long add(T session) {
+        int index = spread(Thread.currentThread().getId()) & mask;
+        Shard<T> shard = shards[index];
+        shard.lock.lock();
+        try {
+            long id = (shard.nextSequence++ << shardBits) | index;
+            shard.sessions.put(id, session);
+            return id;
+        } finally {
+            shard.lock.unlock();
+        }
+    } // end add
+
+    /**
+     * Method to look up a session
+     * @param id the id the session was given when it was added
+     * @return the session, or null if it is not in the registry
+     */
+    public T get(long id) {
+        Shard<T> shard = shards[(int) (id & mask)];
+        shard.lock.lock();
+        try {
+            return shard.sessions.get(id);
+        } finally {
+            shard.lock.unlock();
+        }
+    } // end get
+
+    /**
+     * Method to remove a session
+     * @param id the id the session was given when it was added
+     * @return the session, or null if it had already been removed
+     */
+    public T remove(long id) {
+        Shard<T> shard = shards[(int) (id & mask)];
+        shard.lock.lock();
+        try {
+            return shard.sessions.remove(id);
+        } finally {
+            shard.lock.unlock();
+        }
+    } // end remove
+
+    /**
+     * Getter for the number of sessions in the registry. Each shard is counted at a slightly different
+     * moment, so the total is only exact while nothing is being added or removed.
+     * @return the session count
+     */
+    public int size() {
+        int size = 0;
+        for (Shard<T> shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.sessions.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    } // end size
+
+    /**
+     * Method to run an action on every session. Each shard is copied under its lock and the action runs
+     * outside it, so the action may add or remove sessions. Sessions added during the call may be missed.
+     * @param action the action to run
+     */
+    public void forEach(Consumer<T> action) {
+        List<T> batch = new ArrayList<>();
+        for (Shard<T> shard : shards) {
+            shard.lock.lock();
+            try {
+                batch.addAll(shard.sessions.values());
+            } finally {
+                shard.lock.unlock();
+            }
+            for (T session : batch) {
+                action.accept(session);
+            }
+            batch.clear();
+        }
+    } // end forEach
+
+    /**
+     * Helper method to mix the bits of a thread id, so threads created in sequence land on different shards
+     * @param threadId the thread id
+     * @return the mixed value
+     */
+    private static int spread(long threadId) {
+        long h = threadId * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    } // end spread
+
+} // end class
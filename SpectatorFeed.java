@@ -0,0 +1,171 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: SpectatorFeed
+ *
+ * This class contains the live feed of one game session, fanned out to every client watching it.
+ * Each event is encoded once, as a text line and as a binary INFO frame, into read-only direct buffers,
+ * and every spectator is handed a duplicate of the same buffer, so the bytes are never copied per spectator.
+ * Spectators are grouped by the event loop driving them, and each loop is handed one task that writes the
+ * event to its own spectators, so the session's thread never writes to a spectator's socket. Spectators
+ * without an event loop are handed the event through a bounded queue drained by their own thread.
+ * A spectator that falls BACKLOG_EVENTS events behind misses the events that follow until it catches up,
+ * and one that misses MAX_DROPPED_EVENTS in a row is disconnected, so a slow spectator never holds up the game.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class SpectatorFeed {
+
+    public static final int BACKLOG_EVENTS = 64; // events a spectator may have waiting before newer ones are dropped
+    public static final int MAX_DROPPED_EVENTS = 64; // events a spectator may miss in a row before it is disconnected
+    private static final Object OWN_THREAD = new Object(); // group key for spectators drained by their own thread
+
+    private final Map<Object, List<ClientHandler>> groups = new ConcurrentHashMap<>(); // spectators by event loop
+    private volatile boolean watched = false; // flag for if anyone has subscribed
+    private volatile boolean closed = false; // flag for if the final event has been published
+
+    /**
+     * One event, encoded once and shared read-only by every spectator
+     */
+    public static final class Event {
+        private final byte[] text; // the event as a text protocol line
+        private final byte[] frame; // the event as a binary protocol INFO frame
+        private final ByteBuffer sharedText; // read-only direct copy of text
+        private final ByteBuffer sharedFrame; // read-only direct copy of frame
+        private final boolean last; // flag for if this is the final event of the feed
+
+        private Event(String message, boolean last) {
+            byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > Protocol.MAX_FRAME_BYTES - 1) bytes = Arrays.copyOf(bytes, Protocol.fittingTextLength(bytes));
+            ByteBuffer line = ByteBuffer.allocate(bytes.length + 1);
+            line.put(bytes).put((byte) '\n');
+            ByteBuffer info = ByteBuffer.allocate(Protocol.HEADER_BYTES + bytes.length);
+            Protocol.writeText(info, Protocol.INFO, bytes);
+            this.text = line.array();
+            this.frame = info.array();
+            this.sharedText = share(text);
+            this.sharedFrame = share(frame);
+            this.last = last;
+        }
+
+        private static ByteBuffer share(byte[] bytes) {
+            ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+            direct.put(bytes).flip();
+            return direct.asReadOnlyBuffer();
+        }
+
+        /**
+         * Getter for a spectator's own view of the encoded event, which shares its bytes with every other view
+         * @param binary true for the binary protocol encoding, false for the text protocol
+         * @return a read-only buffer positioned at the start of the event
+         */
+        public ByteBuffer view(boolean binary) {
+            return (binary ? sharedFrame : sharedText).duplicate();
+        } // end view
+
+        /**
+         * Getter for the encoded event, for spectators written to with a blocking stream
+         * @param binary true for the binary protocol encoding, false for the text protocol
+         * @return the encoded bytes, which must not be changed
+         */
+        public byte[] bytes(boolean binary) {
+            return binary ? frame : text;
+        } // end bytes
+
+        /**
+         * Getter for whether this is the final event, after which the spectator is disconnected
+         * @return true if this is the last event
+         */
+        public boolean isLast() {
+            return last;
+        } // end isLast
+    } // end Event
+
+    /**
+     * Method to add a spectator. Called with the session's lock held, so no event is published meanwhile.
+     * @param spectator the client to send events to
+     * @return true if the spectator was added, false if the feed has already closed
+     */
+    public boolean subscribe(ClientHandler spectator) {
+        if (closed) return false;
+        EventLoop loop = spectator.getEventLoop();
+        groups.computeIfAbsent(loop != null ? loop : OWN_THREAD, key -> new CopyOnWriteArrayList<>()).add(spectator);
+        watched = true;
+        Metrics.SPECTATORS_ACTIVE.increment();
+        return true;
+    } // end subscribe
+
+    /**
+     * Getter for whether anyone is watching, so the session can skip describing events nobody will see
+     * @return true if a spectator has subscribed
+     */
+    public boolean isWatched() {
+        return watched;
+    } // end isWatched
+
+    /**
+     * Method to send an event to every spectator. Called with the session's lock held, so events stay in order.
+     * @param message the event, as text shown to the spectator
+     */
+    public void publish(String message) {
+        publish(message, false);
+    } // end publish
+
+    /**
+     * Method to send the final event to every spectator, then disconnect them once it has been written
+     * @param message the final event
+     */
+    public void close(String message) {
+        if (closed) return;
+        closed = true;
+        publish(message, true);
+    } // end close
+
+    /**
+     * Helper method to encode an event once and hand it to each group of spectators
+     * @param message the event
+     * @param last true if this is the final event
+     */
+    private void publish(String message, boolean last) {
+        if (!watched) return;
+        Event event = new Event(message, last);
+        Metrics.SPECTATOR_EVENTS.increment();
+        for (Map.Entry<Object, List<ClientHandler>> group : groups.entrySet()) {
+            List<ClientHandler> spectators = group.getValue();
+            if (group.getKey() == OWN_THREAD) {
+                deliver(spectators, event); // only offers to each spectator's queue, so it never blocks
+            } else {
+                ((EventLoop) group.getKey()).execute(() -> deliver(spectators, event));
+            }
+        }
+    } // end publish
+
+    /**
+     * Helper method to offer an event to a group of spectators, dropping those that have gone
+     * @param spectators the spectators
+     * @param event the event
+     */
+    private static void deliver(List<ClientHandler> spectators, Event event) {
+        for (ClientHandler spectator : spectators) {
+            if (!spectator.offerEvent(event) && !event.isLast() && spectators.remove(spectator)) {
+                Metrics.SPECTATORS_ACTIVE.decrement();
+            }
+        }
+        if (event.isLast()) {
+            int remaining = spectators.size();
+            spectators.clear();
+            Metrics.SPECTATORS_ACTIVE.add(-remaining);
+        }
+    } // end deliver
+
+} // end class
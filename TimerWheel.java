@@ -0,0 +1,209 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: TimerWheel
+ *
+ * This class contains a hashed timer wheel that runs every server deadline on one daemon thread.
+ * The wheel is a ring of buckets, each covering one tick. A timeout is hashed to the bucket for its
+ * deadline tick, along with the number of full turns of the wheel left before it is due, so scheduling
+ * and cancelling are O(1) however many timeouts are pending. Scheduling threads hand new timeouts to the
+ * wheel thread through a lock-free queue, and only the wheel thread touches the buckets. Cancelled
+ * timeouts are handed over the same way and unlinked on the next tick, so they do not build up.
+ * Tasks run on the wheel thread, so they must be short and must not block.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+public final class TimerWheel {
+
+    public static final TimerWheel SHARED = new TimerWheel(100, TimeUnit.MILLISECONDS, 512, "wordsmith-timer"); // the server's timer
+
+    private final long tickNanos; // length of one tick
+    private final int mask; // bucket count minus one, the bucket count being a power of two
+    private final Timeout[] buckets; // head of each bucket's list, owned by the wheel thread
+    private final ConcurrentLinkedQueue<Timeout> incoming = new ConcurrentLinkedQueue<>(); // scheduled but not yet placed
+    private final ConcurrentLinkedQueue<Timeout> cancelled = new ConcurrentLinkedQueue<>(); // cancelled but not yet unlinked
+    private final long startNanos = System.nanoTime(); // time zero for tick numbers
+    private final LongAdder pending = new LongAdder(); // timeouts scheduled but not yet run or cancelled
+    private long tick = 0; // the next tick to process, owned by the wheel thread
+
+    /**
+     * A scheduled task, which can be cancelled until it has run
+     */
+    public static final class Timeout {
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE = AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        private static final int WAITING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+
+        private final TimerWheel wheel;
+        private final Runnable task;
+        private final long deadlineTick; // tick at or after which the task runs
+        private volatile int state = WAITING;
+        private long rounds; // remaining turns of the wheel, owned by the wheel thread
+        private int bucket = -1; // index of the bucket holding the timeout, or -1, owned by the wheel thread
+        private Timeout next; // neighbours in the bucket, owned by the wheel thread
+        private Timeout prev;
+
+        private Timeout(TimerWheel wheel, Runnable task, long deadlineTick) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        /**
+         * Method to stop the task from running
+         * @return true if the task had not yet run or been cancelled
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, WAITING, CANCELLED)) return false;
+            wheel.pending.decrement();
+            wheel.cancelled.offer(this);
+            return true;
+        } // end cancel
+
+        /**
+         * Method to determine if the task has run
+         * @return true once the task has been started
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        } // end isExpired
+    } // end Timeout
+
+    /**
+     * Constructor to create a timer wheel and start its thread
+     * @param tick the length of one tick
+     * @param unit the unit of tick
+     * @param bucketCount the number of buckets, rounded up to a power of two
+     * @param threadName the name of the wheel thread
+     */
+    public TimerWheel(long tick, TimeUnit unit, int bucketCount, String threadName) {
+        this.tickNanos = unit.toNanos(tick);
+        int size = Integer.highestOneBit(Math.max(1, bucketCount - 1)) << 1;
+        this.buckets = new Timeout[size];
+        this.mask = size - 1;
+
+        Thread thread = new Thread(this::run, threadName);
+        thread.setDaemon(true);
+        thread.start();
+    } // end constructor
+
+    /**
+     * Method to run a task once a delay has passed. The task runs on the wheel thread, up to one tick late.
+     * @param task the task to run
+     * @param delay the delay
+     * @param unit the unit of delay
+     * @return the timeout, which can be used to cancel the task
+     */
+    public Timeout schedule(Runnable task, long delay, TimeUnit unit) {
+        long deadline = System.nanoTime() + unit.toNanos(Math.max(0, delay)) - startNanos;
+        Timeout timeout = new Timeout(this, task, (deadline + tickNanos - 1) / tickNanos);
+        pending.increment();
+        incoming.offer(timeout);
+        return timeout;
+    } // end schedule
+
+    /**
+     * Getter for the number of timeouts that have not yet run or been cancelled
+     * @return the pending timeout count
+     */
+    public long getPendingCount() {
+        return pending.sum();
+    } // end getPendingCount
+
+    /**
+     * Helper method run by the wheel thread. Waits for each tick, places newly scheduled timeouts,
+     * then expires the tick's bucket.
+     */
+    private void run() {
+        while (true) {
+            long tickAt = startNanos + tick * tickNanos;
+            long wait;
+            while ((wait = tickAt - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            placeIncoming();
+            removeCancelled();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    } // end run
+
+    /**
+     * Helper method to move newly scheduled timeouts into their buckets
+     */
+    private void placeIncoming() {
+        Timeout timeout;
+        while ((timeout = incoming.poll()) != null) {
+            if (timeout.state == Timeout.CANCELLED) continue;
+            long due = Math.max(timeout.deadlineTick, tick); // anything already due goes in the current bucket
+            timeout.rounds = (due - tick) / buckets.length;
+            timeout.bucket = (int) (due & mask);
+            timeout.next = buckets[timeout.bucket];
+            if (timeout.next != null) timeout.next.prev = timeout;
+            buckets[timeout.bucket] = timeout;
+        }
+    } // end placeIncoming
+
+    /**
+     * Helper method to unlink timeouts that were cancelled after being placed in a bucket
+     */
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.bucket >= 0) unlink(timeout);
+        }
+    } // end removeCancelled
+
+    /**
+     * Helper method to run the due timeouts in a bucket and unlink cancelled ones
+     * @param head the first timeout in the bucket
+     */
+    private void expire(Timeout head) {
+        Timeout timeout = head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.state == Timeout.CANCELLED) {
+                unlink(timeout); // cancelled since this tick's removeCancelled ran
+            } else if (timeout.rounds > 0) {
+                timeout.rounds--;
+            } else {
+                unlink(timeout);
+                if (Timeout.STATE.compareAndSet(timeout, Timeout.WAITING, Timeout.EXPIRED)) {
+                    pending.decrement();
+                    try {
+                        timeout.task.run();
+                    } catch (Throwable t) {
+                        System.err.println("Timer task failed: " + t);
+                    }
+                }
+            }
+            timeout = next;
+        }
+    } // end expire
+
+    /**
+     * Helper method to remove a timeout from its bucket
+     * @param timeout the timeout to remove
+     */
+    private void unlink(Timeout timeout) {
+        if (timeout.prev != null) {
+            timeout.prev.next = timeout.next;
+        } else {
+            buckets[timeout.bucket] = timeout.next;
+        }
+        if (timeout.next != null) timeout.next.prev = timeout.prev;
+        timeout.next = null;
+        timeout.prev = null;
+        timeout.bucket = -1;
+    } // end unlink
+
+} // end class
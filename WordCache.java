@@ -0,0 +1,107 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: WordCache
+ *
+ * This class contains a bounded cache of recently played words and their ScoredWord, one per Dictionary's
+ * contents and shared by every session playing against it, so a word that has been played before is judged
+ * and scored without touching the dictionary again.
+ * The cache is split into independently locked shards, picked by the word's hash, and each shard evicts
+ * its least recently used word once it is full. A word that misses is scored outside the lock, so a
+ * slow dictionary lookup never holds up other threads. Hits and misses are counted in Metrics.
+ *
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+public class WordCache {
+
+    public static final int DEFAULT_CAPACITY = 65_536; // words held by the shared cache
+    private static final int SHARD_COUNT = 16; // number of shards, a power of two
+
+    private final Shard[] shards = new Shard[SHARD_COUNT]; // the shards
+
+    /**
+     * One independently locked part of the cache, in least recently used order
+     */
+    private static final class Shard extends LinkedHashMap<String, ScoredWord> {
+        private static final long serialVersionUID = 1L;
+        private final ReentrantLock lock = new ReentrantLock(); // guards the map
+        private final int capacity; // most words the shard holds
+
+        private Shard(int capacity) {
+            super(16, 0.75f, true); // access order, so the eldest entry is the least recently used
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, ScoredWord> eldest) {
+            return size() > capacity;
+        }
+    } // end Shard
+
+    /**
+     * Constructor to create a cache
+     * @param capacity the most words the cache holds, split evenly between the shards
+     */
+    public WordCache(int capacity) {
+        int perShard = Math.max(1, capacity / SHARD_COUNT);
+        for (int i = 0; i < SHARD_COUNT; i++) {
+            shards[i] = new Shard(perShard);
+        }
+    } // end constructor
+
+    /**
+     * Method to get the ScoredWord for a word, scoring and validating it if it is not cached
+     * @param word the word, already normalized with ScoredWord.normalize
+     * @param dictionary the dictionary to validate against, whose contents this cache belongs to
+     * @return the scored word
+     */
+    public ScoredWord lookup(String word, Dictionary dictionary) {
+        int hash = word.hashCode();
+        Shard shard = shards[(hash ^ (hash >>> 16)) & (SHARD_COUNT - 1)];
+        ScoredWord scored;
+        shard.lock.lock();
+        try {
+            scored = shard.get(word);
+        } finally {
+            shard.lock.unlock();
+        }
+        if (scored != null) {
+            Metrics.WORD_CACHE_HITS.increment();
+            return scored;
+        }
+
+        Metrics.WORD_CACHE_MISSES.increment();
+        scored = new ScoredWord(word, dictionary);
+        shard.lock.lock();
+        try {
+            shard.put(word, scored); // another thread may have scored it too, and the result is the same
+        } finally {
+            shard.lock.unlock();
+        }
+        return scored;
+    } // end lookup
+
+    /**
+     * Getter for the number of words in the cache
+     * @return the word count
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    } // end size
+
+} // end class
@@ -1,51 +1,39 @@
 /**
  * Project: Wordsmith_KNS
  * Class: WordValidator
- * 
+ *
  * This class contains methods to validate words placed by a player.
- * 
+ * Words are looked up in the current version of the default Dictionary, whose memory-mapped DictionaryIndex
+ * lives in the page cache rather than on the heap and is shared by every server process on the machine.
+ * An AnagramIndex built from the same word list answers which word scores the most from a rack.
+ * Game sessions judge words against the Dictionary version they pinned when they started; these methods
+ * always use the newest version, for callers outside a game.
+ *
  * @author Kirin Sharma
  * @version 2.0
  *
  */
 
-import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.util.Set;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.logging.Logger;
-import java.util.logging.Level;
-
-public class WordValidator 
+public class WordValidator
 {
-	private static final String FILE_PATH = "./words_alpha.txt"; // relative file path for the word list
-	private static final Logger logger = Logger.getLogger(WordValidator.class.getName());
-
-	// Static set of all valid english words shared by all instances of this class
-	private static final Set<String> WORDS;
-
-	// Static block to read all words into the WORDS set
-	static {
-		Set<String> tempWords = new HashSet<>();
-		try {
-			tempWords.addAll(Files.readAllLines(Paths.get(FILE_PATH)));
-		} catch(IOException e) {
-			logger.log(Level.SEVERE, "Error reading word list", e);
-		}
-		WORDS = Collections.unmodifiableSet(tempWords);
-	}
-		
 	/**
-	 * Determine if a word is valid by checking if it is in the list of valid English
-	 * words loaded earlier
+	 * Determine if a word is valid by checking if it is in the current default dictionary
 	 * @param word the word to check
 	 * @return true if the word is valid, false if not
 	 */
-    public static boolean isValidWord(String word) 
+    public static boolean isValidWord(String word)
     {
-        return WORDS.contains(word.toLowerCase());
+        return DictionaryRegistry.SHARED.get(DictionaryRegistry.DEFAULT).contains(word);
     } // end isValidWord
-	
+
+	/**
+	 * Find the highest-scoring valid word that can be formed from a rack of letters
+	 * @param letterCounts the count of each letter 'A'-'Z' in the rack
+	 * @return the best word in lower case, or null if no word can be formed
+	 */
+    public static String bestWord(int[] letterCounts)
+    {
+        return DictionaryRegistry.SHARED.get(DictionaryRegistry.DEFAULT).bestWord(letterCounts);
+    } // end bestWord
+
 } // end class
@@ -5,6 +5,8 @@
  * This class contains client-side logic to allow for a client to connect to and be part of a game.
  * It initializes a client and facilitates interaction with the server, allowing for the client to take
  * part in a game session.
+ * The client speaks the framed binary Protocol by default; run with "--text" to use the line-based text protocol.
+ * Run with "--load" to start the headless LoadGenerator instead of an interactive client.
  * 
  * @author Kirin Sharma
  * @version 2.0
@@ -13,6 +15,9 @@
 
 import java.io.*;
 import java.net.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Scanner;
 
 public class WordsmithClient {
@@ -22,7 +27,25 @@ public class WordsmithClient {
     private Socket socket;
     private BufferedReader inputReader; // reader to read user input
     private PrintWriter outputWriter; // outputWriter to send messages to the server
+    private DataInputStream frameInput; // stream to read frames from the server (binary protocol)
+    private OutputStream frameOutput; // stream to send frames to the server (binary protocol)
     private Scanner scanner;
+    private final boolean binary; // flag for if the binary protocol is used
+
+    /**
+     * Constructor to create a client using the binary protocol
+     */
+    public WordsmithClient() {
+        this(true);
+    } // end constructor
+
+    /**
+     * Constructor to create a client using the chosen protocol
+     * @param binary true for the binary protocol, false for the text protocol
+     */
+    public WordsmithClient(boolean binary) {
+        this.binary = binary;
+    } // end constructor
 
     /**
      * Method connecting to the server and intitializing input and output streams,
@@ -32,12 +55,22 @@ public class WordsmithClient {
     {
         try {
             socket = new Socket(SERVER_ADDRESS, SERVER_PORT);
-            inputReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
-            outputWriter = new PrintWriter(socket.getOutputStream(), true);
             scanner = new Scanner(System.in);
+            if (binary) {
+                frameInput = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+                frameOutput = socket.getOutputStream();
+                frameOutput.write((Protocol.HANDSHAKE + "\n").getBytes(StandardCharsets.US_ASCII));
+            } else {
+                inputReader = new BufferedReader(new InputStreamReader(socket.getInputStream()));
+                outputWriter = new PrintWriter(socket.getOutputStream(), true);
+            }
 
             System.out.println("Connected to the Wordsmith server.");
-            handleSession();
+            if (binary) {
+                handleBinarySession();
+            } else {
+                handleSession();
+            }
 
         } catch (IOException e) {
             System.err.println("Could not connect to server: " + e.getMessage());
@@ -75,11 +108,112 @@ public class WordsmithClient {
         }
     } // end handleSession
 
+    /**
+     * Helper method to take part in a game session over the binary protocol, reacting to each typed message
+     * @throws IOException
+     */
+    private void handleBinarySession() throws IOException {
+        if (!sendPlayerName()) return;
+
+        byte[] body = new byte[Protocol.MAX_FRAME_BYTES];
+        while (true) {
+            int length;
+            try {
+                length = frameInput.readUnsignedShort();
+            } catch (EOFException e) {
+                break;
+            }
+            if (length == 0 || length > body.length) throw new IOException("Bad frame from server");
+            frameInput.readFully(body, 0, length);
+            ByteBuffer payload = ByteBuffer.wrap(body, 1, length - 1);
+
+            switch (body[0]) {
+                case Protocol.INFO:
+                    System.out.println(new String(body, 1, length - 1, StandardCharsets.UTF_8));
+                    break;
+                case Protocol.TURN_PROMPT:
+                    System.out.println("It's your turn! Your letters: " + rackText(body, length) + ". Enter a word or '1' to pass and redraw letters: ");
+                    sendMove(scanner.nextLine().trim());
+                    break;
+                case Protocol.RESULT:
+                    String result = resultText(payload.get());
+                    if (result != null) System.out.println(result);
+                    break;
+                case Protocol.SCORE:
+                    System.out.println("Word accepted! Your score: " + payload.getInt());
+                    break;
+                case Protocol.GAME_OVER:
+                    byte outcome = payload.get();
+                    int score = payload.getInt();
+                    int opponentScore = payload.getInt();
+                    int rank = payload.remaining() >= 2 ? payload.get() : 1;
+                    int players = payload.remaining() >= 1 ? payload.get() : 2;
+                    System.out.println(ClientHandler.gameOverText(outcome, score, opponentScore, rank, players));
+                    close();
+                    return;
+                default:
+                    break; // ignore message types this client does not know
+            }
+        }
+    } // end handleBinarySession
+
+    /**
+     * Helper method to format the letters of a TURN_PROMPT the way the text protocol shows a rack
+     * @param body the frame body, starting with the message type
+     * @param length the number of bytes in the body
+     * @return the rack as "[A, B, C]"
+     */
+    private static String rackText(byte[] body, int length) {
+        StringBuilder rack = new StringBuilder("[");
+        for (int i = 1; i < length; i++) {
+            if (i > 1) rack.append(", ");
+            rack.append((char) body[i]);
+        }
+        return rack.append(']').toString();
+    } // end rackText
+
+    /**
+     * Helper method to describe a move result. Accepted words are described by the SCORE message that follows.
+     * @param code the result code
+     * @return the description, or null for an accepted word
+     */
+    private static String resultText(byte code) {
+        switch (code) {
+            case Protocol.RESULT_ACCEPTED:
+                return null;
+            case Protocol.RESULT_REDRAWN:
+                return "You have chosen to pass this turn and redraw letters.";
+            case Protocol.RESULT_MISSING_LETTERS:
+                return "You don't have the necessary letters. Turn passed.";
+            case Protocol.RESULT_INVALID_WORD:
+                return "Invalid word. Turn passed.";
+            case Protocol.RESULT_QUIT:
+                return "You or your opponent has elected to quit the game. Closing the connection now.";
+            default:
+                return "No word entered. Turn skipped.";
+        }
+    } // end resultText
+
+    /**
+     * Helper method to send the player's input as a MOVE frame
+     * @param input the word, "1" to pass, "0" to quit or "?" for a hint
+     * @throws IOException
+     */
+    private void sendMove(String input) throws IOException {
+        byte kind = input.equals("0") ? Protocol.MOVE_QUIT : input.equals("1") ? Protocol.MOVE_PASS
+                : input.equals("?") ? Protocol.MOVE_HINT : Protocol.MOVE_WORD;
+        String word = input.length() > Protocol.MAX_FRAME_BYTES - 2 ? input.substring(0, Protocol.MAX_FRAME_BYTES - 2) : input;
+        ByteBuffer frame = ByteBuffer.allocate(Protocol.HEADER_BYTES + 1 + word.length());
+        Protocol.writeMove(frame, kind, word);
+        frameOutput.write(frame.array(), 0, frame.position());
+    } // end sendMove
+
     /**
      * Helper method to send the player's name to the server
+     * @return true if a name was sent, false if the name was invalid
      * @throws IOException
      */
-    private void sendPlayerName() throws IOException {
+    private boolean sendPlayerName() throws IOException {
         System.out.println("Please enter your name: ");
         String name = scanner.nextLine().trim();
 
@@ -87,10 +221,19 @@ public class WordsmithClient {
         if (name == null || name.isEmpty()) {
             System.out.println("Invalid name. Exiting...");
             close();
-            return;
+            return false;
         }
 
-        outputWriter.println(name);
+        if (binary) {
+            byte[] text = name.getBytes(StandardCharsets.UTF_8);
+            if (text.length > Protocol.MAX_FRAME_BYTES - 1) text = Arrays.copyOf(text, Protocol.MAX_FRAME_BYTES - 1);
+            ByteBuffer frame = ByteBuffer.allocate(Protocol.HEADER_BYTES + text.length);
+            Protocol.writeText(frame, Protocol.NAME, text);
+            frameOutput.write(frame.array());
+        } else {
+            outputWriter.println(name);
+        }
+        return true;
     } // end sendPlayerName
 
     /**
@@ -107,12 +250,20 @@ public class WordsmithClient {
 
     /**
      * Main method to initialize a new client and begin the game.
-     * @param args
+     * @param args none for an interactive client, "--text" for a client using the text protocol,
+     *             or "--load" followed by the LoadGenerator's arguments
      */
-    public static void main(String[] args) 
+    public static void main(String[] args) throws Exception
     {
+        if (args.length > 0 && args[0].equals("--load")) {
+            LoadGenerator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+
+
         // Create a new client instance and start the game
-        WordsmithClient client = new WordsmithClient();
+        boolean text = args.length > 0 && args[0].equals("--text");
+        WordsmithClient client = new WordsmithClient(!text);
         client.start();
     } // end main
     
@@ -4,6 +4,10 @@
  * 
  * This class contains server-side logic to initialize a server and allow for client connections.
  * It creates a client handler thread for each new connection, and then passes that to the game manager to pair them up and allow gameplay.
+ * In non-blocking mode, connections are instead spread across a small fixed pool of selector event loops,
+ * and each client joins the game manager once it has sent its name.
+ * In virtual-thread mode, every client handler and game session runs on its own virtual thread.
+ * Games are played with a dictionary from the DictionaryRegistry, whose word lists are reloaded while the server runs.
  * 
  * @author Kirin Sharma
  * @version 2.0
@@ -11,44 +15,199 @@
  */
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.net.StandardSocketOptions;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class WordsmithServer {
 
     private static final int SERVER_PORT = 12345; // Default server port
+    private int port = SERVER_PORT; // the port the server accepts connections on
+    private static final int DEFAULT_METRICS_PORT = 9100; // Default port for the local metrics endpoint
+    public static final String DEFAULT_STORE_DIRECTORY = "wordsmith-data"; // Default directory for the game store
+    private static final int TRAINING_BOTS = 4; // bots playing a training run
+    private static final int TRAINING_SECONDS = 2; // length of each protocol's part of a training run
     private ServerSocket serverSocket; // Socket for the server
+    private ServerSocketChannel serverChannel; // Channel for the server in non-blocking mode
     private final GameManager gameManager; // The GameManager that will run on the server
 
+    private final boolean nonBlocking; // flag for if the non-blocking transport is used
+    private final int eventLoopCount; // number of event loop threads in non-blocking mode
+    private EventLoop[] eventLoops; // the event loops driving client connections in non-blocking mode
+    private final Executor taskExecutor; // runs client handlers and game sessions in blocking mode
+    private LobbyRouter router; // routes matched players to game nodes, if this server is a lobby
+    private final CountDownLatch listening = new CountDownLatch(1); // released once the server accepts connections
+
     /**
      * Constructor to create a gameManager to run on the server
      */
     public WordsmithServer() {
-        gameManager = new GameManager();
+        this(false, 0);
+    } // end constructor
+
+    /**
+     * Constructor to create a gameManager to run on the server with the chosen transport
+     * @param nonBlocking true to use selector-based event loops, false for a thread per client
+     * @param eventLoopCount the number of event loop threads to use in non-blocking mode
+     */
+    public WordsmithServer(boolean nonBlocking, int eventLoopCount) {
+        this(nonBlocking, eventLoopCount, task -> new Thread(task).start());
+    } // end constructor
+
+    /**
+     * Constructor to create a blocking server that runs client handlers and game sessions on the given executor
+     * @param taskExecutor the executor to run each client handler and game session on
+     */
+    public WordsmithServer(Executor taskExecutor) {
+        this(false, 0, taskExecutor);
+    } // end constructor
+
+    /**
+     * Helper constructor to initialize every field
+     * @param nonBlocking true to use selector-based event loops
+     * @param eventLoopCount the number of event loop threads to use in non-blocking mode
+     * @param taskExecutor the executor to run client handlers and game sessions on in blocking mode
+     */
+    private WordsmithServer(boolean nonBlocking, int eventLoopCount, Executor taskExecutor) {
+        gameManager = new GameManager(taskExecutor);
+        this.nonBlocking = nonBlocking;
+        this.eventLoopCount = eventLoopCount;
+        this.taskExecutor = taskExecutor;
     } // end constructor
 
+    /**
+     * Method to create an executor that runs each task on a new virtual thread.
+     * The factory is looked up reflectively so the server still compiles and runs on runtimes
+     * without virtual threads, where null is returned instead.
+     * @return a virtual-thread-per-task executor, or null if the runtime does not support virtual threads
+     */
+    public static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) {
+            return null;
+        }
+    } // end newVirtualThreadExecutor
+
+    /**
+     * Method to pair players by rating instead of in arrival order. Should be called before start.
+     */
+    public void enableRatedMatchmaking() {
+        gameManager.enableRatedMatchmaking();
+    } // end enableRatedMatchmaking
+
+    /**
+     * Method to play every game in simultaneous rounds, where every player answers at once. Should be called before start.
+     */
+    public void enableSimultaneousPlay() {
+        gameManager.enableSimultaneousPlay();
+    } // end enableSimultaneousPlay
+
+    /**
+     * Method to seat the given number of players in each unrated game. Should be called before start.
+     * @param players the number of players, from GameSession.MIN_PLAYERS to GameSession.MAX_PLAYERS
+     */
+    public void setTableSize(int players) {
+        gameManager.setTableSize(players);
+    } // end setTableSize
+
+    /**
+     * Method to play new games with a named dictionary loaded from the given word list. Should be called before start.
+     * @param name the dictionary's name
+     * @param wordList the plain text word list, one word per line
+     */
+    public void useDictionary(String name, Path wordList) {
+        DictionaryRegistry.SHARED.register(name, wordList);
+        gameManager.setDictionary(name);
+    } // end useDictionary
+
+    /**
+     * Setter for the port the server accepts connections on, so several servers can run on one machine. Should be called before start.
+     * @param port the port
+     */
+    public void setPort(int port) {
+        this.port = port;
+    } // end setPort
+
+    /**
+     * Method to make this server a lobby, which matches players and routes each table to the game node with
+     * the lowest load instead of playing the game itself. Should be called before start.
+     * @param nodes the addresses of the game nodes, which are servers started as usual
+     */
+    public void enableLobby(List<InetSocketAddress> nodes) {
+        router = new LobbyRouter(gameManager, nodes, taskExecutor);
+        gameManager.enableRouting(router);
+    } // end enableLobby
+
+    /**
+     * Method to persist every game's moves and results, and each player's stats, in a local store. Should be called before start.
+     * @param directory the directory holding the store
+     * @throws IOException if the store cannot be opened or recovered
+     */
+    public void enableStore(Path directory) throws IOException {
+        gameManager.enableStore(new GameStore(directory));
+    } // end enableStore
+
+    /**
+     * Method to serve server metrics at http://127.0.0.1:port/metrics
+     * @param port the local port for the metrics endpoint
+     * @throws IOException if the port cannot be bound
+     */
+    public void enableMetrics(int port) throws IOException {
+        Metrics.registerGauge("wordsmith_waiting_clients", gameManager::getQueueDepth);
+        Metrics.registerGauge("wordsmith_matched_clients", gameManager::getMatchedClients);
+        Metrics.registerGauge("wordsmith_sessions_active", gameManager::getActiveSessionCount);
+        Metrics.registerGauge("wordsmith_pending_timeouts", TimerWheel.SHARED::getPendingCount);
+        Metrics.startHttpServer(port);
+        System.out.println("Metrics available at http://127.0.0.1:" + port + "/metrics");
+    } // end enableMetrics
+
     /**
      * Method to start the server, and continuously accept client connections
      * and pass these clients to the gamemanager to be paired into game sessions.
      */
     public void start() {
+        if (router != null) {
+            router.start(); // a lobby plays no games, so it needs no dictionary
+            System.out.println("Routing games to " + router.getNodes().size() + " game nodes: " + router.getNodes());
+        } else {
+            // Load the dictionary in the background, so the server listens straight away; games matched first wait for it
+            String dictionary = gameManager.getDictionaryName();
+            DictionaryRegistry.SHARED.preload(dictionary).thenAccept(loaded ->
+                    Metrics.markStartup(Metrics.STARTUP_DICTIONARY_READY, "Dictionary " + loaded + " ready"));
+            DictionaryRegistry.SHARED.startWatching(); // pick up edits to the word lists without a restart
+        }
+        if (nonBlocking) {
+            startNonBlocking();
+            return;
+        }
         try {
             // Start the server
-            serverSocket = new ServerSocket(SERVER_PORT);
-            System.out.println("Wordsmith Server started on port " + SERVER_PORT);
+            serverSocket = new ServerSocket(port);
+            System.out.println("Wordsmith Server started on port " + port);
+            markListening();
 
             // Continuously listen for client connections
             while (true) {
                 Socket clientSocket = serverSocket.accept(); // Wait for client connection
-                System.out.println("Client connected: " + clientSocket.getRemoteSocketAddress());
-
-                // Create a new clienthandler for the connected client, and start a thread for it
-                ClientHandler clientHandler = new ClientHandler(clientSocket);
-                Thread clientThread = new Thread(clientHandler);
-                clientThread.start();
+                clientSocket.setTcpNoDelay(true); // writes are already batched per turn, so send each flush at once
 
-                // Add clientHandler to GameManager so it can match clients into game sessions
-                gameManager.addClient(clientHandler);
+                // Create a new clienthandler for the connected client, and start a thread for it.
+                // It adds itself to the GameManager once it has its name, so the accept loop never waits on a client.
+                ClientHandler clientHandler = new ClientHandler(clientSocket, gameManager);
+                taskExecutor.execute(clientHandler);
             }
         } catch (IOException e) {
             System.err.println("Server error: " + e.getMessage());
@@ -58,25 +217,205 @@ public class WordsmithServer {
     } // end start
 
     /**
-     * Helper method to shut down the server when necessary by closing open sockets
+     * Helper method to start the server in non-blocking mode. Accepted channels are handed
+     * round-robin to a fixed pool of event loops, which drive all further communication.
      */
-    private void shutdown() {
+    private void startNonBlocking() {
+        try {
+            // Start the event loops
+            eventLoops = new EventLoop[eventLoopCount];
+            for (int i = 0; i < eventLoopCount; i++) {
+                eventLoops[i] = new EventLoop("wordsmith-loop-" + i);
+                eventLoops[i].start();
+            }
+
+            // Start the server
+            serverChannel = ServerSocketChannel.open();
+            serverChannel.bind(new InetSocketAddress(port));
+            System.out.println("Wordsmith Server started on port " + port + " with " + eventLoopCount + " event loops");
+            markListening();
+
+            // Continuously listen for client connections
+            int next = 0;
+            while (true) {
+                SocketChannel clientChannel = serverChannel.accept(); // Wait for client connection
+                clientChannel.configureBlocking(false);
+                clientChannel.setOption(StandardSocketOptions.TCP_NODELAY, true); // writes are already batched per turn
+
+                // Hand the client to the next event loop; it joins the GameManager once it has sent its name
+                EventLoop loop = eventLoops[next];
+                next = (next + 1) % eventLoopCount;
+                loop.register(new ClientHandler(clientChannel, loop, gameManager));
+            }
+        } catch (IOException e) {
+            System.err.println("Server error: " + e.getMessage());
+        } finally {
+            shutdown(); // shut the server down
+        }
+    } // end startNonBlocking
+
+    /**
+     * Helper method to record that the server is accepting connections
+     */
+    private void markListening() {
+        Metrics.markStartup(Metrics.STARTUP_LISTENING, "Listening");
+        listening.countDown();
+    } // end markListening
+
+    /**
+     * Method to wait until the server is accepting connections
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void awaitListening() throws InterruptedException {
+        listening.await();
+    } // end awaitListening
+
+    /**
+     * Method to play a short burst of bot games against the server and then exit, exercising the code a real
+     * server runs. Run with -XX:ArchiveClassesAtExit, it leaves behind a class data sharing archive holding every
+     * class the server loads, which later starts can map with -XX:SharedArchiveFile instead of loading each class.
+     */
+    public void startTrainingRun() {
+        Thread trainer = new Thread(() -> {
+            try {
+                awaitListening();
+                Dictionary dictionary = DictionaryRegistry.SHARED.preload(gameManager.getDictionaryName()).join();
+                InetSocketAddress address = new InetSocketAddress("localhost", port);
+                new LoadGenerator(address, TRAINING_BOTS, TRAINING_SECONDS, dictionary.getIndex(), false).run(1);
+                new LoadGenerator(address, TRAINING_BOTS, TRAINING_SECONDS, dictionary.getIndex(), true).run(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                System.out.println("Training run finished");
+                System.exit(0); // writes the class data sharing archive, if one was asked for
+            }
+        }, "wordsmith-training");
+        trainer.setDaemon(true);
+        trainer.start();
+    } // end startTrainingRun
+
+    /**
+     * Method to shut down the server when necessary by closing open sockets
+     */
+    public void shutdown() {
+        gameManager.shutdown(); // tell players in unfinished games before their connections close
         try {
             if (serverSocket != null && !serverSocket.isClosed()) {
                 serverSocket.close();
             }
+            if (serverChannel != null && serverChannel.isOpen()) {
+                serverChannel.close();
+            }
+            if (eventLoops != null) {
+                for (EventLoop loop : eventLoops) {
+                    if (loop != null) loop.shutdown();
+                }
+            }
             System.out.println("Server shut down.");
         } catch (IOException e) {
             System.err.println("Error closing server socket: " + e.getMessage());
         }
     } // end shutdown
 
+    /**
+     * Helper method to remove a flag, and the value after it if it takes one, from the command line arguments
+     * @param args the arguments, from which the flag and its value are removed
+     * @param name the flag, such as "--port"
+     * @param valuePattern the pattern the argument after the flag must match to be its value, or null if it takes none
+     * @return the flag's value, an empty string if it was given without one, or null if the flag was not given
+     */
+    private static String removeFlag(List<String> args, String name, String valuePattern) {
+        int index = args.indexOf(name);
+        if (index < 0) return null;
+        args.remove(index);
+        if (valuePattern == null || index == args.size() || !args.get(index).matches(valuePattern)) return "";
+        return args.remove(index);
+    } // end removeFlag
+
     /**
      * Main method to start the server
-     * @param args
+     * @param args optional mode ("blocking", "virtual" or "nio") and number of event loops for "nio",
+     *             plus "--rated" anywhere to pair players by rating, "--simultaneous" for every player to play
+     *             each round at once, "--players n" to seat n players at each unrated game,
+     *             "--metrics [port]" to serve metrics locally, "--store [directory]" after the mode
+     *             to persist games and player stats, "--dictionary [name=]wordlist" to play with another word list,
+     *             "--port n" to listen on another port, "--lobby host:port,..." to route games to those game nodes,
+     *             and "--training-run" to play bot games for a few seconds and exit, for building a class data sharing archive
+     * @throws IOException if the metrics port cannot be bound or the store cannot be opened
      */
-    public static void main(String[] args) {
-        WordsmithServer server = new WordsmithServer();
+    public static void main(String[] args) throws IOException {
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        boolean rated = removeFlag(rest, "--rated", null) != null;
+        boolean simultaneous = removeFlag(rest, "--simultaneous", null) != null;
+        boolean trainingRun = removeFlag(rest, "--training-run", null) != null;
+        String metrics = removeFlag(rest, "--metrics", "\\d+");
+        int metricsPort = metrics == null ? -1 : metrics.isEmpty() ? DEFAULT_METRICS_PORT : Integer.parseInt(metrics);
+        String store = removeFlag(rest, "--store", "[^-].*");
+        Path storeDirectory = store == null ? null : Paths.get(store.isEmpty() ? DEFAULT_STORE_DIRECTORY : store);
+        String dictionaryName = null;
+        Path dictionaryList = null;
+        String dictionary = removeFlag(rest, "--dictionary", ".+");
+        if (dictionary != null) {
+            if (dictionary.isEmpty()) {
+                System.err.println("--dictionary needs a word list, optionally named as name=wordlist");
+                return;
+            }
+            int equals = dictionary.indexOf('=');
+            dictionaryList = Paths.get(dictionary.substring(equals + 1));
+            String file = dictionaryList.getFileName().toString();
+            dictionaryName = equals > 0 ? dictionary.substring(0, equals) : file.contains(".") ? file.substring(0, file.lastIndexOf('.')) : file;
+        }
+        String portNumber = removeFlag(rest, "--port", "\\d+");
+        if (portNumber != null && portNumber.isEmpty()) {
+            System.err.println("--port needs a port number");
+            return;
+        }
+        int port = portNumber == null ? SERVER_PORT : Integer.parseInt(portNumber);
+        List<InetSocketAddress> nodes = null;
+        String lobby = removeFlag(rest, "--lobby", ".+");
+        if (lobby != null) {
+            try {
+                nodes = LobbyRouter.parseNodes(lobby);
+            } catch (IllegalArgumentException e) {
+                System.err.println("--lobby needs the game nodes as host:port, separated by commas. " + e.getMessage());
+                return;
+            }
+        }
+        int players = GameSession.MIN_PLAYERS;
+        String playerCount = removeFlag(rest, "--players", "\\d");
+        if (playerCount != null) {
+            players = playerCount.isEmpty() ? 0 : Integer.parseInt(playerCount);
+            if (players < GameSession.MIN_PLAYERS || players > GameSession.MAX_PLAYERS) {
+                System.err.println("--players needs a number from " + GameSession.MIN_PLAYERS + " to " + GameSession.MAX_PLAYERS);
+                return;
+            }
+        }
+        args = rest.toArray(new String[0]);
+        String mode = args.length > 0 ? args[0].toLowerCase() : "blocking";
+        WordsmithServer server;
+        if (mode.equals("nio")) {
+            int loops = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            server = new WordsmithServer(true, Math.max(1, loops));
+        } else if (mode.equals("virtual")) {
+            ExecutorService executor = newVirtualThreadExecutor();
+            if (executor == null) {
+                System.err.println("Virtual threads are not supported by this runtime (Java 21+ required). Using platform threads.");
+                server = new WordsmithServer();
+            } else {
+                server = new WordsmithServer(executor);
+            }
+        } else {
+            server = new WordsmithServer();
+        }
+        if (rated) server.enableRatedMatchmaking();
+        if (simultaneous) server.enableSimultaneousPlay();
+        if (players != GameSession.MIN_PLAYERS) server.setTableSize(players);
+        if (metricsPort >= 0) server.enableMetrics(metricsPort);
+        if (storeDirectory != null) server.enableStore(storeDirectory);
+        if (dictionaryName != null) server.useDictionary(dictionaryName, dictionaryList);
+        if (port != SERVER_PORT) server.setPort(port);
+        if (nodes != null) server.enableLobby(nodes);
+        if (trainingRun) server.startTrainingRun();
         server.start();
     } // end main
 
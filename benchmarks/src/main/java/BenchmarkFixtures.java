@@ -0,0 +1,388 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: BenchmarkFixtures
+ * 
+ * This class contains the fixtures used by the JMH benchmarks. The server classes live in the default package,
+ * which named-package code cannot refer to, and JMH requires benchmarks to be in a named package. So the
+ * benchmarks call these public static methods through constant method handles, passing server objects as Object.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+public class BenchmarkFixtures {
+
+    // Words the in-memory players try each turn, in order, before passing
+    private static final String[] CANDIDATE_WORDS = {"stare", "rates", "tears", "notes", "stone", "rate", "tear", "note", "tea", "eat", "ate", "at", "a"};
+    private static final GameManager PLAYED_GAMES = new GameManager(); // shared by every playGame call, so one result pipeline serves them all
+    private static final ThreadLocal<GameManager> MATCHED_GAMES = ThreadLocal.withInitial(GameManager::new); // one per thread, so a thread's two players are always matched together
+
+    /**
+     * A PlayerChannel with no connection. It answers every prompt with the first candidate word its player
+     * can form, or passes, and discards everything the session sends it.
+     */
+    public static class CandidateWordsChannel implements PlayerChannel {
+        private final Player player;
+        private int messagesSent = 0;
+
+        public CandidateWordsChannel(String name) {
+            player = new Player(name);
+        }
+
+        @Override
+        public void queueMessage(String message) {
+            messagesSent++;
+        }
+
+        @Override
+        public void queueTurnPrompt(java.util.List<Character> rack) {
+            messagesSent++;
+        }
+
+        @Override
+        public void queueResult(byte code, int score) {
+            messagesSent++;
+        }
+
+        @Override
+        public void queueGameOver(int score, int opponentScore, int rank, int players) {
+            messagesSent++;
+        }
+
+        @Override
+        public void flush() {}
+
+        @Override
+        public String receiveMessage() {
+            return candidateMove(player);
+        }
+
+        @Override
+        public void cleanup() {}
+
+        @Override
+        public boolean isClosed() {
+            return false;
+        }
+
+        @Override
+        public boolean isEventDriven() {
+            return false;
+        }
+
+        @Override
+        public void setSession(GameTable session) {}
+
+        @Override
+        public Player getPlayer() {
+            return player;
+        }
+
+        public int getMessagesSent() {
+            return messagesSent;
+        }
+    } // end CandidateWordsChannel
+
+    /**
+     * A rated matchmaker holding a constant number of players at distinct ratings, one rating point per bucket
+     * and no window, so only an arrival at a waiting player's exact rating makes a match
+     */
+    private static final class WaitingRoom {
+        private final RatingMatchmaker<Integer> matchmaker;
+        private final int[] present; // ratings currently waiting, indexed by slot
+        private final SplittableRandom random = new SplittableRandom(42);
+        private int nextRating; // rating given to the next replacement, never used before
+        private int matches = 0; // pairs reported by the matchmaker
+
+        private WaitingRoom(int waiting) {
+            matchmaker = new RatingMatchmaker<>(1, 0, 0, 0, (a, b) -> matches++, p -> false);
+            present = new int[waiting];
+            long now = System.nanoTime();
+            for (int i = 0; i < waiting; i++) {
+                present[i] = i * 2;
+                matchmaker.add(i, present[i], now);
+            }
+            nextRating = waiting * 2;
+        }
+    } // end WaitingRoom
+
+    /**
+     * A timer wheel holding a constant number of far-off timeouts, the way the server holds one idle check
+     * per connection and one turn deadline per session
+     */
+    private static final class PendingTimeouts {
+        private static final Runnable NOTHING = () -> {};
+        private final TimerWheel wheel = new TimerWheel(100, TimeUnit.MILLISECONDS, 512, "benchmark-timer");
+        private final TimerWheel.Timeout[] timeouts;
+        private final SplittableRandom random = new SplittableRandom(42);
+
+        private PendingTimeouts(int pending) {
+            timeouts = new TimerWheel.Timeout[pending];
+            for (int i = 0; i < pending; i++) {
+                timeouts[i] = schedule();
+            }
+        }
+
+        private TimerWheel.Timeout schedule() {
+            return wheel.schedule(NOTHING, 60_000 + random.nextInt(300_000), TimeUnit.MILLISECONDS);
+        }
+    } // end PendingTimeouts
+
+    /**
+     * Helper method to choose the first candidate word a player can form, or to pass
+     * @param player the player
+     * @return the move
+     */
+    private static String candidateMove(Player player) {
+        for (String word : CANDIDATE_WORDS) {
+            if (player.canFormWord(word)) return word;
+        }
+        return "1";
+    } // end candidateMove
+
+    /**
+     * Method to validate a word against the dictionary
+     * @param word the word to check
+     * @return true if the word is valid
+     */
+    public static boolean isValidWord(String word) {
+        return WordValidator.isValidWord(word);
+    } // end isValidWord
+
+    /**
+     * Method to find the highest-scoring word on a rack with the anagram index
+     * @param letterCounts the count of each letter 'A'-'Z' in the rack
+     * @return the best word, or null if none can be formed
+     */
+    public static String bestWord(int[] letterCounts) {
+        return WordValidator.bestWord(letterCounts);
+    } // end bestWord
+
+    /**
+     * Method to create a letter pool with a fixed seed
+     * @param seed the pool's seed
+     * @return the LetterPool
+     */
+    public static Object newLetterPool(long seed) {
+        return new LetterPool(seed);
+    } // end newLetterPool
+
+    /**
+     * Method to create a player holding a full rack drawn from a pool
+     * @param pool the LetterPool to draw from
+     * @return the Player
+     */
+    public static Object newPlayer(Object pool) {
+        Player player = new Player("bench");
+        player.drawLetters((LetterPool) pool);
+        return player;
+    } // end newPlayer
+
+    /**
+     * Method to list the letters on a player's rack
+     * @param player the Player
+     * @return the letters, in upper case
+     */
+    public static String rackLetters(Object player) {
+        StringBuilder letters = new StringBuilder();
+        for (char letter : ((Player) player).getRack()) {
+            letters.append(letter);
+        }
+        return letters.toString();
+    } // end rackLetters
+
+    /**
+     * Method to judge a word through the default dictionary's word cache, as a game session does
+     * @param word the word, already normalized
+     * @return the points the word scores if it is valid, or -1 if it is not
+     */
+    public static int lookupWord(String word) {
+        ScoredWord scored = DictionaryRegistry.SHARED.get(DictionaryRegistry.DEFAULT).lookup(word);
+        return scored.isValid() ? scored.getPoints() : -1;
+    } // end lookupWord
+
+    /**
+     * Method to check whether a player can form a word
+     * @param player the Player
+     * @param word the word
+     * @return true if the word can be formed from the player's rack
+     */
+    public static boolean canFormWord(Object player, String word) {
+        return ((Player) player).canFormWord(word);
+    } // end canFormWord
+
+    /**
+     * Method to return a player's rack to a pool and draw a fresh one, which keeps the pool's size steady
+     * @param player the Player
+     * @param pool the LetterPool
+     * @return the number of letters left in the pool
+     */
+    public static int redrawLetters(Object player, Object pool) {
+        ((Player) player).redrawLetters((LetterPool) pool);
+        return ((LetterPool) pool).getRemaining();
+    } // end redrawLetters
+
+    /**
+     * Method to score a word
+     * @param pool the LetterPool
+     * @param word the word
+     * @return the word's points
+     */
+    public static int getWordPoints(Object pool, String word) {
+        return ((LetterPool) pool).getWordPoints(word);
+    } // end getWordPoints
+
+    /**
+     * Method to create a game manager whose sessions are removed as soon as they are created instead of being run,
+     * so that only the cost of matchmaking is measured and the session list does not grow. Any other task handed
+     * to its executor, such as a deadline from the timer wheel, is run on the calling thread.
+     * @return the GameManager
+     */
+    public static Object newGameManager() {
+        GameManager[] holder = new GameManager[1];
+        holder[0] = new GameManager(task -> {
+            if (task instanceof GameSession) {
+                holder[0].removeSession((GameSession) task);
+            } else {
+                task.run();
+            }
+        });
+        return holder[0];
+    } // end newGameManager
+
+    /**
+     * Method to add a new ready in-memory client to a game manager
+     * @param gameManager the GameManager
+     * @return the queue depth after adding
+     */
+    public static int addClient(Object gameManager) {
+        GameManager gm = (GameManager) gameManager;
+        gm.addClient(new CandidateWordsChannel("bench"));
+        return gm.getQueueDepth();
+    } // end addClient
+
+    /**
+     * Method to create a rated matchmaker with a number of players waiting, none of whom can match each other
+     * @param waiting the number of waiting players
+     * @return the waiting room
+     */
+    public static Object newWaitingRoom(int waiting) {
+        return new WaitingRoom(waiting);
+    } // end newWaitingRoom
+
+    /**
+     * Method to add a player who matches one waiting player, then a replacement at a fresh rating,
+     * so the number of players waiting stays constant
+     * @param waitingRoom the waiting room
+     * @return the number of matches made so far
+     */
+    public static int matchArrival(Object waitingRoom) {
+        WaitingRoom room = (WaitingRoom) waitingRoom;
+        int slot = room.random.nextInt(room.present.length);
+        long now = System.nanoTime();
+        room.matchmaker.add(-1, room.present[slot], now); // matches the player waiting at this rating
+        room.matchmaker.add(slot, room.nextRating, now);
+        room.present[slot] = room.nextRating;
+        room.nextRating += 2;
+        return room.matches;
+    } // end matchArrival
+
+    /**
+     * Method to create a timer wheel with a number of timeouts pending, due between one and six minutes away
+     * @param pending the number of pending timeouts
+     * @return the pending timeouts
+     */
+    public static Object newPendingTimeouts(int pending) {
+        return new PendingTimeouts(pending);
+    } // end newPendingTimeouts
+
+    /**
+     * Method to cancel a random pending timeout and schedule a replacement, as a finished turn does,
+     * so the number pending stays constant
+     * @param pendingTimeouts the pending timeouts
+     * @return true if the cancelled timeout was still pending
+     */
+    public static boolean replaceTimeout(Object pendingTimeouts) {
+        PendingTimeouts pending = (PendingTimeouts) pendingTimeouts;
+        int slot = pending.random.nextInt(pending.timeouts.length);
+        boolean cancelled = pending.timeouts[slot].cancel();
+        pending.timeouts[slot] = pending.schedule();
+        return cancelled;
+    } // end replaceTimeout
+
+    /**
+     * Method to create an empty session registry
+     * @return the SessionRegistry
+     */
+    public static Object newSessionRegistry() {
+        return new SessionRegistry<Object>();
+    } // end newSessionRegistry
+
+    /**
+     * Method to add a session to a registry
+     * @param registry the SessionRegistry
+     * @param session the session
+     * @return the session's id
+     */
+    @SuppressWarnings("unchecked")
+    public static long addSession(Object registry, Object session) {
+        return ((SessionRegistry<Object>) registry).add(session);
+    } // end addSession
+
+    /**
+     * Method to remove a session from a registry
+     * @param registry the SessionRegistry
+     * @param id the session's id
+     * @return the removed session, or null if it was not registered
+     */
+    public static Object removeSession(Object registry, long id) {
+        return ((SessionRegistry<?>) registry).remove(id);
+    } // end removeSession
+
+    /**
+     * Method to play a full game between two in-memory players on the calling thread
+     * @param seed the seed for the session's letter pool
+     * @return the total of both players' scores
+     */
+    public static int playGame(long seed) {
+        CandidateWordsChannel p1 = new CandidateWordsChannel("one");
+        CandidateWordsChannel p2 = new CandidateWordsChannel("two");
+        GameSession session = new GameSession(p1, p2, PLAYED_GAMES, seed);
+        session.run();
+        return p1.getPlayer().getScore() + p2.getPlayer().getScore();
+    } // end playGame
+
+    /**
+     * Method to match two in-memory players through a game manager and play their game on the calling thread,
+     * which answers each player's prompts in turn, so the whole path from matchmaking to results runs without sockets
+     * @return the total of both players' scores
+     */
+    public static int playMatchedGame() {
+        InMemoryChannel one = new InMemoryChannel("one");
+        InMemoryChannel two = new InMemoryChannel("two");
+        GameManager gm = MATCHED_GAMES.get();
+        gm.addClient(one);
+        gm.addClient(two);
+        while (!one.isGameOver() || !two.isGameOver()) {
+            answer(one);
+            answer(two);
+        }
+        return one.getPlayer().getScore() + two.getPlayer().getScore();
+    } // end playMatchedGame
+
+    /**
+     * Helper method to take every message sent to an in-memory player and answer its prompt, if it has one
+     * @param channel the player's channel
+     */
+    private static void answer(InMemoryChannel channel) {
+        while (channel.poll() != null) {
+            // the messages are drained unread, since the player's rack is read directly
+        }
+        if (channel.isPrompted()) channel.send(candidateMove(channel.getPlayer()));
+    } // end answer
+
+} // end class
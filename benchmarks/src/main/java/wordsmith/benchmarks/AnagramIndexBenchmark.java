@@ -0,0 +1,55 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: AnagramIndexBenchmark
+ * 
+ * Benchmark of finding the highest-scoring word on a 7-letter rack with the anagram index.
+ * Run from the directory holding words_alpha.txt, as the index is built from it in the working directory.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class AnagramIndexBenchmark {
+
+    @Param({"AEINRST", "EEILNST", "BCDFGHJ", "AAEEIOU"})
+    public String rack;
+
+    private int[] letterCounts;
+
+    @Setup
+    public void setup() {
+        letterCounts = new int[26];
+        for (int i = 0; i < rack.length(); i++) {
+            letterCounts[rack.charAt(i) - 'A']++;
+        }
+    }
+
+    @Benchmark
+    public String bestWord() throws Throwable {
+        return (String) Fixtures.BEST_WORD.invokeExact(letterCounts);
+    }
+
+} // end class
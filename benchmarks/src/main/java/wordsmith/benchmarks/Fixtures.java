@@ -0,0 +1,60 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: Fixtures
+ * 
+ * This class contains constant method handles to the static methods of BenchmarkFixtures.
+ * Because they are static final, the JIT treats them as constants and inlines the calls.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+
+final class Fixtures {
+
+    static final MethodHandle IS_VALID_WORD = find("isValidWord", boolean.class, String.class);
+    static final MethodHandle LOOKUP_WORD = find("lookupWord", int.class, String.class);
+    static final MethodHandle BEST_WORD = find("bestWord", String.class, int[].class);
+    static final MethodHandle NEW_LETTER_POOL = find("newLetterPool", Object.class, long.class);
+    static final MethodHandle NEW_PLAYER = find("newPlayer", Object.class, Object.class);
+    static final MethodHandle RACK_LETTERS = find("rackLetters", String.class, Object.class);
+    static final MethodHandle CAN_FORM_WORD = find("canFormWord", boolean.class, Object.class, String.class);
+    static final MethodHandle REDRAW_LETTERS = find("redrawLetters", int.class, Object.class, Object.class);
+    static final MethodHandle GET_WORD_POINTS = find("getWordPoints", int.class, Object.class, String.class);
+    static final MethodHandle NEW_GAME_MANAGER = find("newGameManager", Object.class);
+    static final MethodHandle ADD_CLIENT = find("addClient", int.class, Object.class);
+    static final MethodHandle PLAY_GAME = find("playGame", int.class, long.class);
+    static final MethodHandle PLAY_MATCHED_GAME = find("playMatchedGame", int.class);
+    static final MethodHandle NEW_WAITING_ROOM = find("newWaitingRoom", Object.class, int.class);
+    static final MethodHandle MATCH_ARRIVAL = find("matchArrival", int.class, Object.class);
+    static final MethodHandle NEW_PENDING_TIMEOUTS = find("newPendingTimeouts", Object.class, int.class);
+    static final MethodHandle REPLACE_TIMEOUT = find("replaceTimeout", boolean.class, Object.class);
+    static final MethodHandle NEW_SESSION_REGISTRY = find("newSessionRegistry", Object.class);
+    static final MethodHandle ADD_SESSION = find("addSession", long.class, Object.class, Object.class);
+    static final MethodHandle REMOVE_SESSION = find("removeSession", Object.class, Object.class, long.class);
+
+    private Fixtures() {}
+
+    /**
+     * Helper method to look up a static method of BenchmarkFixtures
+     * @param name the method name
+     * @param returnType the return type
+     * @param parameterTypes the parameter types
+     * @return the method handle
+     */
+    private static MethodHandle find(String name, Class<?> returnType, Class<?>... parameterTypes) {
+        try {
+            Class<?> fixtures = Class.forName("BenchmarkFixtures");
+            return MethodHandles.publicLookup().findStatic(fixtures, name, MethodType.methodType(returnType, parameterTypes));
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    } // end find
+
+} // end class
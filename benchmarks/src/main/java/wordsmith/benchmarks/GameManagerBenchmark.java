@@ -0,0 +1,56 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameManagerBenchmark
+ * 
+ * Benchmark of GameManager.addClient with several threads adding ready clients to one manager at once.
+ * Matched sessions are removed immediately rather than run, so only matchmaking is measured.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GameManagerBenchmark {
+
+    private Object gameManager;
+
+    @Setup
+    public void setup() throws Throwable {
+        gameManager = (Object) Fixtures.NEW_GAME_MANAGER.invokeExact();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public int addClientUncontended() throws Throwable {
+        return (int) Fixtures.ADD_CLIENT.invokeExact(gameManager);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public int addClientContended() throws Throwable {
+        return (int) Fixtures.ADD_CLIENT.invokeExact(gameManager);
+    }
+
+} // end class
@@ -0,0 +1,49 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: GameSessionBenchmark
+ * 
+ * Benchmark of a full GameSession turn loop between two in-memory clients, covering drawing, rack checks,
+ * word validation and scoring for every turn without any network I/O. The matched game also covers
+ * matchmaking through a GameManager and the event-driven path, with both players on InMemoryChannels.
+ * Run from the directory holding words_alpha.txt, as the validator loads it from the working directory.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class GameSessionBenchmark {
+
+    private long seed = 0;
+
+    @Benchmark
+    public int playGame() throws Throwable {
+        return (int) Fixtures.PLAY_GAME.invokeExact(seed++);
+    }
+
+    @Benchmark
+    public int playMatchedGame() throws Throwable {
+        return (int) Fixtures.PLAY_MATCHED_GAME.invokeExact();
+    }
+
+} // end class
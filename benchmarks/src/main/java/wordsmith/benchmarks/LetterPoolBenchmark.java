@@ -0,0 +1,51 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: LetterPoolBenchmark
+ * 
+ * Benchmark of LetterPool.getWordPoints.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LetterPoolBenchmark {
+
+    @Param({"tea", "quixotic"})
+    public String word;
+
+    private Object pool;
+
+    @Setup
+    public void setup() throws Throwable {
+        pool = (Object) Fixtures.NEW_LETTER_POOL.invokeExact(42L);
+    }
+
+    @Benchmark
+    public int getWordPoints() throws Throwable {
+        return (int) Fixtures.GET_WORD_POINTS.invokeExact(pool, word);
+    }
+
+} // end class
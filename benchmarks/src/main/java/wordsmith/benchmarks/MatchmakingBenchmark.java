@@ -0,0 +1,52 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: MatchmakingBenchmark
+ * 
+ * Benchmark of rated matchmaking latency with a large number of players waiting. Each operation is an arrival
+ * that matches one waiting player, plus a replacement at a fresh rating, so the queue depth stays constant.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MatchmakingBenchmark {
+
+    @Param({"10000"})
+    public int waiting;
+
+    private Object waitingRoom;
+
+    @Setup
+    public void setup() throws Throwable {
+        waitingRoom = (Object) Fixtures.NEW_WAITING_ROOM.invokeExact(waiting);
+    }
+
+    @Benchmark
+    public int matchArrival() throws Throwable {
+        return (int) Fixtures.MATCH_ARRIVAL.invokeExact(waitingRoom);
+    }
+
+} // end class
@@ -0,0 +1,125 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: PlayerBenchmark
+ * 
+ * Benchmark of Player.canFormWord and Player.drawLetters, each against the previous List<Character> rack,
+ * which built a HashMap of boxed counts on every canFormWord call. Drawing is measured as a full
+ * redraw (return the rack, draw seven) so the pool never drains. Run with -prof gc for the bytes
+ * each rack allocates per operation.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PlayerBenchmark {
+
+    private Object player;
+    private Object pool;
+
+    @Setup
+    public void setup() throws Throwable {
+        pool = (Object) Fixtures.NEW_LETTER_POOL.invokeExact(42L);
+        player = (Object) Fixtures.NEW_PLAYER.invokeExact(pool);
+    }
+
+    @State(Scope.Thread)
+    public static class Word {
+        @Param({"tea", "stare", "zebras"})
+        public String word;
+    }
+
+    /**
+     * The previous rack implementation, kept as the baseline. It starts with the same letters as the player.
+     */
+    @State(Scope.Thread)
+    public static class LegacyRack {
+        private final List<Character> rack = new ArrayList<>();
+        private final List<Character> bag = new ArrayList<>();
+
+        @Setup
+        public void setup() throws Throwable {
+            Object pool = (Object) Fixtures.NEW_LETTER_POOL.invokeExact(42L);
+            String letters = (String) Fixtures.RACK_LETTERS.invokeExact((Object) Fixtures.NEW_PLAYER.invokeExact(pool));
+            for (char letter : letters.toCharArray()) {
+                rack.add(letter);
+            }
+            for (int i = 0; i < 200; i++) {
+                bag.add((char) ('A' + i % 26));
+            }
+        }
+
+        private boolean canFormWord(String word) {
+            Map<Character, Integer> letterCounts = new HashMap<>();
+            for (char c : rack) {
+                letterCounts.put(c, letterCounts.getOrDefault(c, 0) + 1);
+            }
+            for (char c : word.toUpperCase().toCharArray()) {
+                if (!letterCounts.containsKey(c) || letterCounts.get(c) == 0) {
+                    return false;
+                }
+                letterCounts.put(c, letterCounts.get(c) - 1);
+            }
+            return true;
+        }
+
+        private int redrawLetters() {
+            bag.addAll(rack);
+            rack.clear();
+            int count = Math.min(bag.size(), 7);
+            Random random = new Random();
+            for (int i = 0; i < count; i++) {
+                rack.add(bag.remove(random.nextInt(bag.size())));
+            }
+            return bag.size();
+        }
+    } // end LegacyRack
+
+    @Benchmark
+    public boolean canFormWord(Word w) throws Throwable {
+        return (boolean) Fixtures.CAN_FORM_WORD.invokeExact(player, w.word);
+    }
+
+    @Benchmark
+    public boolean canFormWordLegacy(Word w, LegacyRack legacy) {
+        return legacy.canFormWord(w.word);
+    }
+
+    @Benchmark
+    public int drawLetters() throws Throwable {
+        return (int) Fixtures.REDRAW_LETTERS.invokeExact(player, pool);
+    }
+
+    @Benchmark
+    public int drawLettersLegacy(LegacyRack legacy) {
+        return legacy.redrawLetters();
+    }
+
+} // end class
@@ -0,0 +1,152 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: SessionRegistryBenchmark
+ * 
+ * Contention benchmark of session bookkeeping, comparing the sharded SessionRegistry with the synchronized list
+ * GameManager used before it. Both hold a steady population of sessions split between the threads, and each
+ * operation ends a thread's oldest session and starts a new one, the way a busy server turns sessions over.
+ * Run its main method to sweep both from 1 to 32 threads and print the throughput of each at every count:
+ * java -cp benchmarks/target/benchmarks.jar wordsmith.benchmarks.SessionRegistryBenchmark [threads...]
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionRegistryBenchmark {
+
+    /**
+     * The bookkeeping every thread shares
+     */
+    @State(Scope.Benchmark)
+    public static class Sessions {
+        @Param({"10000"})
+        public int liveSessions;
+
+        private Object registry;
+        private final List<Object> list = Collections.synchronizedList(new ArrayList<>());
+
+        @Setup
+        public void setup() throws Throwable {
+            registry = (Object) Fixtures.NEW_SESSION_REGISTRY.invokeExact();
+        }
+    } // end Sessions
+
+    /**
+     * One thread's share of the live sessions, oldest first
+     */
+    @State(Scope.Thread)
+    public static class Ring {
+        private Object[] registered;
+        private long[] ids;
+        private Object[] listed;
+        private int oldest = 0;
+
+        @Setup
+        public void setup(Sessions sessions, BenchmarkParams params) throws Throwable {
+            int perThread = Math.max(1, sessions.liveSessions / params.getThreads());
+            registered = new Object[perThread];
+            ids = new long[perThread];
+            listed = new Object[perThread];
+            for (int i = 0; i < perThread; i++) {
+                registered[i] = new Object();
+                ids[i] = (long) Fixtures.ADD_SESSION.invokeExact(sessions.registry, registered[i]);
+                listed[i] = new Object();
+                sessions.list.add(listed[i]);
+            }
+        }
+
+        private void advance() {
+            oldest = oldest + 1 == ids.length ? 0 : oldest + 1;
+        }
+    } // end Ring
+
+    @Benchmark
+    public long registry(Sessions sessions, Ring ring) throws Throwable {
+        return turnOverRegistered(sessions, ring);
+    }
+
+    @Benchmark
+    public boolean synchronizedList(Sessions sessions, Ring ring) {
+        return turnOverListed(sessions, ring);
+    }
+
+    private static long turnOverRegistered(Sessions sessions, Ring ring) throws Throwable {
+        Object ended = (Object) Fixtures.REMOVE_SESSION.invokeExact(sessions.registry, ring.ids[ring.oldest]);
+        ring.registered[ring.oldest] = new Object();
+        long id = (long) Fixtures.ADD_SESSION.invokeExact(sessions.registry, ring.registered[ring.oldest]);
+        ring.ids[ring.oldest] = id;
+        ring.advance();
+        return ended == null ? -1 : id;
+    }
+
+    private static boolean turnOverListed(Sessions sessions, Ring ring) {
+        boolean ended = sessions.list.remove(ring.listed[ring.oldest]);
+        ring.listed[ring.oldest] = new Object();
+        sessions.list.add(ring.listed[ring.oldest]);
+        ring.advance();
+        return ended;
+    }
+
+    /**
+     * Main method to run both benchmarks at each thread count and print how their throughput scales
+     * @param args optional thread counts, 1 2 4 8 16 32 by default
+     * @throws RunnerException if a benchmark fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        int[] counts = {1, 2, 4, 8, 16, 32};
+        if (args.length > 0) {
+            counts = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                counts[i] = Integer.parseInt(args[i]);
+            }
+        }
+        StringBuilder table = new StringBuilder(String.format("%8s %16s %16s  (ops/us)%n", "threads", "registry", "synchronizedList"));
+        for (int threads : counts) {
+            Collection<RunResult> results = new Runner(new OptionsBuilder()
+                    .include(SessionRegistryBenchmark.class.getName() + "\\.")
+                    .threads(threads)
+                    .build()).run();
+            double registry = 0;
+            double list = 0;
+            for (RunResult result : results) {
+                double score = result.getPrimaryResult().getScore();
+                if (result.getParams().getBenchmark().endsWith(".registry")) registry = score;
+                else list = score;
+            }
+            table.append(String.format("%8d %16.3f %16.3f%n", threads, registry, list));
+        }
+        System.out.print(table);
+    } // end main
+
+} // end class
@@ -0,0 +1,52 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: TimerWheelBenchmark
+ * 
+ * Benchmark of the TimerWheel with a large number of pending timeouts. Each operation cancels a random
+ * pending timeout and schedules a replacement, as a finished turn does, so the pending count stays constant.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TimerWheelBenchmark {
+
+    @Param({"100000"})
+    public int pending;
+
+    private Object pendingTimeouts;
+
+    @Setup
+    public void setup() throws Throwable {
+        pendingTimeouts = (Object) Fixtures.NEW_PENDING_TIMEOUTS.invokeExact(pending);
+    }
+
+    @Benchmark
+    public boolean cancelAndSchedule() throws Throwable {
+        return (boolean) Fixtures.REPLACE_TIMEOUT.invokeExact(pendingTimeouts);
+    }
+
+} // end class
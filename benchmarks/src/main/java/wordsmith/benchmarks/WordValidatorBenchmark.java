@@ -0,0 +1,50 @@
+/**
+ * Project: Wordsmith_KNS
+ * Class: WordValidatorBenchmark
+ * 
+ * Benchmark of WordValidator.isValidWord for valid and invalid words, and of the same words judged
+ * through the shared WordCache, where after the first call every lookup is a hit.
+ * Run from the directory holding words_alpha.txt, as the validator loads it from the working directory.
+ * 
+ * @author Kirin Sharma
+ * @version 2.0
+ *
+ */
+
+package wordsmith.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WordValidatorBenchmark {
+
+    @Param({"stare", "quixotic", "zzzzqx"})
+    public String word;
+
+    @Benchmark
+    public boolean isValidWord() throws Throwable {
+        return (boolean) Fixtures.IS_VALID_WORD.invokeExact(word);
+    }
+
+    @Benchmark
+    public int cachedLookup() throws Throwable {
+        return (int) Fixtures.LOOKUP_WORD.invokeExact(word);
+    }
+
+} // end class
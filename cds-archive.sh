@@ -0,0 +1,21 @@
+#!/bin/sh
+# Project: Wordsmith_KNS
+#
+# Writes a class data sharing archive for the server jar: plays a short training run of bot games against
+# the server, then saves every class the run loaded. Run it after "mvn package" from the directory holding
+# words_alpha.txt. The archive only matches the jar and JDK it was built with.
+#
+# Usage: ./cds-archive.sh [archive]   (default server/target/wordsmith-server.jsa)
+
+set -e
+root=$(cd "$(dirname "$0")" && pwd)
+jar="$root/server/target/wordsmith-server-2.0.jar"
+archive="${1:-$root/server/target/wordsmith-server.jsa}"
+
+if [ ! -f "$jar" ]; then
+    echo "No server jar at $jar. Build it first with mvn package." >&2
+    exit 1
+fi
+java -XX:ArchiveClassesAtExit="$archive" -jar "$jar" nio --training-run
+echo "Wrote $archive. Start the server with:"
+echo "java -XX:SharedArchiveFile=$archive -jar $jar nio"